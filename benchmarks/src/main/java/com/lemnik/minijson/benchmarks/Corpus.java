@@ -0,0 +1,158 @@
+package com.lemnik.minijson.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The JSON documents benchmarked. Apart from {@link #BIG_FILE} each is generated from a fixed seed, so every run
+ * measures exactly the same input.
+ */
+public enum Corpus {
+    /**
+     * The {@code bigfile.json} used by the unit tests, a mix of typical API records.
+     */
+    BIG_FILE {
+        @Override
+        String generate(Random random) {
+            try (InputStream in = Corpus.class.getResourceAsStream("/com/lemnik/minijson/bigfile.json")) {
+                if (in == null) {
+                    throw new IllegalStateException("bigfile.json is not on the classpath");
+                }
+
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    content.write(buffer, 0, count);
+                }
+
+                return new String(content.toByteArray(), StandardCharsets.UTF_8);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+    },
+
+    /**
+     * Objects of integers, longs and doubles in several notations.
+     */
+    NUMBERS {
+        @Override
+        String generate(Random random) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < 20_000; i++) {
+                if (i > 0) json.append(',');
+                json.append("{\"id\":").append(i)
+                        .append(",\"count\":").append(random.nextInt(1000))
+                        .append(",\"timestamp\":").append(1_600_000_000_000L + random.nextInt())
+                        .append(",\"price\":").append(random.nextInt(100_000) / 100.0)
+                        .append(",\"ratio\":").append(random.nextDouble())
+                        .append(",\"scale\":").append(random.nextInt(900) + 100).append("e-").append(random.nextInt(20))
+                        .append(",\"samples\":[");
+                for (int j = 0; j < 8; j++) {
+                    if (j > 0) json.append(',');
+                    json.append(random.nextInt(2_000_000) - 1_000_000);
+                }
+                json.append("]}");
+            }
+            return json.append(']').toString();
+        }
+    },
+
+    /**
+     * Long strings with escapes and non-ASCII text.
+     */
+    STRINGS {
+        private final String[] words = {
+                "lorem", "ipsum", "dolor", "sit", "amet", "\\\"quoted\\\"", "tab\\there", "line\\nbreak",
+                "back\\\\slash", "café", "日本語", "\\u00e9scaped", "emoji😀", "path\\/x"
+        };
+
+        @Override
+        String generate(Random random) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < 5_000; i++) {
+                if (i > 0) json.append(',');
+                json.append("{\"title\":\"");
+                appendWords(json, random, 8);
+                json.append("\",\"body\":\"");
+                appendWords(json, random, 120);
+                json.append("\"}");
+            }
+            return json.append(']').toString();
+        }
+
+        private void appendWords(StringBuilder json, Random random, int count) {
+            for (int i = 0; i < count; i++) {
+                if (i > 0) json.append(' ');
+                json.append(words[random.nextInt(words.length)]);
+            }
+        }
+    },
+
+    /**
+     * Objects and arrays nested several hundred levels deep.
+     */
+    NESTED {
+        @Override
+        String generate(Random random) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < 200; i++) {
+                if (i > 0) json.append(',');
+                int depth = 100 + random.nextInt(400);
+                for (int d = 0; d < depth; d++) {
+                    json.append(d % 2 == 0 ? "{\"child\":" : "[");
+                }
+                json.append(i);
+                for (int d = depth - 1; d >= 0; d--) {
+                    json.append(d % 2 == 0 ? '}' : ']');
+                }
+            }
+            return json.append(']').toString();
+        }
+    },
+
+    /**
+     * A great many small objects that all share the same keys.
+     */
+    SMALL_OBJECTS {
+        @Override
+        String generate(Random random) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < 100_000; i++) {
+                if (i > 0) json.append(',');
+                json.append("{\"id\":").append(i)
+                        .append(",\"ok\":").append(random.nextBoolean())
+                        .append(",\"tag\":\"t").append(random.nextInt(50))
+                        .append("\",\"next\":").append(random.nextInt(10) == 0 ? "null" : Integer.toString(i + 1))
+                        .append('}');
+            }
+            return json.append(']').toString();
+        }
+    },
+
+    /**
+     * A single array of a million numbers.
+     */
+    HUGE_ARRAY {
+        @Override
+        String generate(Random random) {
+            StringBuilder json = new StringBuilder("[");
+            for (int i = 0; i < 1_000_000; i++) {
+                if (i > 0) json.append(',');
+                json.append(random.nextInt());
+            }
+            return json.append(']').toString();
+        }
+    };
+
+    abstract String generate(Random random);
+
+    public String json() {
+        return generate(new Random(0x6d696e69L + ordinal()));
+    }
+}
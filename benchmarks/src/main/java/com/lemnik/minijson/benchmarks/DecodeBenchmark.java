@@ -0,0 +1,95 @@
+package com.lemnik.minijson.benchmarks;
+
+import com.lemnik.minijson.Json;
+import com.lemnik.minijson.JsonDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding throughput for each corpus through each kind of input. Run with {@code -prof gc} to also report the
+ * allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DecodeBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private String string;
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        string = corpus.json();
+        bytes = string.getBytes(StandardCharsets.UTF_8);
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        file = Files.createTempFile("mini-json-" + corpus, ".json");
+        Files.write(file, bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Object string() throws IOException {
+        return new JsonDecoder(string).nextJsonValue();
+    }
+
+    @Benchmark
+    public Object pooledString() {
+        return Json.parse(string);
+    }
+
+    @Benchmark
+    public Object reader() throws IOException {
+        return new JsonDecoder(new StringReader(string)).nextJsonValue();
+    }
+
+    @Benchmark
+    public Object bytes() throws IOException {
+        return new JsonDecoder(bytes).nextJsonValue();
+    }
+
+    @Benchmark
+    public Object directByteBuffer() throws IOException {
+        return new JsonDecoder(direct).nextJsonValue();
+    }
+
+    @Benchmark
+    public Object mappedFile() throws IOException {
+        return JsonDecoder.open(file).nextJsonValue();
+    }
+
+    @Benchmark
+    public Object lazyBytes() throws IOException {
+        return new JsonDecoder(bytes).nextLazyValue();
+    }
+}
@@ -0,0 +1,89 @@
+package com.lemnik.minijson.benchmarks;
+
+import com.lemnik.minijson.Json;
+import com.lemnik.minijson.JsonEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding throughput for each corpus, decoded once up front, through each kind of output. Run with
+ * {@code -prof gc} to also report the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EncodeBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private Object value;
+    private int size;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String json = corpus.json();
+        value = Json.parse(json);
+        // leave room for numbers that encode longer than they were written, such as 1e5 as 100000.0
+        size = json.getBytes(StandardCharsets.UTF_8).length * 2;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void encode(JsonEncoder encoder) throws IOException {
+        // writeValue(Object) is not public, the decoded root is always an object or an array
+        if (value instanceof Map) {
+            encoder.writeValue((Map<String, ?>) value);
+        } else {
+            encoder.writeValue((List<?>) value);
+        }
+
+        encoder.flush();
+    }
+
+    @Benchmark
+    public String writer() throws IOException {
+        StringWriter out = new StringWriter(size);
+        encode(new JsonEncoder(out));
+        return out.toString();
+    }
+
+    @Benchmark
+    public String pooledStringify() {
+        return Json.stringify(value);
+    }
+
+    @Benchmark
+    public byte[] outputStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        encode(new JsonEncoder(out));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public ByteBuffer heapByteBuffer() throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(size);
+        encode(new JsonEncoder(out));
+        return out;
+    }
+}
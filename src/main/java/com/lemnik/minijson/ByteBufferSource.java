@@ -0,0 +1,39 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Utf8Source} over a {@code ByteBuffer} without an accessible backing array (typically a direct buffer).
+ * The content is copied into a small reusable window in bulk, which is much cheaper than a bounds-checked
+ * {@code get()} per byte.
+ */
+class ByteBufferSource extends Utf8Source {
+    private static final int WINDOW_SIZE = 8192;
+
+    ByteBuffer input;
+
+    ByteBufferSource(ByteBuffer input) {
+        super(new byte[WINDOW_SIZE], 0, 0);
+        this.input = input;
+    }
+
+    @Override
+    boolean fill() throws IOException {
+        int count = Math.min(buffer.length, input.remaining());
+        if (count == 0) {
+            return false;
+        }
+
+        input.get(buffer, 0, count);
+        filled += limit;
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    @Override
+    boolean isRandomAccess() {
+        return false;
+    }
+}
@@ -0,0 +1,167 @@
+package com.lemnik.minijson;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteOrder;
+
+/**
+ * <p>
+ * Scans {@code byte[]} input eight bytes at a time (SWAR: SIMD within a register), for the long runs of whitespace and
+ * plain string content that make up most of a typical document. Each {@code long} is tested for every byte of
+ * interest with a handful of arithmetic and bitwise operations, and the first match located from its trailing zeros.
+ * </p><p>
+ * Unaligned {@code long} reads from a {@code byte[]} need a {@code VarHandle}, which only exists from Java 9. It is
+ * looked up reflectively and used as a {@code MethodHandle} held in a constant, so that the JIT compiles each read to
+ * a single load. On Java 8 every method falls back to an equivalent byte at a time loop.
+ * </p>
+ */
+final class ByteScanner {
+    /**
+     * Reads the little-endian {@code long} at a given index of a {@code byte[]}, or {@code null} on Java 8.
+     */
+    private static final MethodHandle GET_LONG = lookupGetLong();
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+    private static final long SPACES = ONES * ' ';
+    private static final long TABS = ONES * '\t';
+    private static final long LINE_FEEDS = ONES * '\n';
+    private static final long CARRIAGE_RETURNS = ONES * '\r';
+
+    private ByteScanner() {
+    }
+
+    private static MethodHandle lookupGetLong() {
+        try {
+            Object varHandle = MethodHandles.class
+                    .getMethod("byteArrayViewVarHandle", Class.class, ByteOrder.class)
+                    .invoke(null, long[].class, ByteOrder.LITTLE_ENDIAN);
+
+            Class<?> accessMode = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+            Object get = accessMode.getField("GET").get(null);
+            return (MethodHandle) varHandle.getClass()
+                    .getMethod("toMethodHandle", accessMode)
+                    .invoke(varHandle, get);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether scanning is done a word at a time, rather than falling back to a byte at a time.
+     */
+    static boolean isWordAtATime() {
+        return GET_LONG != null;
+    }
+
+    private static long getLong(byte[] bytes, int index) {
+        try {
+            return (long) GET_LONG.invokeExact(bytes, index);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            // the handle declares no checked exceptions
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * The high bit of each byte of {@code word} that is zero, and no others.
+     */
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    /**
+     * The index of the first byte from {@code from} to {@code to} that is not a space, tab, line feed or carriage
+     * return, or {@code to} if there is none.
+     */
+    static int skipWhitespace(byte[] bytes, int from, int to) {
+        if (GET_LONG != null) {
+            while (to - from >= Long.BYTES) {
+                long word = getLong(bytes, from);
+                long whitespace = zeroBytes(word ^ SPACES) | zeroBytes(word ^ LINE_FEEDS)
+                        | zeroBytes(word ^ TABS) | zeroBytes(word ^ CARRIAGE_RETURNS);
+                long other = ~whitespace & HIGH_BITS;
+                if (other != 0) {
+                    return from + (Long.numberOfTrailingZeros(other) >>> 3);
+                }
+
+                from += Long.BYTES;
+            }
+        }
+
+        while (from < to) {
+            byte b = bytes[from];
+            if (b != ' ' && b != '\n' && b != '\t' && b != '\r') {
+                return from;
+            }
+
+            from++;
+        }
+
+        return to;
+    }
+
+    /**
+     * The index of the first {@code '"'}, {@code '\\'} or non-ASCII byte from {@code from} to {@code to}, or
+     * {@code to} if there is none. Everything before it is string content that may be copied as-is.
+     */
+    static int indexOfStringSpecial(byte[] bytes, int from, int to) {
+        if (GET_LONG != null) {
+            while (to - from >= Long.BYTES) {
+                long word = getLong(bytes, from);
+                long special = zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES) | (word & HIGH_BITS);
+                if (special != 0) {
+                    return from + (Long.numberOfTrailingZeros(special) >>> 3);
+                }
+
+                from += Long.BYTES;
+            }
+        }
+
+        while (from < to) {
+            byte b = bytes[from];
+            if (b == '"' || b == '\\' || b < 0) {
+                return from;
+            }
+
+            from++;
+        }
+
+        return to;
+    }
+
+    /**
+     * The index of the first {@code '"'} or {@code '\\'} from {@code from} to {@code to}, or {@code to} if there is
+     * none.
+     */
+    static int indexOfQuoteOrBackslash(byte[] bytes, int from, int to) {
+        if (GET_LONG != null) {
+            while (to - from >= Long.BYTES) {
+                long word = getLong(bytes, from);
+                long special = zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES);
+                if (special != 0) {
+                    return from + (Long.numberOfTrailingZeros(special) >>> 3);
+                }
+
+                from += Long.BYTES;
+            }
+        }
+
+        while (from < to) {
+            byte b = bytes[from];
+            if (b == '"' || b == '\\') {
+                return from;
+            }
+
+            from++;
+        }
+
+        return to;
+    }
+}
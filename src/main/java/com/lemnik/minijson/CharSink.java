@@ -0,0 +1,211 @@
+package com.lemnik.minijson;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A {@link JsonSink} that collects output in a {@code char[]} and hands it to a {@code Writer} in large blocks.
+ * Unescaped runs of string content are copied in bulk rather than a character at a time.
+ */
+class CharSink extends JsonSink {
+    private static final int BUFFER_SIZE = 8192;
+
+    private Writer writer;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    /**
+     * The number of characters already handed to {@link #writer}.
+     */
+    private long flushed;
+
+    CharSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Discard any buffered output and start writing to {@code writer}.
+     */
+    void reset(Writer writer) {
+        this.writer = writer;
+        this.position = 0;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            writer.write(buffer, 0, position);
+            flushed += position;
+            position = 0;
+        }
+    }
+
+    @Override
+    void write(char ch) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+
+        buffer[position++] = ch;
+    }
+
+    private void write(char[] chars) throws IOException {
+        if (position + chars.length > buffer.length) {
+            flushBuffer();
+        }
+
+        System.arraycopy(chars, 0, buffer, position, chars.length);
+        position += chars.length;
+    }
+
+    @Override
+    void write(String token) throws IOException {
+        writeRun(token, 0, token.length());
+    }
+
+    @Override
+    void writeLong(long value) throws IOException {
+        if (buffer.length - position < NumberFormatter.MAX_LENGTH) {
+            flushBuffer();
+        }
+
+        position = NumberFormatter.formatLong(value, buffer, position);
+    }
+
+    @Override
+    void writeDouble(double value) throws IOException {
+        if (buffer.length - position < NumberFormatter.MAX_LENGTH) {
+            flushBuffer();
+        }
+
+        position = NumberFormatter.formatDouble(value, buffer, position);
+    }
+
+    @Override
+    void writeString(CharSequence string) throws IOException {
+        write('"');
+
+        int length = string.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = string.charAt(i);
+            if (needsEscape(ch)) {
+                writeRun(string, start, i);
+                write(ESCAPES[ch]);
+                start = i + 1;
+            } else if (Character.isSurrogate(ch) && isUnpairedSurrogate(string, i, ch)) {
+                writeRun(string, start, i);
+                writeUnicodeEscape(ch);
+                start = i + 1;
+            }
+        }
+
+        writeRun(string, start, length);
+        write('"');
+    }
+
+    private void writeUnicodeEscape(char ch) throws IOException {
+        if (buffer.length - position < UNICODE_ESCAPE_LENGTH) {
+            flushBuffer();
+        }
+
+        position = writeUnicodeEscape(ch, buffer, position);
+    }
+
+    /**
+     * Copy the characters {@code start} to {@code end} of {@code string} as-is, in bulk wherever the type of
+     * {@code CharSequence} allows it.
+     */
+    private void writeRun(CharSequence string, int start, int end) throws IOException {
+        while (start < end) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+
+            int count = Math.min(end - start, buffer.length - position);
+            if (string instanceof String) {
+                ((String) string).getChars(start, start + count, buffer, position);
+            } else if (string instanceof StringBuilder) {
+                ((StringBuilder) string).getChars(start, start + count, buffer, position);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buffer[position + i] = string.charAt(start + i);
+                }
+            }
+
+            position += count;
+            start += count;
+        }
+    }
+
+    @Override
+    void writeName(JsonName name) throws IOException {
+        final char[] chars = name.chars;
+        if (chars.length <= buffer.length - position) {
+            System.arraycopy(chars, 0, buffer, position, chars.length);
+            position += chars.length;
+            return;
+        }
+
+        flushBuffer();
+        if (chars.length <= buffer.length) {
+            System.arraycopy(chars, 0, buffer, 0, chars.length);
+            position = chars.length;
+        } else {
+            writer.write(chars);
+            flushed += chars.length;
+        }
+    }
+
+    @Override
+    JsonSink newSegment() {
+        return new CharSink(new CharArrayWriter(BUFFER_SIZE));
+    }
+
+    @Override
+    void writeSegment(JsonSink segment) throws IOException {
+        CharSink chars = (CharSink) segment;
+        CharArrayWriter content = (CharArrayWriter) chars.writer;
+
+        if (content.size() == 0 && position + chars.position <= buffer.length) {
+            // small enough to have never left the segment's buffer
+            System.arraycopy(chars.buffer, 0, buffer, position, chars.position);
+            position += chars.position;
+        } else {
+            chars.flushBuffer();
+            flushBuffer();
+            content.writeTo(writer);
+            flushed += content.size();
+        }
+    }
+
+    @Override
+    long offset() {
+        return flushed + position;
+    }
+
+    @Override
+    void discard(long offset) {
+        if (offset < flushed || offset > flushed + position) {
+            throw new IllegalStateException("not buffered: " + offset);
+        }
+
+        position = (int) (offset - flushed);
+    }
+
+    @Override
+    void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    @Override
+    void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A {@link JsonSource} over a {@code char[]} with an {@code int} cursor. When constructed over a complete
+ * {@code String} or {@code char[]} there is no {@code Reader} involved at all, otherwise the buffer is used as a
+ * window and refilled from the {@code Reader} in bulk.
+ */
+class CharSource extends JsonSource {
+    private static final int READER_BUFFER_SIZE = 8192;
+
+    /**
+     * The largest buffer kept across a {@link #reset(String)} or {@link #reset(Reader)}, so that one large document
+     * does not pin its buffer in a long-lived decoder.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] NO_CHARS = new char[0];
+
+    private Reader reader;
+
+    /**
+     * Whether {@link #buffer} was allocated here, rather than belonging to the caller, and so may be overwritten.
+     */
+    private boolean ownsBuffer;
+
+    /**
+     * The number of characters discarded from the start of {@link #buffer} by each {@link #fill()}.
+     */
+    private long filled;
+
+    char[] buffer;
+    int position;
+    int limit;
+
+    CharSource(String json) {
+        this.reader = null;
+        this.buffer = json.toCharArray();
+        this.ownsBuffer = true;
+        this.position = 0;
+        this.limit = buffer.length;
+    }
+
+    CharSource(char[] json, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > json.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + json.length);
+        }
+
+        this.reader = null;
+        this.buffer = json;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    CharSource(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[READER_BUFFER_SIZE];
+        this.ownsBuffer = true;
+        this.position = 0;
+        this.limit = 0;
+    }
+
+    /**
+     * Start reading {@code json}, copying it into the existing buffer when that is large enough.
+     */
+    void reset(String json) {
+        final int length = json.length();
+        if (!ownsBuffer || buffer.length < length || buffer.length > Math.max(length, MAX_RETAINED_BUFFER_SIZE)) {
+            buffer = new char[Math.max(length, READER_BUFFER_SIZE)];
+            ownsBuffer = true;
+        }
+
+        json.getChars(0, length, buffer, 0);
+        reader = null;
+        filled = 0;
+        position = 0;
+        limit = length;
+    }
+
+    /**
+     * Start reading from {@code reader}, keeping the existing buffer when it is suitable.
+     */
+    void reset(Reader reader) {
+        if (!ownsBuffer || buffer.length < READER_BUFFER_SIZE || buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = new char[READER_BUFFER_SIZE];
+            ownsBuffer = true;
+        }
+
+        this.reader = reader;
+        filled = 0;
+        position = 0;
+        limit = 0;
+    }
+
+    /**
+     * Stop reading, and overwrite any input left in the buffer so that it is not kept reachable while this source is
+     * idle. A buffer that would be kept by the next {@link #reset(String)} or {@link #reset(Reader)} is kept, any
+     * other is dropped.
+     */
+    void clear() {
+        if (!ownsBuffer || buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = NO_CHARS;
+            ownsBuffer = true;
+        } else {
+            // a complete string is always copied to the start, but a reader may have filled all of the buffer
+            Arrays.fill(buffer, 0, reader != null ? buffer.length : limit, '\0');
+        }
+
+        reader = null;
+        filled = 0;
+        position = 0;
+        limit = 0;
+    }
+
+    private boolean fill() throws IOException {
+        if (reader == null) {
+            return false;
+        }
+
+        int count;
+        do {
+            count = reader.read(buffer, 0, buffer.length);
+        } while (count == 0);
+
+        if (count < 0) {
+            return false;
+        }
+
+        filled += limit;
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    @Override
+    long offset() {
+        return filled + position;
+    }
+
+    @Override
+    int read() throws IOException {
+        if (position < limit || fill()) {
+            return buffer[position++];
+        }
+
+        return EOF;
+    }
+
+    @Override
+    int nextSignificant() throws IOException {
+        do {
+            while (position < limit) {
+                char ch = buffer[position++];
+                // ASCII fast-path, only fall back to the full Unicode check for control and non-ASCII characters
+                if ((ch > ' ' && ch < 0x80) || !Character.isWhitespace(ch)) {
+                    return ch;
+                }
+            }
+        } while (fill());
+
+        return EOF;
+    }
+
+    @Override
+    int readStringRun(StringBuilder out) throws IOException {
+        do {
+            int start = position;
+            while (position < limit) {
+                char ch = buffer[position];
+                if (ch == '"' || ch == '\\') {
+                    out.append(buffer, start, position - start);
+                    position++;
+                    return ch;
+                }
+
+                position++;
+            }
+
+            out.append(buffer, start, position - start);
+        } while (fill());
+
+        return EOF;
+    }
+
+    @Override
+    void readNumberRun(StringBuilder out) throws IOException {
+        do {
+            int start = position;
+            while (position < limit && isNumberChar(buffer[position])) {
+                position++;
+            }
+
+            out.append(buffer, start, position - start);
+            if (position < limit) {
+                return;
+            }
+        } while (fill());
+    }
+
+    @Override
+    boolean skipString() throws IOException {
+        do {
+            while (position < limit) {
+                char ch = buffer[position++];
+                if (ch == '"') {
+                    return true;
+                } else if (ch == '\\') {
+                    if (position >= limit && !fill()) {
+                        return false;
+                    }
+
+                    position++;
+                }
+            }
+        } while (fill());
+
+        return false;
+    }
+
+    @Override
+    boolean skipContainer() throws IOException {
+        int depth = 1;
+        do {
+            while (position < limit) {
+                switch (buffer[position++]) {
+                    case '"':
+                        if (!skipString()) {
+                            return false;
+                        }
+                        break;
+                    case '{':
+                    case '[':
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (--depth == 0) {
+                            return true;
+                        }
+                        break;
+                }
+            }
+        } while (fill());
+
+        return false;
+    }
+
+    @Override
+    boolean isRandomAccess() {
+        return reader == null;
+    }
+
+    @Override
+    int position() {
+        return position;
+    }
+
+    @Override
+    void seek(int position) {
+        this.position = position;
+    }
+
+    @Override
+    JsonSource duplicate() {
+        if (!isRandomAccess()) {
+            throw new UnsupportedOperationException("not random access");
+        }
+
+        return new CharSource(buffer, 0, limit);
+    }
+}
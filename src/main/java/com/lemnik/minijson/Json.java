@@ -2,7 +2,11 @@ package com.lemnik.minijson;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -17,27 +21,331 @@ public class Json {
 
     private static Function<Reader, JsonDecoder> READER_DECODER_FACTORY = JsonDecoder::new;
     private static Function<String, JsonDecoder> STRING_DECODER_FACTORY = JsonDecoder::new;
+    private static Function<byte[], JsonDecoder> BYTES_DECODER_FACTORY = JsonDecoder::new;
+
+    private static volatile JsonMetrics METRICS;
+
+    /*
+     * Encoders and decoders are reset and reused between calls rather than being created for each message. Instances
+     * created by each factory are pooled separately, and each pool is cleared when its factory is replaced.
+     */
+    private static final JsonPool<PooledEncoder> ENCODERS = new JsonPool<>();
+
+    private static final JsonPool<JsonDecoder> READER_DECODERS = new JsonPool<>();
+    private static final JsonPool<JsonDecoder> STRING_DECODERS = new JsonPool<>();
+    private static final JsonPool<JsonDecoder> BYTES_DECODERS = new JsonPool<>();
+
+    /**
+     * The largest {@code stringify} output kept for reuse by a pooled encoder.
+     */
+    private static final int MAX_RETAINED_OUTPUT = 16 * 1024;
 
     private Json() {
     }
 
+    /**
+     * Set the {@link JsonMetrics} for every {@code JsonDecoder} and {@code JsonEncoder} created from now on, or
+     * {@code null} (the default) for none. Instances that already exist are not affected, the instances pooled by
+     * {@link #parse(String)}, {@link #parse(byte[])} and {@link #stringify(Object)} are discarded so that they are
+     * replaced.
+     */
+    public static void setMetrics(JsonMetrics metrics) {
+        METRICS = metrics;
+        ENCODERS.clear();
+        READER_DECODERS.clear();
+        STRING_DECODERS.clear();
+        BYTES_DECODERS.clear();
+    }
+
+    static JsonMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Set the factory for the encoders used by {@link #stringify(Object)} and {@link #stringify(Object, Writer)}.
+     * Encoders are pooled, so the factory is only called when none is free, and is always given an internal
+     * {@code StringWriter}. An encoder is {@linkplain JsonEncoder#reset(Writer) reset} onto each new output rather
+     * than being created for it. Pooled encoders from the previous factory are discarded.
+     */
     public static void setEncoderFactory(Function<Writer, JsonEncoder> encoderFactory) {
         ENCODER_FACTORY = encoderFactory;
+        ENCODERS.clear();
     }
 
+    /**
+     * Set the factory for the decoders used by {@link #parse(Reader)}. Decoders are pooled, so the factory is only
+     * called when none is free, and a decoder is {@linkplain JsonDecoder#reset(Reader) reset} onto each later
+     * {@code Reader} rather than being created for it. Pooled decoders from the previous factory are discarded.
+     */
     public static void setReaderDecoderFactory(Function<Reader, JsonDecoder> readerDecoderFactory) {
         READER_DECODER_FACTORY = readerDecoderFactory;
+        READER_DECODERS.clear();
     }
 
+    /**
+     * Set the factory for the decoders used by {@link #parse(String)} and {@link #extract(String, String...)}.
+     * Decoders are pooled, so the factory is only called when none is free, and a decoder is
+     * {@linkplain JsonDecoder#reset(String) reset} onto each later {@code String} rather than being created for it.
+     * Pooled decoders from the previous factory are discarded.
+     */
     public static void setStringDecoderFactory(Function<String, JsonDecoder> stringDecoderFactory) {
         STRING_DECODER_FACTORY = stringDecoderFactory;
+        STRING_DECODERS.clear();
+    }
+
+    /**
+     * Set the factory for the decoders used by {@link #parse(byte[])}, {@link #parse(ByteBuffer)} for heap buffers and
+     * {@link #extract(byte[], String...)}. Decoders are pooled, so the factory is only called when none is free, and
+     * a decoder is {@linkplain JsonDecoder#reset(byte[], int, int) reset} onto each later input rather than being
+     * created for it. Pooled decoders from the previous factory are discarded.
+     */
+    public static void setBytesDecoderFactory(Function<byte[], JsonDecoder> bytesDecoderFactory) {
+        BYTES_DECODER_FACTORY = bytesDecoderFactory;
+        BYTES_DECODERS.clear();
     }
 
+    /**
+     * Parse the first JSON value in {@code json}, using a pooled decoder from the string decoder factory.
+     *
+     * @throws IllegalArgumentException if {@code json} is not valid JSON
+     */
     public static Object parse(String json) {
+        JsonDecoder decoder = acquireStringDecoder(json);
+        try {
+            return decoder.nextJsonValue();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            releaseDecoder(STRING_DECODERS, decoder);
+        }
+    }
+
+    /**
+     * Parse the first JSON value from {@code reader}, using a pooled decoder from the reader decoder factory. The
+     * {@code Reader} is read in blocks, so characters beyond the end of the value may be consumed.
+     *
+     * @throws IllegalArgumentException if the JSON is not valid, or could not be read from {@code reader}
+     */
+    public static Object parse(Reader reader) {
+        JsonDecoder decoder = READER_DECODERS.acquire();
+        if (decoder == null) {
+            decoder = READER_DECODER_FACTORY.apply(reader);
+        } else {
+            decoder.reset(reader);
+        }
+
+        try {
+            return decoder.nextJsonValue();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            releaseDecoder(READER_DECODERS, decoder);
+        }
+    }
+
+    private static JsonDecoder acquireStringDecoder(String json) {
+        JsonDecoder decoder = STRING_DECODERS.acquire();
+        if (decoder == null) {
+            decoder = STRING_DECODER_FACTORY.apply(json);
+        } else {
+            decoder.reset(json);
+        }
+
+        return decoder;
+    }
+
+    private static JsonDecoder acquireBytesDecoder(byte[] json, int offset, int length) {
+        JsonDecoder decoder = BYTES_DECODERS.acquire();
+        if (decoder == null) {
+            decoder = BYTES_DECODER_FACTORY.apply(json);
+            if (offset != 0 || length != json.length) {
+                decoder.reset(json, offset, length);
+            }
+        } else {
+            decoder.reset(json, offset, length);
+        }
+
+        return decoder;
+    }
+
+    private static void releaseDecoder(JsonPool<JsonDecoder> pool, JsonDecoder decoder) {
+        // don't keep the caller's input, or what was read from it, reachable from the pool
+        decoder.clearInput();
+        pool.release(decoder);
+    }
+
+    /**
+     * Encode {@code value} as a JSON string, using a pooled encoder from the encoder factory.
+     */
+    public static String stringify(Object value) {
+        PooledEncoder pooled = acquireEncoder();
+        try {
+            pooled.encoder.writeValue(value);
+            pooled.encoder.flush();
+            return pooled.output.toString();
+        } catch (IOException ioe) {
+            // a StringWriter never fails, but a custom encoder might
+            throw new UncheckedIOException(ioe);
+        } finally {
+            releaseEncoder(pooled);
+        }
+    }
+
+    /**
+     * Encode {@code value} as JSON to {@code writer} and flush it, using a pooled encoder from the encoder factory.
+     */
+    public static void stringify(Object value, Writer writer) throws IOException {
+        PooledEncoder pooled = acquireEncoder();
+        try {
+            pooled.encoder.reset(writer);
+            pooled.encoder.writeValue(value);
+            pooled.encoder.flush();
+        } finally {
+            releaseEncoder(pooled);
+        }
+    }
+
+    private static PooledEncoder acquireEncoder() {
+        PooledEncoder pooled = ENCODERS.acquire();
+        if (pooled == null) {
+            StringWriter output = new StringWriter();
+            pooled = new PooledEncoder(output, ENCODER_FACTORY.apply(output));
+        }
+
+        return pooled;
+    }
+
+    private static void releaseEncoder(PooledEncoder pooled) {
+        StringBuffer buffer = pooled.output.getBuffer();
+        if (buffer.capacity() > MAX_RETAINED_OUTPUT) {
+            pooled.output = new StringWriter();
+        } else {
+            buffer.setLength(0);
+        }
+
+        pooled.encoder.reset(pooled.output);
+        ENCODERS.release(pooled);
+    }
+
+    private static final class PooledEncoder {
+        StringWriter output;
+        final JsonEncoder encoder;
+
+        PooledEncoder(StringWriter output, JsonEncoder encoder) {
+            this.output = output;
+            this.encoder = encoder;
+        }
+    }
+
+    /**
+     * Parse UTF-8 encoded JSON directly from {@code json}, using a pooled decoder from the bytes decoder factory.
+     *
+     * @throws IllegalArgumentException if {@code json} is not valid JSON
+     */
+    public static Object parse(byte[] json) {
+        JsonDecoder decoder = acquireBytesDecoder(json, 0, json.length);
+        try {
+            return decoder.nextJsonValue();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            releaseDecoder(BYTES_DECODERS, decoder);
+        }
+    }
+
+    /**
+     * Parse the remaining UTF-8 encoded JSON in {@code json}, without modifying its position. Heap buffers are parsed
+     * in-place by a pooled decoder from the bytes decoder factory, other buffers by a new {@code JsonDecoder}.
+     */
+    public static Object parse(ByteBuffer json) {
+        if (!json.hasArray()) {
+            try {
+                return new JsonDecoder(json).nextJsonValue();
+            } catch (IOException ioe) {
+                throw new IllegalArgumentException(ioe);
+            }
+        }
+
+        JsonDecoder decoder = acquireBytesDecoder(json.array(), json.arrayOffset() + json.position(), json.remaining());
+        try {
+            return decoder.nextJsonValue();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            releaseDecoder(BYTES_DECODERS, decoder);
+        }
+    }
+
+    /**
+     * Parse {@code json} lazily, objects and arrays are only decoded as they are accessed. The returned value keeps
+     * reading from its own new {@code JsonDecoder}, which is never pooled.
+     *
+     * @see JsonDecoder#nextLazyValue()
+     */
+    public static Object parseLazy(String json) {
+        try {
+            return new JsonDecoder(json).nextLazyValue();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+    }
+
+    /**
+     * Parse UTF-8 encoded {@code json} lazily, objects and arrays are only decoded as they are accessed. The returned
+     * value keeps reading from its own new {@code JsonDecoder}, which is never pooled.
+     *
+     * @see JsonDecoder#nextLazyValue()
+     */
+    public static Object parseLazy(byte[] json) {
         try {
-            return STRING_DECODER_FACTORY.apply(json).nextJsonValue();
+            return new JsonDecoder(json).nextLazyValue();
         } catch (IOException ioe) {
             throw new IllegalArgumentException(ioe);
         }
     }
+
+    /**
+     * Extract the values referenced by each of the RFC 6901 JSON {@code pointers} from {@code json} in a single pass,
+     * for example {@code Json.extract(json, "/user/id", "/items/0/name")}, using a pooled decoder from the string
+     * decoder factory. Missing values are returned as {@code null}.
+     *
+     * @see JsonDecoder#extract(String...)
+     */
+    public static Object[] extract(String json, String... pointers) {
+        JsonDecoder decoder = acquireStringDecoder(json);
+        try {
+            return decoder.extract(pointers);
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            releaseDecoder(STRING_DECODERS, decoder);
+        }
+    }
+
+    /**
+     * Extract the values referenced by each of the RFC 6901 JSON {@code pointers} from UTF-8 encoded {@code json} in
+     * a single pass, using a pooled decoder from the bytes decoder factory. Missing values are returned as
+     * {@code null}.
+     *
+     * @see JsonDecoder#extract(String...)
+     */
+    public static Object[] extract(byte[] json, String... pointers) {
+        JsonDecoder decoder = acquireBytesDecoder(json, 0, json.length);
+        try {
+            return decoder.extract(pointers);
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            releaseDecoder(BYTES_DECODERS, decoder);
+        }
+    }
+
+    /**
+     * Parse the UTF-8 encoded JSON file at {@code path} by memory-mapping it.
+     *
+     * @see JsonDecoder#open(Path)
+     */
+    public static Object parse(Path path) throws IOException {
+        return JsonDecoder.open(path).nextJsonValue();
+    }
 }
@@ -1,10 +1,16 @@
 package com.lemnik.minijson;
 
 import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
@@ -16,20 +22,231 @@ public class JsonDecoder {
      * we never read nested String literals - this is completely safe, although definitely goes against most ideas
      * of "best practice" - it's also really fast.
      */
-    private final StringBuilder sharedStringBuilder = new StringBuilder();
+    private StringBuilder sharedStringBuilder = new StringBuilder();
 
-    protected final PushbackReader reader;
+    private static final int MAX_RETAINED_BUILDER_CAPACITY = 16 * 1024;
 
+    private static final int MAX_RETAINED_NUMERIC_ELEMENTS = 4 * 1024;
+    private static final long[] NO_NUMERIC_ELEMENTS = new long[0];
+    private static final boolean[] NO_NUMERIC_DOUBLES = new boolean[0];
+
+    JsonSource source;
+
+    final NumberParser numberParser = new NumberParser();
+
+    private JsonKeyCache keyCache = new JsonKeyCache(JsonKeyCache.DEFAULT_CAPACITY);
+
+    /**
+     * Whether {@link #keyCache} was chosen with {@link #setKeyCache(JsonKeyCache)}, rather than being this decoder's
+     * own.
+     */
+    private boolean keyCacheConfigured;
+
+    private boolean bigNumbers;
+
+    private boolean numericArrays;
+
+    /**
+     * The elements of the numeric array being read, as {@code long} values or the bits of {@code double} values
+     * according to {@link #numericDoubles}.
+     */
+    private long[] numericElements = NO_NUMERIC_ELEMENTS;
+    private boolean[] numericDoubles = NO_NUMERIC_DOUBLES;
+
+    private boolean compactObjects;
+
+    private JsonMetrics metrics = Json.getMetrics();
+
+    /**
+     * The stats being collected by the current {@link #nextJsonValue()}, or {@code null} when nothing is being
+     * measured. Every hot path only checks this field.
+     */
+    private JsonStats stats;
+
+    /**
+     * Reused for every measured {@link #nextJsonValue()}.
+     */
+    private JsonStats reusableStats;
+
+    /**
+     * Decode from the given {@code Reader}. The {@code Reader} is read in blocks, so this decoder may consume
+     * characters beyond the end of the last value it returns.
+     */
     public JsonDecoder(Reader reader) {
-        this.reader = new PushbackReader(Objects.requireNonNull(reader, "reader"));
+        this.source = new CharSource(Objects.requireNonNull(reader, "reader"));
     }
 
+    /**
+     * Decode directly from the characters of {@code json}, without any {@code Reader}.
+     */
     public JsonDecoder(String json) {
-        this.reader = new PushbackReader(new StringReader(Objects.requireNonNull(json, "json")));
+        this.source = new CharSource(Objects.requireNonNull(json, "json"));
+    }
+
+    /**
+     * Decode directly from {@code length} characters of {@code json} starting at {@code offset}. The array is not
+     * copied, and must not be modified while this decoder is in use.
+     */
+    public JsonDecoder(char[] json, int offset, int length) {
+        this.source = new CharSource(Objects.requireNonNull(json, "json"), offset, length);
+    }
+
+    /**
+     * Decode directly from UTF-8 encoded {@code json}, without any {@code Reader} or charset decoding step.
+     */
+    public JsonDecoder(byte[] json) {
+        this(json, 0, Objects.requireNonNull(json, "json").length);
+    }
+
+    /**
+     * Decode directly from {@code length} UTF-8 encoded bytes of {@code json} starting at {@code offset}. The array
+     * is not copied, and must not be modified while this decoder is in use.
+     */
+    public JsonDecoder(byte[] json, int offset, int length) {
+        this.source = new Utf8Source(Objects.requireNonNull(json, "json"), offset, length);
+    }
+
+    /**
+     * Decode directly from the remaining UTF-8 encoded bytes of {@code json}. Heap buffers are read in-place, other
+     * buffers are copied through a small window. The position of {@code json} is not modified.
+     */
+    public JsonDecoder(ByteBuffer json) {
+        Objects.requireNonNull(json, "json");
+        if (json.hasArray()) {
+            this.source = new Utf8Source(json.array(), json.arrayOffset() + json.position(), json.remaining());
+        } else {
+            this.source = new ByteBufferSource(json.duplicate());
+        }
+    }
+
+    JsonDecoder(JsonSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Discard any remaining input and start decoding from {@code reader}, keeping this decoder's buffers and settings.
+     * Lazy values returned by {@link #nextLazyValue()} from the previous input can no longer be used.
+     */
+    public void reset(Reader reader) {
+        Objects.requireNonNull(reader, "reader");
+        if (source instanceof CharSource) {
+            ((CharSource) source).reset(reader);
+        } else {
+            source = new CharSource(reader);
+        }
+
+        resetBuffers();
+    }
+
+    /**
+     * Discard any remaining input and start decoding {@code json}, keeping this decoder's buffers and settings.
+     * Lazy values returned by {@link #nextLazyValue()} from the previous input can no longer be used.
+     */
+    public void reset(String json) {
+        Objects.requireNonNull(json, "json");
+        if (source instanceof CharSource) {
+            ((CharSource) source).reset(json);
+        } else {
+            source = new CharSource(json);
+        }
+
+        resetBuffers();
+    }
+
+    /**
+     * Discard any remaining input and start decoding UTF-8 encoded {@code json}, keeping this decoder's buffers and
+     * settings. Lazy values returned by {@link #nextLazyValue()} from the previous input can no longer be used.
+     */
+    public void reset(byte[] json) {
+        reset(json, 0, Objects.requireNonNull(json, "json").length);
+    }
+
+    /**
+     * Discard any remaining input and start decoding {@code length} UTF-8 encoded bytes of {@code json} starting at
+     * {@code offset}, keeping this decoder's buffers and settings. The array is not copied, and must not be modified
+     * while this decoder is in use.
+     */
+    public void reset(byte[] json, int offset, int length) {
+        Objects.requireNonNull(json, "json");
+        if (source.getClass() == Utf8Source.class) {
+            ((Utf8Source) source).reset(json, offset, length);
+        } else {
+            source = new Utf8Source(json, offset, length);
+        }
+
+        resetBuffers();
+    }
+
+    /**
+     * Discard the input, overwriting any of it left in this decoder's buffer, before the decoder is pooled.
+     */
+    void clearInput() {
+        if (source instanceof CharSource) {
+            ((CharSource) source).clear();
+        } else if (source.getClass() == Utf8Source.class) {
+            ((Utf8Source) source).clear();
+        } else {
+            source = new CharSource("");
+        }
+    }
+
+    private void resetBuffers() {
+        // don't hold on to the space needed by one unusually long string
+        if (sharedStringBuilder.capacity() > MAX_RETAINED_BUILDER_CAPACITY) {
+            sharedStringBuilder = new StringBuilder();
+        }
+
+        if (numericElements.length > MAX_RETAINED_NUMERIC_ELEMENTS) {
+            numericElements = NO_NUMERIC_ELEMENTS;
+            numericDoubles = NO_NUMERIC_DOUBLES;
+        }
+    }
+
+    /**
+     * Open a decoder over the UTF-8 encoded file at {@code path} by memory-mapping it, files larger than 2GB are
+     * mapped in chunks. The file is never copied onto the heap, and must not be modified while the decoder is in use.
+     */
+    public static JsonDecoder open(Path path) throws IOException {
+        return new JsonDecoder(MappedFileSource.open(Objects.requireNonNull(path, "path")));
     }
 
     public final Object nextJsonValue() throws IOException {
-        int codePoint = nextSignificantCodepoint();
+        final JsonMetrics metrics = this.metrics;
+        if (metrics == null && !JsonFlightRecorder.isDecodeEnabled()) {
+            return readNextValue();
+        }
+
+        JsonStats stats = reusableStats;
+        if (stats == null) {
+            stats = reusableStats = new JsonStats();
+        }
+
+        stats.reset();
+        stats.event = JsonFlightRecorder.beginDecode();
+        final long startOffset = source.offset();
+        final long start = System.nanoTime();
+        this.stats = stats;
+        try {
+            return readNextValue();
+        } catch (IOException | RuntimeException | Error e) {
+            stats.failed = true;
+            throw e;
+        } finally {
+            this.stats = null;
+            stats.durationNanos = System.nanoTime() - start;
+            stats.length = source.offset() - startOffset;
+            JsonFlightRecorder.commit(stats);
+            if (metrics != null) {
+                metrics.decoded(stats);
+            }
+        }
+    }
+
+    /**
+     * Read the next value without measuring it, for callers that are not a top-level decode of their own.
+     */
+    Object readNextValue() throws IOException {
+        int codePoint = source.nextSignificant();
         Object value = readJsonValue(codePoint);
         if (value == null) {
             throw new IOException("parse error");
@@ -38,8 +255,473 @@ public class JsonDecoder {
         return value;
     }
 
+    /**
+     * <p>
+     * Read the next value lazily: objects and arrays are returned as read-only {@code Map} and {@code List} views
+     * backed by the input, which record only where each member starts the first time they are accessed, and only
+     * decode a member (and its strings) when {@code get} or iteration reaches it. Other values are decoded as usual.
+     * </p><p>
+     * Lazy values hold on to this decoder and its input, and read through it whenever they decode, so they must not be
+     * shared between threads and the input must not be modified while they are in use. Malformed input inside an
+     * object or array is reported by the accessing method as an {@code IllegalArgumentException}.
+     * </p>
+     *
+     * @throws UnsupportedOperationException if this decoder does not hold its entire input in memory, lazy decoding is
+     *                                       only possible over a {@code String}, array or heap {@code ByteBuffer}
+     */
+    public final Object nextLazyValue() throws IOException {
+        if (!source.isRandomAccess()) {
+            throw new UnsupportedOperationException("lazy decoding requires a String, array or heap ByteBuffer");
+        }
+
+        int codePoint = source.nextSignificant();
+        if (codePoint == '{' || codePoint == '[') {
+            int start = source.position();
+            if (!source.skipContainer()) {
+                throw new IOException("unexpected EOF");
+            }
+
+            return codePoint == '{' ? new LazyJsonObject(this, start) : new LazyJsonArray(this, start);
+        }
+
+        Object value = readJsonValue(codePoint);
+        if (value == null) {
+            throw new IOException("parse error");
+        }
+
+        return value;
+    }
+
+    /**
+     * Read the next value, which must be an array, decoding its elements concurrently on the common fork-join pool.
+     *
+     * @see #nextJsonArray(Executor)
+     */
+    public final List<Object> nextJsonArray() throws IOException {
+        return nextJsonArray(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * <p>
+     * Read the next value, which must be an array, decoding its elements concurrently as tasks on {@code executor}.
+     * The boundaries of the elements are first found with a single bracket-counting pass, then contiguous ranges of
+     * elements are decoded by {@linkplain #newWorkerDecoder() worker decoders}. The elements are the same as from
+     * {@link #nextJsonValue()}, but the array itself is always a {@link #newArrayList() List}, even where
+     * {@linkplain #setNumericArrays(boolean) numeric arrays} would have decoded it as a {@link JsonNumberArray}.
+     * </p><p>
+     * Only possible when the entire input is held in memory, that is over a {@code String}, array or heap
+     * {@code ByteBuffer}.
+     * </p>
+     *
+     * @throws UnsupportedOperationException if this decoder does not hold its entire input in memory
+     */
+    public final List<Object> nextJsonArray(Executor executor) throws IOException {
+        final int[] offsets = nextArrayElements();
+        if (offsets.length == 0) {
+            return emptyArrayList();
+        }
+
+        final Object[] elements = new Object[offsets.length];
+        final int tasks = ParallelTasks.taskCount(offsets.length);
+
+        if (tasks == 1) {
+            final int end = source.position();
+            readElements(this, offsets, 0, offsets.length, elements);
+            source.seek(end);
+        } else {
+            List<FutureTask<Void>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                final int from = ParallelTasks.taskStart(offsets.length, i, tasks);
+                final int to = ParallelTasks.taskStart(offsets.length, i + 1, tasks);
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    readElements(newWorkerDecoder(), offsets, from, to, elements);
+                    return null;
+                });
+
+                futures.add(task);
+                executor.execute(task);
+            }
+
+            for (FutureTask<Void> task : futures) {
+                ParallelTasks.join(task, futures);
+            }
+        }
+
+        List<Object> array = newArrayList();
+        array.addAll(Arrays.asList(elements));
+        return array;
+    }
+
+    /**
+     * Read the next value, which must be an array, as a parallel and ordered {@code Stream} of its elements. The
+     * boundaries of the elements are found before returning, and the elements are decoded by
+     * {@linkplain #newWorkerDecoder() worker decoders} as the stream is consumed. Malformed elements are reported by the
+     * stream as an {@code IllegalArgumentException}.
+     *
+     * @throws UnsupportedOperationException if this decoder does not hold its entire input in memory
+     */
+    public final Stream<Object> streamJsonArray() throws IOException {
+        return StreamSupport.stream(new ElementSpliterator(nextArrayElements(), 0, -1), true);
+    }
+
+    /**
+     * <p>
+     * Create a decoder over the same input as this one, to decode elements of {@link #nextJsonArray(Executor)} and
+     * {@link #streamJsonArray()} on other threads. This is called from the worker threads, so must be thread-safe.
+     * </p><p>
+     * The default implementation returns a plain {@code JsonDecoder} with the same number settings, and the same key
+     * cache if one was set (otherwise each worker has its own).
+     * Subclasses that override any of the decoding hooks should return a new instance of themselves, constructed over
+     * exactly the same {@code String}, array and offset as this decoder.
+     * </p>
+     */
+    protected JsonDecoder newWorkerDecoder() {
+        JsonDecoder worker = new JsonDecoder(source.duplicate());
+        if (keyCacheConfigured) {
+            worker.setKeyCache(keyCache);
+        }
+        worker.bigNumbers = bigNumbers;
+        worker.numericArrays = numericArrays;
+        worker.compactObjects = compactObjects;
+        return worker;
+    }
+
+    private int[] nextArrayElements() throws IOException {
+        if (!source.isRandomAccess()) {
+            throw new UnsupportedOperationException("parallel decoding requires a String, array or heap ByteBuffer");
+        }
+
+        int codePoint = source.nextSignificant();
+        if (codePoint != '[') {
+            throw unexpected(codePoint, "[");
+        }
+
+        return readElementOffsets();
+    }
+
+    /**
+     * Skip over the elements of an array, whose opening bracket has already been consumed, returning the offset at
+     * which each of them starts. Strings and nested objects and arrays are skipped without decoding them.
+     */
+    int[] readElementOffsets() throws IOException {
+        int[] offsets = new int[16];
+        int count = 0;
+
+        int codePoint = source.nextSignificant();
+        if (codePoint != ']') {
+            while (true) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+
+                // codePoint has already been consumed
+                offsets[count++] = source.position() - 1;
+                skipValue(codePoint);
+
+                codePoint = source.nextSignificant();
+                if (codePoint == ']') {
+                    break;
+                } else if (codePoint != ',') {
+                    throw unexpected(codePoint, ", or ]");
+                }
+
+                codePoint = source.nextSignificant();
+            }
+        }
+
+        return Arrays.copyOf(offsets, count);
+    }
+
+    private static void readElements(JsonDecoder decoder, int[] offsets, int from, int to, Object[] into)
+            throws IOException {
+
+        final JsonSource source = decoder.source;
+        for (int i = from; i < to; i++) {
+            source.seek(offsets[i]);
+            into[i] = decoder.readNextValue();
+        }
+    }
+
+    /**
+     * Decodes a range of array elements with a worker decoder, splitting the range in half for parallel streams.
+     */
+    private final class ElementSpliterator implements Spliterator<Object> {
+        private final int[] offsets;
+        private int index;
+        private int end;
+        private JsonDecoder worker;
+
+        /**
+         * @param end the index after the last element, or {@code -1} for all of them
+         */
+        ElementSpliterator(int[] offsets, int index, int end) {
+            this.offsets = offsets;
+            this.index = index;
+            this.end = end < 0 ? offsets.length : end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            if (index >= end) {
+                return false;
+            }
+
+            if (worker == null) {
+                worker = newWorkerDecoder();
+            }
+
+            try {
+                worker.source.seek(offsets[index++]);
+                action.accept(worker.readNextValue());
+            } catch (IOException ioe) {
+                throw new IllegalArgumentException(ioe);
+            }
+
+            return true;
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            int middle = (index + end) >>> 1;
+            if (middle - index < ParallelTasks.MIN_ELEMENTS_PER_TASK / 4) {
+                return null;
+            }
+
+            ElementSpliterator prefix = new ElementSpliterator(offsets, index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Decode the value at {@code offset} for a lazy object or array, leaving the position of the source unchanged.
+     * Nested objects and arrays are returned lazily.
+     */
+    Object readLazyValue(int offset) {
+        final int position = source.position();
+        try {
+            source.seek(offset);
+            int codePoint = source.nextSignificant();
+            if (codePoint == '{') {
+                return new LazyJsonObject(this, source.position());
+            } else if (codePoint == '[') {
+                return new LazyJsonArray(this, source.position());
+            }
+
+            Object value = readJsonValue(codePoint);
+            if (value == null) {
+                throw new IOException("parse error");
+            }
+
+            return value;
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            source.seek(position);
+        }
+    }
+
+    /**
+     * Read the next value, returning only the parts of it referenced by each of the RFC 6901 JSON {@code pointers}, in
+     * the same order, or {@code null} where there is no such value. Everything off the paths of the pointers is skipped
+     * as with {@link #skipValue()}, and reading stops as soon as every pointer has been found.
+     * <p>
+     * Since reading stops early, property names are expected to be unique within each object as RFC 8259 recommends.
+     * Where a name is repeated a pointer through it resolves to the first occurrence read, unless that part of the
+     * value was decoded whole, while {@link #nextJsonValue()} keeps the last occurrence.
+     * </p>
+     *
+     * @throws IllegalArgumentException if any of the pointers is malformed
+     */
+    public final Object[] extract(String... pointers) throws IOException {
+        return JsonExtractor.extract(this, pointers);
+    }
+
+    /**
+     * Skip over the next value without decoding it. Strings are skipped without unescaping them, and objects and
+     * arrays by counting brackets and quotes, so nothing is allocated. The content of skipped objects and arrays is not
+     * validated beyond their brackets being balanced.
+     */
+    public final void skipValue() throws IOException {
+        skipValue(source.nextSignificant());
+    }
+
+    /**
+     * Skip over the value that starts with {@code codePoint}, which has already been consumed from the source.
+     * Objects and arrays are skipped by counting brackets, without decoding or validating their content.
+     */
+    void skipValue(int codePoint) throws IOException {
+        switch (codePoint) {
+            case '"':
+                if (!source.skipString()) {
+                    throw new IOException("unexpected EOF while reading string");
+                }
+                break;
+            case '{':
+            case '[':
+                if (!source.skipContainer()) {
+                    throw new IOException("unexpected EOF");
+                }
+                break;
+            case 't':
+                consume("rue");
+                break;
+            case 'f':
+                consume("alse");
+                break;
+            case 'n':
+                consume("ull");
+                break;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                readNumberContent(codePoint);
+                break;
+            default:
+                throw unexpected(codePoint, "a value");
+        }
+    }
+
+    /**
+     * Read the next value, reporting it to {@code visitor} as a series of events rather than returning it as an
+     * object tree. Nothing is allocated for objects, arrays, property names, strings or integers.
+     */
+    public final void nextJsonValue(JsonVisitor visitor) throws IOException {
+        visitJsonValue(source.nextSignificant(), visitor);
+    }
+
+    private void visitJsonValue(int codePoint, JsonVisitor visitor) throws IOException {
+        switch (codePoint) {
+            case '\"':
+                visitor.value(readStringContent());
+                break;
+            case '{':
+                visitObject(visitor);
+                break;
+            case '[':
+                visitArray(visitor);
+                break;
+            case 't':
+                consume("rue");
+                visitor.value(true);
+                break;
+            case 'f':
+                consume("alse");
+                visitor.value(false);
+                break;
+            case 'n':
+                consume("ull");
+                visitor.nullValue();
+                break;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                visitNumber(readNumberContent(codePoint), visitor);
+                break;
+            default:
+                throw new IOException("parse error");
+        }
+    }
+
+    private void visitObject(JsonVisitor visitor) throws IOException {
+        visitor.startObject();
+
+        int codePoint = source.nextSignificant();
+        if (codePoint != '}') {
+            visitKeyValuePair(codePoint, visitor);
+
+            while ((codePoint = source.nextSignificant()) == ',') {
+                visitKeyValuePair(source.nextSignificant(), visitor);
+            }
+
+            if (codePoint == -1) {
+                throw new IOException("unexpected EOF while reading object");
+            } else if (codePoint != '}') {
+                throw new IOException("unexpected '" + (char) codePoint + "' expected , or }");
+            }
+        }
+
+        visitor.endObject();
+    }
+
+    private void visitKeyValuePair(int codePoint, JsonVisitor visitor) throws IOException {
+        if (codePoint != '"') {
+            throw new IOException("unexpected '" + (char) codePoint + "' expected \"");
+        }
+
+        visitor.key(readStringContent());
+
+        codePoint = source.nextSignificant();
+        if (codePoint != ':') {
+            throw new IOException("unexpected '" + (char) codePoint + "' expected :");
+        }
+
+        visitJsonValue(source.nextSignificant(), visitor);
+    }
+
+    private void visitArray(JsonVisitor visitor) throws IOException {
+        visitor.startArray();
+
+        int codePoint = source.nextSignificant();
+        if (codePoint != ']') {
+            visitJsonValue(codePoint, visitor);
+
+            while ((codePoint = source.nextSignificant()) == ',') {
+                visitJsonValue(source.nextSignificant(), visitor);
+            }
+
+            if (codePoint == -1) {
+                throw new IOException("unexpected EOF while reading array");
+            } else if (codePoint != ']') {
+                throw new IOException("unexpected '" + (char) codePoint + "' expected , or ]");
+            }
+        }
+
+        visitor.endArray();
+    }
+
+    private void visitNumber(CharSequence number, JsonVisitor visitor) throws IOException {
+        try {
+            numberParser.scan(number);
+        } catch (NumberFormatException nfe) {
+            throw new IOException(nfe.getMessage(), nfe);
+        }
+
+        if (numberParser.isLong()) {
+            visitor.value(numberParser.longValue());
+        } else {
+            visitor.value(numberParser.toDouble());
+        }
+    }
+
     private Map<String, Object> readObject() throws IOException {
-        int codePoint = nextSignificantCodepoint();
+        int codePoint = source.nextSignificant();
         if (codePoint == '}') {
             return emptyObjectMap();
         } else if (codePoint == -1) {
@@ -49,19 +731,18 @@ public class JsonDecoder {
         Map<String, Object> object = newObjectMap();
 
         // read the first value (we've confirmed it exists)
-        reader.unread(codePoint);
-        readKeyValuePair(object);
+        readKeyValuePair(object, codePoint);
 
         loop:
-        while ((codePoint = reader.read()) != -1) {
+        while ((codePoint = source.nextSignificant()) != -1) {
             switch (codePoint) {
                 case ',':
-                    readKeyValuePair(object);
+                    readKeyValuePair(object, source.nextSignificant());
                     break;
                 case '}':
                     break loop;
                 default:
-                    throw new IOException("unexpected '" + (char) codePoint + "' expected , or ]");
+                    throw new IOException("unexpected '" + (char) codePoint + "' expected , or }");
             }
         }
 
@@ -73,23 +754,33 @@ public class JsonDecoder {
     }
 
     private List<Object> readArray() throws IOException {
-        int codePoint = nextSignificantCodepoint();
+        int codePoint = source.nextSignificant();
         if (codePoint == ']') {
             return emptyArrayList();
         } else if (codePoint == -1) {
             throw new IOException("unexpected EOF");
         }
 
-        List<Object> array = newArrayList();
+        if (numericArrays && isNumberStart(codePoint)) {
+            return readNumericArray(codePoint);
+        }
 
         // read the first value (we've confirmed it exists)
-        array.add(readJsonValue(codePoint));
+        return readArrayElements(newArrayList(), readJsonValue(codePoint));
+    }
 
+    /**
+     * Add {@code first} to {@code array}, followed by the rest of the elements up to the closing bracket.
+     */
+    private List<Object> readArrayElements(List<Object> array, Object first) throws IOException {
+        array.add(first);
+
+        int codePoint;
         loop:
-        while ((codePoint = reader.read()) != -1) {
+        while ((codePoint = source.nextSignificant()) != -1) {
             switch (codePoint) {
                 case ',':
-                    array.add(nextJsonValue());
+                    array.add(readNextValue());
                     break;
                 case ']':
                     break loop;
@@ -105,17 +796,163 @@ public class JsonDecoder {
         return array;
     }
 
-    private void readKeyValuePair(Map<String, Object> object) throws IOException {
-        String key = (String) nextJsonValue();
-        int codePoint = nextSignificantCodepoint();
+    /**
+     * Read an array starting with the number at {@code codePoint} into a {@link JsonNumberArray}, until any element
+     * that is not a number (or a number that does not fit in a {@code long} or {@code double}), from which point the
+     * array is read into {@link #newArrayList()} instead. The elements are held exactly in {@link #numericElements}
+     * until the closing bracket, so that an array which falls back has the same elements as without numeric arrays.
+     */
+    private List<Object> readNumericArray(int codePoint) throws IOException {
+        final NumberParser parser = numberParser;
+        int count = 0;
+
+        while (true) {
+            CharSequence number = readNumberContent(codePoint);
+            try {
+                parser.scan(number);
+            } catch (NumberFormatException nfe) {
+                throw new IOException("malformed number: " + number, nfe);
+            }
+
+            if (stats != null) {
+                stats.numbers++;
+            }
+
+            if (parser.isLong()) {
+                addNumericElement(count++, parser.longValue(), false);
+            } else if (!bigNumbers) {
+                addNumericElement(count++, Double.doubleToRawLongBits(parser.toDouble()), true);
+            } else {
+                Number value = parser.toNumber(true);
+                if (!(value instanceof Double)) {
+                    return readArrayElements(boxNumericElements(count), value);
+                }
+
+                addNumericElement(count++, Double.doubleToRawLongBits((Double) value), true);
+            }
+
+            codePoint = source.nextSignificant();
+            if (codePoint == ']') {
+                return toNumberArray(count);
+            } else if (codePoint == -1) {
+                throw new IOException("unexpected EOF while reading array");
+            } else if (codePoint != ',') {
+                throw new IOException("unexpected '" + (char) codePoint + "' expected , or ]");
+            }
+
+            codePoint = source.nextSignificant();
+            if (!isNumberStart(codePoint)) {
+                // box the elements so far before the value, which may itself be a numeric array
+                List<Object> array = boxNumericElements(count);
+                Object value = readJsonValue(codePoint);
+                if (value == null) {
+                    throw unexpected(codePoint, "a value");
+                }
+
+                return readArrayElements(array, value);
+            }
+        }
+    }
+
+    private void addNumericElement(int index, long bits, boolean isDouble) {
+        if (index == numericElements.length) {
+            int capacity = Math.max(16, index * 2);
+            numericElements = Arrays.copyOf(numericElements, capacity);
+            numericDoubles = Arrays.copyOf(numericDoubles, capacity);
+        }
+
+        numericElements[index] = bits;
+        numericDoubles[index] = isDouble;
+    }
+
+    private JsonNumberArray toNumberArray(int count) {
+        final JsonNumberArray numbers = new JsonNumberArray();
+        for (int i = 0; i < count; i++) {
+            if (numericDoubles[i]) {
+                numbers.addDouble(Double.longBitsToDouble(numericElements[i]));
+            } else {
+                numbers.addLong(numericElements[i]);
+            }
+        }
+
+        return numbers;
+    }
+
+    /**
+     * The first {@code count} numeric elements, boxed exactly as {@link #parseNumber(CharSequence)} boxes them.
+     */
+    private List<Object> boxNumericElements(int count) {
+        final List<Object> array = newArrayList();
+        for (int i = 0; i < count; i++) {
+            long bits = numericElements[i];
+            if (numericDoubles[i]) {
+                array.add(Double.longBitsToDouble(bits));
+            } else if (bits == (int) bits) {
+                array.add((int) bits);
+            } else {
+                array.add(bits);
+            }
+        }
+
+        return array;
+    }
+
+    private static boolean isNumberStart(int codePoint) {
+        return codePoint == '-' || (codePoint >= '0' && codePoint <= '9');
+    }
+
+    private void readKeyValuePair(Map<String, Object> object, int codePoint) throws IOException {
+        if (codePoint != '"') {
+            throw new IOException("unexpected '" + (char) codePoint + "' expected \"");
+        }
+
+        String key = parseKey(readStringContent());
+        codePoint = source.nextSignificant();
         if (codePoint != ':') {
             throw new IOException("unexpected '" + (char) codePoint + "' expected :");
         }
-        Object value = nextJsonValue();
+        Object value = readNextValue();
         object.put(key, value);
     }
 
-    private Object readJsonValue(int codePoint) throws IOException {
+    /**
+     * Read the value that starts with {@code codePoint}, which has already been consumed from the source. Returns
+     * {@code null} if {@code codePoint} cannot start a value.
+     */
+    Object readJsonValue(int codePoint) throws IOException {
+        if (stats != null) {
+            return readCountedValue(codePoint, stats);
+        }
+
+        return decodeValue(codePoint);
+    }
+
+    private Object readCountedValue(int codePoint, JsonStats stats) throws IOException {
+        switch (codePoint) {
+            case '"':
+                stats.strings++;
+                return decodeValue(codePoint);
+            case '{':
+                stats.objects++;
+                stats.enter();
+                Object object = decodeValue(codePoint);
+                stats.exit();
+                return object;
+            case '[':
+                stats.arrays++;
+                stats.enter();
+                Object array = decodeValue(codePoint);
+                stats.exit();
+                return array;
+            default:
+                if (isNumberStart(codePoint)) {
+                    stats.numbers++;
+                }
+                return decodeValue(codePoint);
+        }
+    }
+
+    private Object decodeValue(int codePoint) throws IOException {
         switch (codePoint) {
             case '\"':
                 // string
@@ -156,9 +993,9 @@ public class JsonDecoder {
         return null;
     }
 
-    private void consume(String value) throws IOException {
+    void consume(String value) throws IOException {
         for (int i = 0; i < value.length(); i++) {
-            int codepoint = reader.read();
+            int codepoint = source.read();
             if (codepoint != value.charAt(i)) {
                 throw new IOException("Unexpected '" + (char) codepoint + "', expected '" + value.charAt(i) + '\'');
             }
@@ -166,75 +1003,57 @@ public class JsonDecoder {
     }
 
     /**
-     * Reads a String literal assuming that the Reader is currently positioned on the first character of the String,
+     * Reads a String literal assuming that the source is currently positioned on the first character of the String,
      * or the closing quote of an empty String.
      */
     private Object readStringLiteral() throws IOException {
-        sharedStringBuilder.setLength(0);
-
-        boolean reading = true;
-        while (reading) {
-            int codepoint = reader.read();
-
-            switch (codepoint) {
-                case '\"':
-                    reading = false;
-                    break;
-                case '\\':
-                    // escape
-                    sharedStringBuilder.append(readEscapeCharacter());
-                    break;
-                default:
-                    sharedStringBuilder.appendCodePoint(codepoint);
-                    break;
-            }
-        }
-
         // micro-optimisation for empty strings - let the compiler do the work for us and share empty string instances
-        return parseString(sharedStringBuilder);
+        return parseString(readStringContent());
     }
 
-    private Number readNumber(int codePoint) throws IOException {
+    /**
+     * Reads the content of a String literal into the shared buffer, which is returned and only valid until the next
+     * String or number is read.
+     */
+    CharSequence readStringContent() throws IOException {
         sharedStringBuilder.setLength(0);
 
-        // FIXME: This implementation could also be much faster - it's pretty rubbish right now
-        if (codePoint == '-' || codePoint == '+' || (codePoint >= '0' && codePoint <= '9')) {
-            sharedStringBuilder.appendCodePoint(codePoint);
-        } else {
-            reader.unread(codePoint);
-            throw new IOException("unexpected '" + (char) codePoint + '\'');
+        int codepoint;
+        while ((codepoint = source.readStringRun(sharedStringBuilder)) == '\\') {
+            // escape
+            sharedStringBuilder.append(readEscapeCharacter());
         }
 
-        boolean hasExponent = false;
+        if (codepoint == -1) {
+            throw new IOException("unexpected EOF while reading string");
+        }
 
-        while ((codePoint = reader.read()) != -1) {
-            if (codePoint == '.' || (codePoint >= '0' && codePoint <= '9')) {
-                sharedStringBuilder.appendCodePoint(codePoint);
-            } else if (codePoint == 'e' || codePoint == 'E' && !hasExponent) {
-                hasExponent = true;
-                sharedStringBuilder.appendCodePoint(codePoint);
+        return sharedStringBuilder;
+    }
 
-                codePoint = reader.read();
-                if (codePoint == '-' || codePoint == '+' || (codePoint >= '0' && codePoint <= '9')) {
-                    sharedStringBuilder.appendCodePoint(codePoint);
-                } else {
-                    throw new IOException("unexpected character in exponent: '" + (char) codePoint + '\'');
-                }
-            } else {
-                break;
-            }
-        }
+    private Number readNumber(int codePoint) throws IOException {
+        CharSequence number = readNumberContent(codePoint);
 
-        // we *always* unread the last thing we read *if* it's not EOF
-        if (codePoint != -1) {
-            reader.unread(codePoint);
+        try {
+            return parseNumber(number);
+        } catch (NumberFormatException nfe) {
+            throw new IOException("malformed number: " + number, nfe);
         }
+    }
 
-        return parseNumber(sharedStringBuilder);
+    /**
+     * Reads the characters of a number literal starting with {@code codePoint} into the shared buffer, which is
+     * returned and only valid until the next String or number is read.
+     */
+    CharSequence readNumberContent(int codePoint) throws IOException {
+        sharedStringBuilder.setLength(0);
+        sharedStringBuilder.append((char) codePoint);
+        source.readNumberRun(sharedStringBuilder);
+        return sharedStringBuilder;
     }
 
     private char readEscapeCharacter() throws IOException {
-        int codePoint = reader.read();
+        int codePoint = source.read();
         switch (codePoint) {
             case '"':
             case '\'':
@@ -258,41 +1077,36 @@ public class JsonDecoder {
         return unexpectedEscapeCharacter(codePoint);
     }
 
-    /**
-     * Shared buffer for parsing unicode escape sequences \u0f0f
-     */
-    private final char[] unicodeEscapeBuffer = new char[4];
-
     private char readUnicodeEscape() throws IOException {
-        reader.read(unicodeEscapeBuffer);
         return (char) (
-                (hexCharToInt(unicodeEscapeBuffer[0]) << 12) +
-                        (hexCharToInt(unicodeEscapeBuffer[1]) << 8) +
-                        (hexCharToInt(unicodeEscapeBuffer[2]) << 4) +
-                        hexCharToInt(unicodeEscapeBuffer[3])
+                (hexCharToInt(source.read()) << 12) +
+                        (hexCharToInt(source.read()) << 8) +
+                        (hexCharToInt(source.read()) << 4) +
+                        hexCharToInt(source.read())
         );
     }
 
-    private int hexCharToInt(char ch) throws IOException {
+    private int hexCharToInt(int ch) throws IOException {
         if (ch >= '0' && ch <= '9') return ch - 0x30;
         if (ch >= 'a' && ch <= 'f') return ch - 0x57;
         if (ch >= 'A' && ch <= 'F') return ch - 0x37;
-        throw new IOException("expected a hex digit, got '" + ch + '\'');
+        throw new IOException("expected a hex digit, got '" + (char) ch + '\'');
     }
 
-    private int nextSignificantCodepoint() throws IOException {
-        int value = 0;
-        while ((value = reader.read()) != -1) {
-            if (!Character.isWhitespace(value)) {
-                return value;
-            }
+    static IOException unexpected(int codePoint, String expected) {
+        if (codePoint == -1) {
+            return new IOException("unexpected EOF expected " + expected);
         }
 
-        return -1;
+        return new IOException("unexpected '" + (char) codePoint + "' expected " + expected);
     }
 
+    /**
+     * Create the map that a non-empty object will be decoded into. Returns a {@code LinkedHashMap}, or a compact map
+     * when {@link #setCompactObjects(boolean)} is enabled.
+     */
     protected Map<String, Object> newObjectMap() {
-        return new LinkedHashMap<>();
+        return compactObjects ? new ShapedMap() : new LinkedHashMap<>();
     }
 
     protected Map<String, Object> emptyObjectMap() {
@@ -311,19 +1125,58 @@ public class JsonDecoder {
         return Json.NULL;
     }
 
+    /**
+     * Last stage before returning a parsed number. The {@code CharSequence} passed here must not be cached and may be
+     * reused.
+     * <p>
+     * The default implementation returns an {@code Integer} or {@code Long} for integers, and a correctly rounded
+     * {@code Double} for everything else, without allocating anything else or using exceptions for flow control.
+     * See {@link #setBigNumbers(boolean)} for numbers too large for a {@code long} or {@code double}.
+     * </p>
+     *
+     * @param buffer the number literal
+     * @return the value of the number
+     * @throws NumberFormatException if the literal is malformed
+     */
     protected Number parseNumber(CharSequence buffer) {
-        try {
-            return Integer.valueOf(buffer.toString());
-        } catch (NumberFormatException nfe) {
-            return Double.valueOf(buffer.toString());
-        }
+        numberParser.scan(buffer);
+        return numberParser.toNumber(bigNumbers);
+    }
+
+    /**
+     * When enabled, integers that overflow a {@code long} are decoded as {@code BigInteger}, and decimals with more
+     * significant digits or a larger exponent than a {@code double} can represent are decoded as {@code BigDecimal}
+     * rather than losing precision. Disabled by default.
+     */
+    public void setBigNumbers(boolean bigNumbers) {
+        this.bigNumbers = bigNumbers;
+    }
+
+    /**
+     * When enabled, objects are decoded into compact insertion-ordered maps made of a shared, interned array of keys
+     * and a per-map array of values, without an entry object per key. Objects with the same keys in the same order
+     * share their keys, so a large number of similar records retain far less heap than as {@code LinkedHashMap}.
+     * Disabled by default.
+     */
+    public void setCompactObjects(boolean compactObjects) {
+        this.compactObjects = compactObjects;
+    }
+
+    /**
+     * When enabled, arrays of numbers are decoded as a {@link JsonNumberArray} backed by an {@code int[]},
+     * {@code long[]} or {@code double[]} rather than a list of boxed numbers. Arrays that contain anything other than
+     * numbers are decoded as usual. {@link #parseNumber(CharSequence)} is not called for the elements of numeric arrays.
+     * Disabled by default.
+     */
+    public void setNumericArrays(boolean numericArrays) {
+        this.numericArrays = numericArrays;
     }
 
     /**
      * <p>
-     * Last stage before returning a parsed {@code String}, whether a literal value or property key. The
-     * {@code CharSequence} passed here must not be cached and may be reused. If you want to introduce any
-     * String caching or additional processing, overload this method.
+     * Last stage before returning a parsed {@code String} value. Property names are not passed here, they go through
+     * {@link #parseKey(CharSequence)}. The {@code CharSequence} passed here must not be cached and may be reused. If
+     * you want to introduce any String caching or additional processing, overload this method.
      * </p><p>
      * Strings are often used in JSON to store non-string values (such as Dates, Binary Strings in Base64 encoding, etc.).
      * As such, this method does not assume a {@code String} return-type and allows for other types to be returned.
@@ -336,7 +1189,58 @@ public class JsonDecoder {
         return buffer.length() != 0 ? buffer.toString() : "";
     }
 
+    /**
+     * <p>
+     * Last stage before returning a parsed object property name, kept separate from {@link #parseString(CharSequence)}
+     * so that keys and values can be treated differently. The {@code CharSequence} passed here must not be cached and
+     * may be reused.
+     * </p><p>
+     * The default implementation looks the key up in the decoder's {@link JsonKeyCache}, so repeated keys share a
+     * single {@code String} instance.
+     * </p>
+     *
+     * @param buffer the content of the property name
+     * @return the property name
+     */
+    protected String parseKey(CharSequence buffer) {
+        JsonKeyCache cache = keyCache;
+        return cache != null ? cache.intern(buffer, stats) : buffer.toString();
+    }
+
+    /**
+     * Set the cache used by {@link #parseKey(CharSequence)}, or {@code null} to allocate a new {@code String} for
+     * every key. Defaults to a small cache belonging to this decoder; {@link JsonKeyCache#SHARED} may be set to share
+     * keys between decoders.
+     */
+    public void setKeyCache(JsonKeyCache keyCache) {
+        this.keyCache = keyCache;
+        this.keyCacheConfigured = true;
+    }
+
+    /**
+     * Report the {@link JsonStats} of each {@link #nextJsonValue()} to {@code metrics}, or {@code null} for none.
+     * Defaults to {@link Json#setMetrics(JsonMetrics)}. Decoding is only measured while {@code metrics} is set or a
+     * flight recording has the {@code com.lemnik.minijson.Decode} event enabled, otherwise it costs one check per
+     * value.
+     */
+    public void setMetrics(JsonMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Decode the escape sequence starting with {@code codePoint}, which is not one defined by JSON. The rest of the
+     * sequence may be read with {@link #readChar()}. By default this rejects the input.
+     */
     protected char unexpectedEscapeCharacter(int codePoint) throws IOException {
         throw new IOException("unexpected escape character: " + (char) codePoint);
     }
+
+    /**
+     * Read the next character of the input, or {@code -1} at the end of the input, for subclasses that decode their
+     * own syntax such as in {@link #unexpectedEscapeCharacter(int)}. UTF-8 input is read a byte at a time, so only
+     * ASCII characters are returned whole.
+     */
+    protected final int readChar() throws IOException {
+        return source.read();
+    }
 }
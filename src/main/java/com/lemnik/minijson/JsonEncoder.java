@@ -1,25 +1,185 @@
 package com.lemnik.minijson;
 
+import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
-public class JsonEncoder {
-    protected final Writer writer;
+/**
+ * Encodes {@code Map}, {@code Collection} and standard Java wrapper objects as JSON. Output is buffered internally and
+ * only written through in large blocks, so {@link #flush()} or {@link #close()} must be called once the encoded
+ * values are complete.
+ */
+public class JsonEncoder implements Flushable, Closeable {
+    /**
+     * The default for {@link #setParallelThreshold(int)}.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    JsonSink sink;
+
+    private Executor parallelExecutor;
+
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    private JsonMetrics metrics = Json.getMetrics();
+
+    private JsonNameCache nameCache;
+
+    /**
+     * The stats being collected by the current top-level write, or {@code null} when nothing is being measured.
+     */
+    private JsonStats stats;
+
+    /**
+     * Reused for every measured top-level write.
+     */
+    private JsonStats reusableStats;
+
+    /**
+     * Whether this encoder writes a slice of a parallel write, which is measured by the encoder that started it
+     * rather than here.
+     */
+    private boolean worker;
+
+    /**
+     * Whether NaN and the infinities are rejected rather than written, set by {@link JsonWriter} while it writes a
+     * tree of values.
+     */
+    boolean finiteOnly;
 
     public JsonEncoder(Writer writer) {
-        this.writer = writer;
+        this.sink = new CharSink(Objects.requireNonNull(writer, "writer"));
+    }
+
+    /**
+     * Encode directly to UTF-8 bytes written to {@code stream}, without any {@code Writer} or charset encoding
+     * step.
+     */
+    public JsonEncoder(OutputStream stream) {
+        this.sink = new Utf8Sink(Objects.requireNonNull(stream, "stream"));
+    }
+
+    /**
+     * Encode directly to UTF-8 bytes written to {@code channel}. The channel is written to until each block has been
+     * fully written, so it should be in blocking mode.
+     */
+    public JsonEncoder(WritableByteChannel channel) {
+        this.sink = new Utf8Sink(Objects.requireNonNull(channel, "channel"));
+    }
+
+    /**
+     * Encode directly to UTF-8 bytes put into {@code target}, starting at its current position. A
+     * {@code BufferOverflowException} is thrown on flush if {@code target} does not have enough space remaining.
+     */
+    public JsonEncoder(ByteBuffer target) {
+        this.sink = new Utf8Sink(Objects.requireNonNull(target, "target"));
+    }
+
+    JsonEncoder(JsonSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Discard any output that has not been flushed and start encoding to {@code writer}, keeping this encoder's
+     * buffers and settings.
+     */
+    public void reset(Writer writer) {
+        Objects.requireNonNull(writer, "writer");
+        if (sink instanceof CharSink) {
+            ((CharSink) sink).reset(writer);
+        } else {
+            sink = new CharSink(writer);
+        }
     }
 
     public final void writeValue(Map<String, ? extends Object> object) throws IOException {
+        if (stats == null && isMeasured()) {
+            writeMeasured(object);
+        } else {
+            writeObject(object);
+        }
+    }
+
+    public final void writeValue(Collection<? extends Object> array) throws IOException {
+        if (stats == null && isMeasured()) {
+            writeMeasured(array);
+        } else {
+            writeArray(array);
+        }
+    }
+
+    private boolean isMeasured() {
+        return !worker && (metrics != null || JsonFlightRecorder.isEncodeEnabled());
+    }
+
+    /**
+     * Write {@code value}, which is a {@code Map} or {@code Collection}, while collecting {@link JsonStats}.
+     */
+    private void writeMeasured(Object value) throws IOException {
+        final JsonMetrics metrics = this.metrics;
+        JsonStats stats = reusableStats;
+        if (stats == null) {
+            stats = reusableStats = new JsonStats();
+        }
+
+        stats.reset();
+        stats.event = JsonFlightRecorder.beginEncode();
+        final long startOffset = sink.offset();
+        final long start = System.nanoTime();
+        this.stats = stats;
+        try {
+            writeValue(value);
+        } catch (IOException | RuntimeException | Error e) {
+            stats.failed = true;
+            throw e;
+        } finally {
+            this.stats = null;
+            stats.durationNanos = System.nanoTime() - start;
+            stats.length = sink.offset() - startOffset;
+            JsonFlightRecorder.commit(stats);
+            if (metrics != null) {
+                metrics.encoded(stats);
+            }
+        }
+    }
+
+    private void writeObject(Map<String, ? extends Object> object) throws IOException {
         if (object == null) {
             writeNull();
             return;
         }
 
-        writer.write('{');
+        final JsonStats stats = this.stats;
+        if (stats != null) {
+            stats.objects++;
+            stats.enter();
+        }
+
+        if (parallelExecutor != null && object.size() >= parallelThreshold) {
+            writeParallel('{', object.entrySet().toArray(), true, '}');
+        } else {
+            writeMembers(object);
+        }
+
+        if (stats != null) {
+            stats.exit();
+        }
+    }
+
+    private void writeMembers(Map<String, ? extends Object> object) throws IOException {
+        sink.write('{');
 
         // avoid entrySet / Iterator allocation if the object is empty
         if (!object.isEmpty()) {
@@ -28,30 +188,74 @@ public class JsonEncoder {
             Map.Entry<String, ? extends Object> entry = iterator.next(); // we already checked for empty
 
             // write the first entry
-            writeValue(entry.getKey());
-            writer.write(':');
+            writeKey(entry.getKey());
+            sink.write(':');
             writeValue(entry.getValue());
 
             while (iterator.hasNext()) {
                 entry = iterator.next();
 
-                writer.write(',');
-                writeValue(entry.getKey());
-                writer.write(':');
+                sink.write(',');
+                writeKey(entry.getKey());
+                sink.write(':');
                 writeValue(entry.getValue());
             }
         }
 
-        writer.write('}');
+        sink.write('}');
     }
 
-    public final void writeValue(Collection<? extends Object> array) throws IOException {
+    /**
+     * Write an object key, pre-encoded if it is a {@link JsonName} or found in the {@link #setNameCache name cache}.
+     */
+    void writeKey(CharSequence key) throws IOException {
+        if (key instanceof JsonName) {
+            sink.writeName((JsonName) key);
+            return;
+        } else if (key == null) {
+            writeNull();
+            return;
+        }
+
+        final JsonNameCache cache = nameCache;
+        if (cache != null && key instanceof String) {
+            JsonName name = cache.get((String) key);
+            if (name != null) {
+                sink.writeName(name);
+                return;
+            }
+        }
+
+        sink.writeString(key);
+    }
+
+    private void writeArray(Collection<? extends Object> array) throws IOException {
         if (array == null) {
             writeNull();
             return;
         }
 
-        writer.write('[');
+        final JsonStats stats = this.stats;
+        if (stats != null) {
+            stats.arrays++;
+            stats.enter();
+        }
+
+        if (array instanceof JsonNumberArray) {
+            writeNumbers((JsonNumberArray) array);
+        } else if (parallelExecutor != null && array.size() >= parallelThreshold) {
+            writeParallel('[', array.toArray(), false, ']');
+        } else {
+            writeElements(array);
+        }
+
+        if (stats != null) {
+            stats.exit();
+        }
+    }
+
+    private void writeElements(Collection<? extends Object> array) throws IOException {
+        sink.write('[');
 
         // avoid Iterator allocation if the array is empty
         if (!array.isEmpty()) {
@@ -64,60 +268,187 @@ public class JsonEncoder {
             while (iterator.hasNext()) {
                 value = iterator.next();
 
-                writer.write(',');
+                sink.write(',');
                 writeValue(value);
             }
         }
 
-        writer.write(']');
+        sink.write(']');
     }
 
-    public final void writeValue(CharSequence string) throws IOException {
-        if (string == null) {
-            writeNull();
-            return;
+    /**
+     * Write the elements straight from the primitive array backing {@code numbers}, without boxing them.
+     */
+    private void writeNumbers(JsonNumberArray numbers) throws IOException {
+        sink.write('[');
+
+        final int size = numbers.size;
+        if (stats != null) {
+            stats.numbers += size;
         }
 
-        int length = string.length();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sink.write(',');
+            }
 
-        writer.write('"');
-        for (int i = 0; i < length; i++) {
-            char ch = string.charAt(i);
-            switch (ch) {
-                case '\"':
-                    writer.write('\\');
-                    writer.write('"');
-                    break;
-                case '\\':
-                    writer.write('\\');
-                    writer.write('\\');
-                    break;
-                case '\b':
-                    writer.write('\\');
-                    writer.write('b');
-                    break;
-                case '\f':
-                    writer.write('\\');
-                    writer.write('f');
+            switch (numbers.kind) {
+                case JsonNumberArray.INT:
+                    writeValue(numbers.ints[i]);
                     break;
-                case '\n':
-                    writer.write('\\');
-                    writer.write('n');
-                    break;
-                case '\r':
-                    writer.write('\\');
-                    writer.write('r');
-                    break;
-                case '\t':
-                    writer.write('\\');
-                    writer.write('t');
+                case JsonNumberArray.LONG:
+                    writeValue(numbers.longs[i]);
                     break;
                 default:
-                    writer.write(ch);
+                    writeValue(numbers.doubles[i]);
                     break;
             }
         }
-        writer.write('"');
+
+        sink.write(']');
+    }
+
+    /**
+     * Encode contiguous slices of {@code elements} concurrently, each into its own in-memory segment, and write the
+     * segments in order so that the output is identical to encoding them sequentially.
+     *
+     * @param members whether the elements are the entries of an object rather than the values of an array
+     */
+    private void writeParallel(char open, Object[] elements, boolean members, char close) throws IOException {
+        final int tasks = ParallelTasks.taskCount(elements.length);
+        if (tasks == 1) {
+            sink.write(open);
+            writeElements(elements, 0, elements.length, members);
+            sink.write(close);
+            return;
+        }
+
+        final JsonSink sink = this.sink;
+        final JsonStats stats = this.stats;
+        final JsonStats[] taskStats = stats != null ? new JsonStats[tasks] : null;
+        List<FutureTask<JsonSink>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            final int index = i;
+            final int from = ParallelTasks.taskStart(elements.length, i, tasks);
+            final int to = ParallelTasks.taskStart(elements.length, i + 1, tasks);
+            FutureTask<JsonSink> task = new FutureTask<>(() -> {
+                JsonEncoder worker = newWorkerEncoder();
+                worker.sink = sink.newSegment();
+                worker.nameCache = nameCache;
+                worker.metrics = null;
+                worker.worker = true;
+                worker.finiteOnly = finiteOnly;
+                if (taskStats != null) {
+                    worker.stats = taskStats[index] = new JsonStats();
+                    worker.stats.depth = worker.stats.maxDepth = stats.depth;
+                }
+
+                worker.writeElements(elements, from, to, members);
+                return worker.sink;
+            });
+
+            futures.add(task);
+            parallelExecutor.execute(task);
+        }
+
+        sink.write(open);
+        for (FutureTask<JsonSink> task : futures) {
+            sink.writeSegment(ParallelTasks.join(task, futures));
+        }
+        sink.write(close);
+
+        if (taskStats != null) {
+            // every task has completed, so its stats are visible here
+            for (JsonStats worker : taskStats) {
+                stats.merge(worker);
+            }
+        }
+    }
+
+    private void writeElements(Object[] elements, int from, int to, boolean members) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (i > 0) {
+                sink.write(',');
+            }
+
+            if (members) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) elements[i];
+                writeKey((CharSequence) entry.getKey());
+                sink.write(':');
+                writeValue(entry.getValue());
+            } else {
+                writeValue(elements[i]);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Create an encoder to encode slices of large collections and maps on other threads, see
+     * {@link #setParallelExecutor(Executor)}. This is called from the worker threads, so must be thread-safe, and
+     * the destination of the returned encoder is replaced with an in-memory buffer.
+     * </p><p>
+     * The default implementation returns a plain {@code JsonEncoder}, which encodes nested collections sequentially.
+     * Subclasses that override {@link #writeValue(Object)} should return a new instance of themselves, constructed
+     * with any destination.
+     * </p>
+     */
+    protected JsonEncoder newWorkerEncoder() {
+        return new JsonEncoder((JsonSink) null);
+    }
+
+    /**
+     * Encode collections and maps with at least {@linkplain #setParallelThreshold(int) threshold} elements by splitting
+     * them into slices encoded concurrently as tasks on {@code executor}, or {@code null} to always encode sequentially
+     * (the default). The output is identical either way.
+     */
+    public void setParallelExecutor(Executor executor) {
+        this.parallelExecutor = executor;
+    }
+
+    /**
+     * Set the number of elements at which collections and maps are encoded in parallel, when a
+     * {@linkplain #setParallelExecutor(Executor) parallel executor} has been set. Defaults to
+     * {@link #DEFAULT_PARALLEL_THRESHOLD}.
+     */
+    public void setParallelThreshold(int threshold) {
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Copy the keys of encoded maps from {@code cache} already escaped rather than escaping every key each time it is
+     * written, or {@code null} to escape them every time (the default). Worthwhile when the same keys are written
+     * many times, such as from a list of records. Also used for names written through a {@link JsonWriter}.
+     */
+    public void setNameCache(JsonNameCache cache) {
+        this.nameCache = cache;
+    }
+
+    /**
+     * Report the {@link JsonStats} of each top-level {@code writeValue} of a {@code Map} or {@code Collection} to
+     * {@code metrics}, or {@code null} for none. Defaults to {@link Json#setMetrics(JsonMetrics)}. Encoding is only
+     * measured while {@code metrics} is set or a flight recording has the {@code com.lemnik.minijson.Encode} event
+     * enabled, otherwise it costs one check per {@code Map} or {@code Collection}.
+     */
+    public void setMetrics(JsonMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public final void writeValue(CharSequence string) throws IOException {
+        if (string == null) {
+            writeNull();
+            return;
+        }
+
+        if (stats != null) {
+            stats.strings++;
+        }
+
+        if (string instanceof JsonName) {
+            sink.writeName((JsonName) string);
+        } else {
+            sink.writeString(string);
+        }
     }
 
     public final void writeValue(Number value) throws IOException {
@@ -126,15 +457,49 @@ public class JsonEncoder {
             return;
         }
 
-        writer.write(value.toString());
+        if (stats != null) {
+            stats.numbers++;
+        }
+
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            sink.writeLong(value.longValue());
+        } else if (value instanceof Double) {
+            writeValue(value.doubleValue());
+        } else {
+            if (finiteOnly && value instanceof Float) {
+                checkFinite(value.doubleValue());
+            }
+
+
+            // Float keeps its own shortest digits, and the big types may not fit a primitive
+            sink.write(value.toString());
+        }
     }
 
     public final void writeValue(int value) throws IOException {
-        writer.write(Integer.toString(value));
+        sink.writeLong(value);
+    }
+
+    public final void writeValue(long value) throws IOException {
+        sink.writeLong(value);
     }
 
+    /**
+     * Write the shortest decimal that reads back as exactly {@code value}. {@code NaN} and the infinities are written
+     * as {@code Double.toString} writes them, which is not valid JSON.
+     */
     public final void writeValue(double value) throws IOException {
-        writer.write(Double.toString(value));
+        if (finiteOnly) {
+            checkFinite(value);
+        }
+
+        sink.writeDouble(value);
+    }
+
+    static void checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("not a finite number: " + value);
+        }
     }
 
     public final void writeValue(Boolean value) throws IOException {
@@ -143,15 +508,60 @@ public class JsonEncoder {
             return;
         }
 
-        writer.write(value.toString());
+        writeValue(value.booleanValue());
     }
 
     public final void writeValue(boolean value) throws IOException {
-        writeValue(Boolean.toString(value));
+        sink.write(value ? "true" : "false");
     }
 
     public final void writeNull() throws IOException {
-        writer.write("null");
+        sink.write("null");
+    }
+
+    /**
+     * Write all buffered output through to the destination, and flush the destination.
+     */
+    @Override
+    public void flush() throws IOException {
+        sink.flush();
+    }
+
+    /**
+     * Write all buffered output through to the destination, and close the destination.
+     */
+    @Override
+    public void close() throws IOException {
+        sink.close();
+    }
+
+    /**
+     * Write {@code json} to the output exactly as given, without quoting or escaping, for subclasses that encode
+     * their own types from {@link #writeValue(Object)}. Only ASCII is supported, any other character must already be
+     * written as a unicode escape.
+     *
+     * @throws IllegalArgumentException if {@code json} contains a non-ASCII character
+     */
+    protected final void writeRaw(CharSequence json) throws IOException {
+        final String token = json.toString();
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) >= 0x80) {
+                throw new IllegalArgumentException("not ASCII at index " + i + ": " + token);
+            }
+        }
+
+        sink.write(token);
+    }
+
+    /**
+     * Write the single ASCII character {@code ch} to the output, see {@link #writeRaw(CharSequence)}.
+     */
+    protected final void writeRaw(char ch) throws IOException {
+        if (ch >= 0x80) {
+            throw new IllegalArgumentException("not ASCII: " + ch);
+        }
+
+        sink.write(ch);
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,282 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a set of JSON Pointers (RFC 6901) against a single value in one pass. The pointers are merged into a tree
+ * of reference tokens, and every member that is not on one of their paths is skipped without being decoded. Reading
+ * stops as soon as every pointer has been found, so the rest of the input is neither read nor validated. That is also
+ * why the first occurrence of a duplicate property name wins here, rather than the last as in a decoded {@code Map}.
+ */
+final class JsonExtractor {
+    private final JsonDecoder decoder;
+    private final JsonSource source;
+
+    private final Object[] results;
+    private final boolean[] found;
+    private int remaining;
+
+    private JsonExtractor(JsonDecoder decoder, int count) {
+        this.decoder = decoder;
+        this.source = decoder.source;
+        this.results = new Object[count];
+        this.found = new boolean[count];
+        this.remaining = count;
+    }
+
+    /**
+     * Returns the value referenced by each of {@code pointers}, in the same order, or {@code null} where there is no
+     * such value.
+     *
+     * @throws IllegalArgumentException if any of the pointers is malformed
+     */
+    static Object[] extract(JsonDecoder decoder, String... pointers) throws IOException {
+        Node root = new Node(null);
+        for (int i = 0; i < pointers.length; i++) {
+            root.add(pointers[i], i);
+        }
+
+        JsonExtractor extractor = new JsonExtractor(decoder, pointers.length);
+        if (pointers.length > 0) {
+            extractor.extractValue(decoder.source.nextSignificant(), root);
+        }
+
+        return extractor.results;
+    }
+
+    private void extractValue(int codePoint, Node node) throws IOException {
+        if (node.targets.length > 0) {
+            Object value = decoder.readJsonValue(codePoint);
+            if (value == null) {
+                throw JsonDecoder.unexpected(codePoint, "a value");
+            }
+
+            resolve(value, node);
+        } else if (codePoint == '{') {
+            extractObject(node);
+        } else if (codePoint == '[') {
+            extractArray(node);
+        } else {
+            decoder.skipValue(codePoint);
+        }
+    }
+
+    private void extractObject(Node node) throws IOException {
+        int codePoint = source.nextSignificant();
+        if (codePoint == '}') {
+            return;
+        }
+
+        while (true) {
+            if (codePoint != '"') {
+                throw JsonDecoder.unexpected(codePoint, "\"");
+            }
+
+            Node child = node.child(decoder.readStringContent());
+            codePoint = source.nextSignificant();
+            if (codePoint != ':') {
+                throw JsonDecoder.unexpected(codePoint, ":");
+            }
+
+            if (child != null) {
+                extractValue(source.nextSignificant(), child);
+                if (remaining == 0) {
+                    return;
+                }
+            } else {
+                decoder.skipValue(source.nextSignificant());
+            }
+
+            codePoint = source.nextSignificant();
+            if (codePoint == '}') {
+                return;
+            } else if (codePoint != ',') {
+                throw JsonDecoder.unexpected(codePoint, ", or }");
+            }
+
+            codePoint = source.nextSignificant();
+        }
+    }
+
+    private void extractArray(Node node) throws IOException {
+        int codePoint = source.nextSignificant();
+        if (codePoint == ']') {
+            return;
+        }
+
+        for (int index = 0; ; index++) {
+            Node child = node.child(index);
+            if (child != null) {
+                extractValue(codePoint, child);
+                if (remaining == 0) {
+                    return;
+                }
+            } else {
+                decoder.skipValue(codePoint);
+            }
+
+            codePoint = source.nextSignificant();
+            if (codePoint == ']') {
+                return;
+            } else if (codePoint != ',') {
+                throw JsonDecoder.unexpected(codePoint, ", or ]");
+            }
+
+            codePoint = source.nextSignificant();
+        }
+    }
+
+    /**
+     * Record {@code value} for the pointers ending at {@code node}, and resolve any longer pointers within it.
+     */
+    private void resolve(Object value, Node node) {
+        for (int target : node.targets) {
+            if (!found[target]) {
+                found[target] = true;
+                results[target] = value;
+                remaining--;
+            }
+        }
+
+        for (Node child : node.children) {
+            Object childValue = null;
+            if (value instanceof Map) {
+                childValue = ((Map<?, ?>) value).get(child.token);
+            } else if (value instanceof List && child.index >= 0 && child.index < ((List<?>) value).size()) {
+                childValue = ((List<?>) value).get(child.index);
+            }
+
+            if (childValue != null) {
+                resolve(childValue, child);
+            }
+        }
+    }
+
+    /**
+     * A reference token shared by one or more pointers.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_TARGETS = new int[0];
+
+        final String token;
+
+        /**
+         * The token as an array index, or {@code -1} if it can only match an object property.
+         */
+        final int index;
+
+        Node[] children = NO_CHILDREN;
+
+        /**
+         * The indexes of the pointers that end at this token.
+         */
+        int[] targets = NO_TARGETS;
+
+        Node(String token) {
+            this.token = token;
+            this.index = token != null ? arrayIndex(token) : -1;
+        }
+
+        void add(String pointer, int target) {
+            if (!pointer.isEmpty() && pointer.charAt(0) != '/') {
+                throw new IllegalArgumentException("JSON pointer must be empty or start with '/': " + pointer);
+            }
+
+            Node node = this;
+            int start = 1;
+            while (start <= pointer.length()) {
+                int end = pointer.indexOf('/', start);
+                if (end == -1) {
+                    end = pointer.length();
+                }
+
+                String token = unescape(pointer, start, end);
+                Node child = node.child(token);
+                if (child == null) {
+                    child = new Node(token);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.children[node.children.length - 1] = child;
+                }
+
+                node = child;
+                start = end + 1;
+            }
+
+            node.targets = Arrays.copyOf(node.targets, node.targets.length + 1);
+            node.targets[node.targets.length - 1] = target;
+        }
+
+        Node child(CharSequence token) {
+            for (Node child : children) {
+                if (child.token.contentEquals(token)) {
+                    return child;
+                }
+            }
+
+            return null;
+        }
+
+        Node child(int index) {
+            for (Node child : children) {
+                if (child.index == index) {
+                    return child;
+                }
+            }
+
+            return null;
+        }
+
+        private static String unescape(String pointer, int start, int end) {
+            String token = pointer.substring(start, end);
+            if (token.indexOf('~') == -1) {
+                return token;
+            }
+
+            StringBuilder unescaped = new StringBuilder(token.length());
+            for (int i = 0; i < token.length(); i++) {
+                char ch = token.charAt(i);
+                if (ch == '~') {
+                    char next = i + 1 < token.length() ? token.charAt(++i) : 0;
+                    if (next == '0') {
+                        ch = '~';
+                    } else if (next == '1') {
+                        ch = '/';
+                    } else {
+                        throw new IllegalArgumentException("invalid escape in JSON pointer: " + pointer);
+                    }
+                }
+
+                unescaped.append(ch);
+            }
+
+            return unescaped.toString();
+        }
+
+        /**
+         * Array indexes are decimal without leading zeros, anything else (including {@code "-"}) can never match an
+         * array element.
+         */
+        private static int arrayIndex(String token) {
+            int length = token.length();
+            if (length == 0 || length > 9 || (length > 1 && token.charAt(0) == '0')) {
+                return -1;
+            }
+
+            int index = 0;
+            for (int i = 0; i < length; i++) {
+                char ch = token.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return -1;
+                }
+
+                index = index * 10 + (ch - '0');
+            }
+
+            return index;
+        }
+    }
+}
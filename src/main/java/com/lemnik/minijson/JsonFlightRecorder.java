@@ -0,0 +1,82 @@
+package com.lemnik.minijson;
+
+/**
+ * <p>
+ * Emits {@code com.lemnik.minijson.Decode} and {@code com.lemnik.minijson.Encode} JDK Flight Recorder events, with the
+ * same content as {@link JsonStats}, whenever a recording has them enabled. Both are disabled by default, and have no
+ * stack trace unless a recording asks for one, so that only recordings that name them pay for them.
+ * </p><p>
+ * Everything touching {@code jdk.jfr} is in {@code JsonFlightEvents}, which lives in the separate {@code src/main/jfr}
+ * source set so that this library still compiles with {@code --release 8}. It is compiled for Java 11, and only loaded
+ * once {@code jdk.jfr} is known to be present, so on Java 8 there are simply no events.
+ * </p>
+ */
+abstract class JsonFlightRecorder {
+    private static final JsonFlightRecorder EVENTS = load();
+
+    JsonFlightRecorder() {
+    }
+
+    private static JsonFlightRecorder load() {
+        try {
+            ClassLoader loader = JsonFlightRecorder.class.getClassLoader();
+            Class.forName("jdk.jfr.Event", false, loader);
+            return Class.forName("com.lemnik.minijson.JsonFlightEvents", true, loader)
+                    .asSubclass(JsonFlightRecorder.class)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static boolean isDecodeEnabled() {
+        return EVENTS != null && EVENTS.decodeEnabled();
+    }
+
+    static boolean isEncodeEnabled() {
+        return EVENTS != null && EVENTS.encodeEnabled();
+    }
+
+    /**
+     * Start timing a decode event if one is enabled, returning the event to pass to {@link #commit(JsonStats)}.
+     */
+    static Object beginDecode() {
+        return isDecodeEnabled() ? EVENTS.newDecodeEvent() : null;
+    }
+
+    /**
+     * Start timing an encode event if one is enabled, returning the event to pass to {@link #commit(JsonStats)}.
+     */
+    static Object beginEncode() {
+        return isEncodeEnabled() ? EVENTS.newEncodeEvent() : null;
+    }
+
+    /**
+     * Commit the event started for {@code stats}, if there is one.
+     */
+    static void commit(JsonStats stats) {
+        if (stats.event != null) {
+            EVENTS.commitEvent(stats);
+        }
+    }
+
+    abstract boolean decodeEnabled();
+
+    abstract boolean encodeEnabled();
+
+    /**
+     * A new decode event, already begun.
+     */
+    abstract Object newDecodeEvent();
+
+    /**
+     * A new encode event, already begun.
+     */
+    abstract Object newEncodeEvent();
+
+    /**
+     * End the event in {@code stats}, and commit it with the content of {@code stats} if the recording wants it.
+     */
+    abstract void commitEvent(JsonStats stats);
+}
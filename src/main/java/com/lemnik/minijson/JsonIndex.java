@@ -0,0 +1,557 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A structural index over a complete JSON document, for repeated random access into large documents without
+ * re-parsing them into {@code Map} and {@code List} trees. The index is built in two passes: the first records the
+ * offset of every bracket, colon, comma, string and scalar in a single {@code int[]}, and the second validates the
+ * structure and links every value to its next sibling. Navigating between values is then a matter of array lookups,
+ * the input is only read again when a name or value is actually requested.
+ * </p><p>
+ * Values are identified by {@code int} nodes: {@link #root()} returns the document itself, and
+ * {@link #firstChild(int)} and {@link #nextSibling(int)} walk the tree in constant time, returning {@code -1} when
+ * there are no more values. The children of an object are its property values, {@link #name(int)} returns the name
+ * each was stored under.
+ * </p><p>
+ * Navigation is thread-safe. Reading names and values decodes through a single decoder, so a thread reading from a
+ * shared index should use its own {@link #duplicate()}. Scalar values are only validated when they are read, at which
+ * point malformed content is reported as an {@code IllegalArgumentException}. Reading a value as the wrong type throws
+ * an {@code IllegalStateException}.
+ * </p>
+ */
+public final class JsonIndex {
+    private static final JsonToken[] TOKENS = JsonToken.values();
+
+    private final char[] chars;
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    /**
+     * The offset of the first character of each value.
+     */
+    private final int[] offsets;
+
+    /**
+     * The offset of the opening quote of the name of each object property, or {@code -1}.
+     */
+    private final int[] names;
+
+    /**
+     * The node of the next value in the same object or array, or {@code -1}.
+     */
+    private final int[] siblings;
+
+    /**
+     * The number of children of each object or array.
+     */
+    private final int[] sizes;
+
+    /**
+     * The {@link JsonToken} ordinal of each value.
+     */
+    private final byte[] kinds;
+
+    private final JsonDecoder decoder;
+
+    private JsonIndex(char[] chars, byte[] bytes, int offset, int length,
+                      int[] offsets, int[] names, int[] siblings, int[] sizes, byte[] kinds) {
+        this.chars = chars;
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.offsets = offsets;
+        this.names = names;
+        this.siblings = siblings;
+        this.sizes = sizes;
+        this.kinds = kinds;
+        this.decoder = new JsonDecoder(chars != null
+                ? new CharSource(chars, offset, length)
+                : new Utf8Source(bytes, offset, length));
+    }
+
+    public static JsonIndex build(String json) throws IOException {
+        char[] chars = Objects.requireNonNull(json, "json").toCharArray();
+        return build(chars, 0, chars.length);
+    }
+
+    /**
+     * Index {@code length} characters of {@code json} starting at {@code offset}. The array is not copied, and must
+     * not be modified while the index is in use.
+     */
+    public static JsonIndex build(char[] json, int offset, int length) throws IOException {
+        checkBounds(Objects.requireNonNull(json, "json").length, offset, length);
+        return new Builder(json, null, offset, length).build();
+    }
+
+    public static JsonIndex build(byte[] json) throws IOException {
+        return build(json, 0, Objects.requireNonNull(json, "json").length);
+    }
+
+    /**
+     * Index {@code length} UTF-8 encoded bytes of {@code json} starting at {@code offset}. The array is not copied,
+     * and must not be modified while the index is in use.
+     */
+    public static JsonIndex build(byte[] json, int offset, int length) throws IOException {
+        checkBounds(Objects.requireNonNull(json, "json").length, offset, length);
+        return new Builder(null, json, offset, length).build();
+    }
+
+    private static void checkBounds(int size, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + size);
+        }
+    }
+
+    /**
+     * Returns an index sharing the same structure and input, with its own decoder for reading names and values.
+     */
+    public JsonIndex duplicate() {
+        return new JsonIndex(chars, bytes, offset, length, offsets, names, siblings, sizes, kinds);
+    }
+
+    /**
+     * The node of the document itself.
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * The kind of value at {@code node}: {@link JsonToken#BEGIN_OBJECT} for objects, {@link JsonToken#BEGIN_ARRAY}
+     * for arrays, or the token of a scalar value.
+     */
+    public JsonToken type(int node) {
+        return TOKENS[kinds[node]];
+    }
+
+    /**
+     * The number of children of the object or array at {@code node}, or {@code 0} for any other value.
+     */
+    public int size(int node) {
+        return sizes[node];
+    }
+
+    /**
+     * The first child of the object or array at {@code node}, or {@code -1} if it is empty or not a container.
+     */
+    public int firstChild(int node) {
+        return sizes[node] != 0 ? node + 1 : -1;
+    }
+
+    /**
+     * The value after {@code node} within the same object or array, or {@code -1} if it is the last.
+     */
+    public int nextSibling(int node) {
+        return siblings[node];
+    }
+
+    /**
+     * The element at {@code index} of the array at {@code node}, or {@code -1} if there is no such element.
+     */
+    public int get(int node, int index) {
+        expect(node, JsonToken.BEGIN_ARRAY);
+        if (index < 0 || index >= sizes[node]) {
+            return -1;
+        }
+
+        int child = node + 1;
+        for (int i = 0; i < index; i++) {
+            child = siblings[child];
+        }
+
+        return child;
+    }
+
+    /**
+     * The value of property {@code name} of the object at {@code node}, or {@code -1} if there is no such property.
+     * Names are compared as they are decoded, without allocating.
+     */
+    public int get(int node, String name) {
+        expect(node, JsonToken.BEGIN_OBJECT);
+        for (int child = firstChild(node); child != -1; child = siblings[child]) {
+            if (name.contentEquals(readString(names[child]))) {
+                return child;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * The name of the object property at {@code node}.
+     *
+     * @throws IllegalStateException if {@code node} is not the value of an object property
+     */
+    public String name(int node) {
+        if (names[node] == -1) {
+            throw new IllegalStateException("not an object property");
+        }
+
+        return decoder.parseKey(readString(names[node]));
+    }
+
+    public String getString(int node) {
+        expect(node, JsonToken.STRING);
+        return readString(offsets[node]).toString();
+    }
+
+    public boolean getBoolean(int node) {
+        expect(node, JsonToken.BOOLEAN);
+        return Boolean.TRUE.equals(getValue(node));
+    }
+
+    public boolean isNull(int node) {
+        return kinds[node] == JsonToken.NULL.ordinal();
+    }
+
+    /**
+     * The number at {@code node}, which must be an integer within the range of {@code long}.
+     */
+    public long getLong(int node) {
+        try {
+            return readNumber(node).toLong();
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException(nfe.getMessage(), nfe);
+        }
+    }
+
+    public double getDouble(int node) {
+        return readNumber(node).toDouble();
+    }
+
+    /**
+     * Decode the value at {@code node} as it would be returned by {@link JsonDecoder#nextJsonValue()}, including any
+     * nested objects and arrays. Reading from an index is not reported as a decode to {@link JsonMetrics}.
+     */
+    public Object getValue(int node) {
+        try {
+            decoder.source.seek(offsets[node]);
+            return decoder.readNextValue();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+    }
+
+    private CharSequence readString(int quote) {
+        try {
+            decoder.source.seek(quote + 1);
+            return decoder.readStringContent();
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+    }
+
+    private NumberParser readNumber(int node) {
+        expect(node, JsonToken.NUMBER);
+        NumberParser parser = decoder.numberParser;
+        try {
+            JsonSource source = decoder.source;
+            source.seek(offsets[node]);
+            parser.scan(decoder.readNumberContent(source.read()));
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        return parser;
+    }
+
+    private void expect(int node, JsonToken expected) {
+        if (kinds[node] != expected.ordinal()) {
+            throw new IllegalStateException("expected " + expected + " but was " + type(node));
+        }
+    }
+
+    /**
+     * Builds the index in two passes over the input, first recording the offset of every structural character and the
+     * start of every string and scalar, then walking those offsets to validate the structure and link the values.
+     */
+    private static final class Builder {
+        private final char[] chars;
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private int[] structurals;
+        private int structuralCount;
+        private int next;
+
+        private int[] offsets;
+        private int[] names;
+        private int[] siblings;
+        private int[] sizes;
+        private byte[] kinds;
+        private int nodeCount;
+
+        Builder(char[] chars, byte[] bytes, int offset, int length) {
+            this.chars = chars;
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        JsonIndex build() throws IOException {
+            if (chars != null) {
+                scan(chars);
+            } else {
+                scan(bytes);
+            }
+
+            // every value and name has its own entry in structurals, so this is always enough nodes
+            offsets = new int[structuralCount];
+            names = new int[structuralCount];
+            siblings = new int[structuralCount];
+            sizes = new int[structuralCount];
+            kinds = new byte[structuralCount];
+
+            if (structuralCount == 0) {
+                throw new IOException("unexpected EOF");
+            }
+
+            readValue(-1);
+            if (next != structuralCount) {
+                throw JsonDecoder.unexpected(charAt(structurals[next]), "end of document");
+            }
+
+            return new JsonIndex(chars, bytes, offset, length,
+                    Arrays.copyOf(offsets, nodeCount),
+                    Arrays.copyOf(names, nodeCount),
+                    Arrays.copyOf(siblings, nodeCount),
+                    Arrays.copyOf(sizes, nodeCount),
+                    Arrays.copyOf(kinds, nodeCount));
+        }
+
+        private void scan(char[] json) throws IOException {
+            final int limit = offset + length;
+            int[] structurals = new int[Math.max(16, length >> 3)];
+            int count = 0;
+
+            int i = offset;
+            while (i < limit) {
+                char ch = json[i];
+                if (ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t') {
+                    i++;
+                    continue;
+                }
+
+                if (count == structurals.length) {
+                    structurals = Arrays.copyOf(structurals, count * 2);
+                }
+
+                structurals[count++] = i++;
+                if (ch == '"') {
+                    while (true) {
+                        if (i >= limit) {
+                            throw new IOException("unexpected EOF while reading string");
+                        }
+
+                        ch = json[i++];
+                        if (ch == '"') {
+                            break;
+                        } else if (ch == '\\') {
+                            i++;
+                        }
+                    }
+                } else if (!isStructural(ch)) {
+                    while (i < limit && isScalarChar(json[i])) {
+                        i++;
+                    }
+                }
+            }
+
+            this.structurals = structurals;
+            this.structuralCount = count;
+        }
+
+        private void scan(byte[] json) throws IOException {
+            final int limit = offset + length;
+            int[] structurals = new int[Math.max(16, length >> 3)];
+            int count = 0;
+
+            int i = offset;
+            while (i < limit) {
+                byte ch = json[i];
+                if (ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t') {
+                    i++;
+                    continue;
+                }
+
+                if (count == structurals.length) {
+                    structurals = Arrays.copyOf(structurals, count * 2);
+                }
+
+                structurals[count++] = i++;
+                if (ch == '"') {
+                    // bytes of multi-byte sequences are never ASCII, so cannot be mistaken for a quote or backslash
+                    while (true) {
+                        if (i >= limit) {
+                            throw new IOException("unexpected EOF while reading string");
+                        }
+
+                        ch = json[i++];
+                        if (ch == '"') {
+                            break;
+                        } else if (ch == '\\') {
+                            i++;
+                        }
+                    }
+                } else if (!isStructural(ch)) {
+                    while (i < limit && isScalarChar(json[i])) {
+                        i++;
+                    }
+                }
+            }
+
+            this.structurals = structurals;
+            this.structuralCount = count;
+        }
+
+        private static boolean isStructural(int ch) {
+            return ch == '{' || ch == '}' || ch == '[' || ch == ']' || ch == ':' || ch == ',';
+        }
+
+        private static boolean isScalarChar(int ch) {
+            return !isStructural(ch) && ch != '"' && ch != ' ' && ch != '\n' && ch != '\r' && ch != '\t';
+        }
+
+        private int charAt(int position) {
+            return chars != null ? chars[position] : bytes[position] & 0xff;
+        }
+
+        private int nextChar() {
+            return next < structuralCount ? charAt(structurals[next]) : JsonSource.EOF;
+        }
+
+        /**
+         * Read the value at the next structural offset, returning its node.
+         */
+        private int readValue(int name) throws IOException {
+            final int node = nodeCount++;
+            final int position = structurals[next++];
+            final int ch = charAt(position);
+
+            offsets[node] = position;
+            names[node] = name;
+            siblings[node] = -1;
+
+            switch (ch) {
+                case '{':
+                    kinds[node] = (byte) JsonToken.BEGIN_OBJECT.ordinal();
+                    readObject(node);
+                    break;
+                case '[':
+                    kinds[node] = (byte) JsonToken.BEGIN_ARRAY.ordinal();
+                    readArray(node);
+                    break;
+                case '"':
+                    kinds[node] = (byte) JsonToken.STRING.ordinal();
+                    break;
+                case 't':
+                case 'f':
+                    kinds[node] = (byte) JsonToken.BOOLEAN.ordinal();
+                    break;
+                case 'n':
+                    kinds[node] = (byte) JsonToken.NULL.ordinal();
+                    break;
+                case '-':
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                    kinds[node] = (byte) JsonToken.NUMBER.ordinal();
+                    break;
+                default:
+                    throw JsonDecoder.unexpected(ch, "a value");
+            }
+
+            return node;
+        }
+
+        private void readObject(int node) throws IOException {
+            if (nextChar() == '}') {
+                next++;
+                return;
+            }
+
+            int size = 0;
+            int previous = -1;
+            while (true) {
+                int ch = nextChar();
+                if (ch != '"') {
+                    throw JsonDecoder.unexpected(ch, "\"");
+                }
+
+                int name = structurals[next++];
+                if ((ch = nextChar()) != ':') {
+                    throw JsonDecoder.unexpected(ch, ":");
+                }
+
+                next++;
+                if (next == structuralCount) {
+                    throw new IOException("unexpected EOF while reading object");
+                }
+
+                int child = readValue(name);
+                if (previous != -1) {
+                    siblings[previous] = child;
+                }
+
+                previous = child;
+                size++;
+
+                ch = nextChar();
+                next++;
+                if (ch == '}') {
+                    break;
+                } else if (ch != ',') {
+                    throw JsonDecoder.unexpected(ch, ", or }");
+                }
+            }
+
+            sizes[node] = size;
+        }
+
+        private void readArray(int node) throws IOException {
+            if (nextChar() == ']') {
+                next++;
+                return;
+            }
+
+            int size = 0;
+            int previous = -1;
+            while (true) {
+                if (next == structuralCount) {
+                    throw new IOException("unexpected EOF while reading array");
+                }
+
+                int child = readValue(-1);
+                if (previous != -1) {
+                    siblings[previous] = child;
+                }
+
+                previous = child;
+                size++;
+
+                int ch = nextChar();
+                next++;
+                if (ch == ']') {
+                    break;
+                } else if (ch != ',') {
+                    throw JsonDecoder.unexpected(ch, ", or ]");
+                }
+            }
+
+            sizes[node] = size;
+        }
+    }
+}
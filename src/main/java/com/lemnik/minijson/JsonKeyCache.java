@@ -0,0 +1,123 @@
+package com.lemnik.minijson;
+
+/**
+ * <p>
+ * A bounded symbol table for object property names, so that decoding many objects with the same keys shares a single
+ * {@code String} instance per key instead of allocating a new one for every object. A lookup hashes and compares the
+ * characters in-place, and allocates nothing when the key is already cached.
+ * </p><p>
+ * The table is a fixed size, open-addressed array that never grows: when every slot that a key may occupy is taken,
+ * one of them is simply replaced. Instances are safe to share across any number of decoders and threads without
+ * locking; since {@code String}s are immutable a racing thread can at worst miss the cache and allocate its own copy.
+ * </p>
+ */
+public final class JsonKeyCache {
+    /**
+     * A cache that may be shared by every decoder in the application, with
+     * {@link JsonDecoder#setKeyCache(JsonKeyCache)}. By default each decoder has a small cache of its own instead, so
+     * that decoders on different threads do not contend on the same table.
+     */
+    public static final JsonKeyCache SHARED = new JsonKeyCache(4096);
+
+    /**
+     * The capacity of the cache each decoder has of its own by default.
+     */
+    static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * Keys longer than this are very unlikely to repeat, and are never cached.
+     */
+    static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * The number of consecutive slots a key may be placed in.
+     */
+    private static final int PROBES = 4;
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param capacity the maximum number of keys to retain, rounded up to a power of two
+     */
+    public JsonKeyCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1)) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns a {@code String} with the same content as {@code key}, which is the same instance for every call with
+     * the same content while it remains cached.
+     */
+    public String intern(CharSequence key) {
+        return intern(key, null);
+    }
+
+    /**
+     * {@link #intern(CharSequence)}, counting the hit or miss in {@code stats} unless it is {@code null}.
+     */
+    String intern(CharSequence key, JsonStats stats) {
+        int length = key.length();
+        if (length == 0) {
+            return "";
+        } else if (length > MAX_KEY_LENGTH) {
+            if (stats != null) {
+                stats.keyCacheMisses++;
+            }
+            return key.toString();
+        }
+
+        // the same function as String.hashCode(), so that cached entries can be rejected without comparing content
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+
+        final String[] table = this.table;
+        int index = (hash ^ (hash >>> 16)) & mask;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (index + probe) & mask;
+            String entry = table[slot];
+            if (entry == null) {
+                return insert(table, slot, key, stats);
+            } else if (entry.hashCode() == hash && contentEquals(entry, key, length)) {
+                if (stats != null) {
+                    stats.keyCacheHits++;
+                }
+                return entry;
+            }
+        }
+
+        return insert(table, index, key, stats);
+    }
+
+    private static String insert(String[] table, int slot, CharSequence key, JsonStats stats) {
+        if (stats != null) {
+            stats.keyCacheMisses++;
+        }
+
+        String value = key.toString();
+        value.hashCode(); // computed (and cached by String) before the entry is visible to other threads
+        table[slot] = value;
+        return value;
+    }
+
+    private static boolean contentEquals(String entry, CharSequence key, int length) {
+        if (entry.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (entry.charAt(i) != key.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
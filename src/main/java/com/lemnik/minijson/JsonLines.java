@@ -0,0 +1,567 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>
+ * Decodes newline-delimited JSON (NDJSON / JSON Lines) in parallel: UTF-8 input containing one value per line, with
+ * blank lines ignored. The input is split into chunks on line boundaries, and each chunk is decoded independently by
+ * its own decoder, so throughput scales with the number of cores.
+ * </p><p>
+ * {@link #stream()} returns a parallel {@code Stream} over a {@code Spliterator} that splits the input in half on the
+ * nearest line boundary, it runs on the common fork-join pool (or the pool its terminal operation is invoked from)
+ * and may be made {@code unordered()} as usual. {@link #forEach(Executor, boolean, Consumer)} instead decodes fixed
+ * size chunks on any {@code Executor} and delivers the values on the calling thread.
+ * </p><p>
+ * Heap and memory-mapped input is split without copying, an {@code InputStream} is read sequentially in blocks of
+ * complete lines which are then decoded in parallel. Each {@code JsonLines} may only be consumed once. Malformed lines
+ * are reported as an {@code IllegalArgumentException}, and failures reading an {@code InputStream} as an
+ * {@code UncheckedIOException}.
+ * </p>
+ */
+public final class JsonLines {
+    /**
+     * The size of the chunks decoded by each task of {@link #forEach(Executor, boolean, Consumer)}, and of the blocks
+     * read from an {@code InputStream}.
+     */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Below this many bytes a chunk is not worth splitting any further.
+     */
+    static final int MIN_SPLIT_SIZE = 1 << 14;
+
+    private final Spliterator<Object> spliterator;
+    private boolean consumed;
+
+    private JsonLines(Spliterator<Object> spliterator) {
+        this.spliterator = spliterator;
+    }
+
+    /**
+     * Decode the lines of UTF-8 encoded {@code json}. The array is not copied, and must not be modified while it is
+     * being decoded.
+     */
+    public static JsonLines of(byte[] json) {
+        return of(ByteBuffer.wrap(Objects.requireNonNull(json, "json")));
+    }
+
+    /**
+     * Decode the lines in the remaining UTF-8 encoded bytes of {@code json}, without modifying its position.
+     */
+    public static JsonLines of(ByteBuffer json) {
+        return new JsonLines(new LineSpliterator(new ByteBuffer[]{Objects.requireNonNull(json, "json").slice()}));
+    }
+
+    /**
+     * Decode the lines of the UTF-8 encoded file at {@code path} by memory-mapping it. Files larger than 1GB are
+     * mapped as several regions, each ending on a line boundary.
+     */
+    public static JsonLines open(Path path) throws IOException {
+        return new JsonLines(new LineSpliterator(map(Objects.requireNonNull(path, "path"))));
+    }
+
+    /**
+     * Decode the lines read from {@code in}, which is read sequentially in blocks and is not closed.
+     */
+    public static JsonLines of(InputStream in) {
+        return new JsonLines(new InputStreamSpliterator(Objects.requireNonNull(in, "in")));
+    }
+
+    private static ByteBuffer[] map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ByteBuffer> regions = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long length = Math.min(MappedFileSource.CHUNK_SIZE, size - start);
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                if (start + length < size) {
+                    // end the region after its last line, the next region maps the remainder again
+                    int end = lastIndexOfNewline(region, region.limit()) + 1;
+                    if (end == 0) {
+                        throw new IOException("line longer than " + MappedFileSource.CHUNK_SIZE + " bytes");
+                    }
+
+                    region.limit(end);
+                    length = end;
+                }
+
+                regions.add(region);
+                start += length;
+            }
+
+            if (regions.isEmpty()) {
+                regions.add(ByteBuffer.allocate(0));
+            }
+
+            return regions.toArray(new ByteBuffer[0]);
+        }
+    }
+
+    /**
+     * The values of every line as a parallel, ordered {@code Stream}.
+     *
+     * @throws IllegalStateException if the lines have already been consumed
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * The values of every line, as a {@code Spliterator} suitable for parallel streams.
+     *
+     * @throws IllegalStateException if the lines have already been consumed
+     */
+    public Spliterator<Object> spliterator() {
+        if (consumed) {
+            throw new IllegalStateException("already consumed");
+        }
+
+        consumed = true;
+        return spliterator;
+    }
+
+    /**
+     * <p>
+     * Decode chunks of lines as tasks on {@code executor}, passing every value to {@code action} on the calling
+     * thread, so {@code action} need not be thread-safe. When {@code ordered} is {@code true} the values are delivered
+     * in the order of the input, otherwise each chunk is delivered as soon as it has been decoded.
+     * </p><p>
+     * At most a few chunks per available processor are decoded ahead of {@code action}, bounding the memory used
+     * when {@code action} is slower than decoding.
+     * </p>
+     *
+     * @throws IllegalStateException if the lines have already been consumed
+     */
+    public void forEach(Executor executor, boolean ordered, Consumer<Object> action) throws InterruptedException {
+        Objects.requireNonNull(executor, "executor");
+        Objects.requireNonNull(action, "action");
+
+        final Chunked chunks = (Chunked) spliterator();
+        final int maxInFlight = 4 * Runtime.getRuntime().availableProcessors();
+
+        if (ordered) {
+            Deque<Future<List<Object>>> inFlight = new ArrayDeque<>();
+            Spliterator<Object> chunk;
+            while ((chunk = chunks.nextChunk()) != null) {
+                FutureTask<List<Object>> task = new FutureTask<>(new ChunkDecoder(chunk));
+                executor.execute(task);
+                inFlight.add(task);
+
+                if (inFlight.size() >= maxInFlight) {
+                    deliver(inFlight.remove(), action);
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                deliver(inFlight.remove(), action);
+            }
+        } else {
+            CompletionService<List<Object>> completion = new ExecutorCompletionService<>(executor);
+            int inFlight = 0;
+            Spliterator<Object> chunk;
+            while ((chunk = chunks.nextChunk()) != null) {
+                completion.submit(new ChunkDecoder(chunk));
+                inFlight++;
+
+                if (inFlight >= maxInFlight) {
+                    deliver(completion.take(), action);
+                    inFlight--;
+                }
+            }
+
+            for (; inFlight > 0; inFlight--) {
+                deliver(completion.take(), action);
+            }
+        }
+    }
+
+    private static void deliver(Future<List<Object>> chunk, Consumer<Object> action) throws InterruptedException {
+        List<Object> values;
+        try {
+            values = chunk.get();
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        }
+
+        for (Object value : values) {
+            action.accept(value);
+        }
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            for (int i = from; i < to; i++) {
+                if (array[offset + i] == '\n') {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == '\n') {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private static int lastIndexOfNewline(ByteBuffer buffer, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * A source of chunks of complete lines, in the order of the input.
+     */
+    private interface Chunked {
+        /**
+         * Remove roughly {@link #CHUNK_SIZE} bytes of lines from the front of the input, or return {@code null} if
+         * there are none left.
+         */
+        Spliterator<Object> nextChunk();
+    }
+
+    private static final class ChunkDecoder implements Callable<List<Object>> {
+        private final Spliterator<Object> chunk;
+
+        ChunkDecoder(Spliterator<Object> chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public List<Object> call() {
+            List<Object> values = new ArrayList<>();
+            chunk.forEachRemaining(values::add);
+            return values;
+        }
+    }
+
+    /**
+     * Decodes the lines between two positions in a series of buffers, each of which ends on a line boundary. Every
+     * line is decoded in-place by a single reusable decoder, direct buffers are first copied into a scratch array.
+     */
+    private static final class LineSpliterator implements Spliterator<Object>, Chunked {
+        private static final byte[] EMPTY = new byte[0];
+
+        private final ByteBuffer[] regions;
+        private int region;
+        private int position;
+        private final int endRegion;
+        private final int endPosition;
+
+        private Utf8Source source;
+        private JsonDecoder decoder;
+        private ByteBuffer view;
+        private byte[] scratch = EMPTY;
+
+        LineSpliterator(ByteBuffer[] regions) {
+            this(regions, 0, 0, regions.length - 1, regions[regions.length - 1].limit());
+        }
+
+        private LineSpliterator(ByteBuffer[] regions, int region, int position, int endRegion, int endPosition) {
+            this.regions = regions;
+            this.region = region;
+            this.position = position;
+            this.endRegion = endRegion;
+            this.endPosition = endPosition;
+        }
+
+        private int limit() {
+            return region == endRegion ? endPosition : regions[region].limit();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            while (true) {
+                final int limit = limit();
+                if (position >= limit) {
+                    if (region >= endRegion) {
+                        return false;
+                    }
+
+                    region++;
+                    position = 0;
+                    view = null;
+                    continue;
+                }
+
+                int end = indexOfNewline(regions[region], position, limit);
+                if (end == -1) {
+                    end = limit;
+                }
+
+                Object value = decodeLine(position, end);
+                position = end + 1;
+                if (value != null) {
+                    action.accept(value);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Decode the line between {@code start} and {@code end} in the current region, or return {@code null} if it
+         * is blank.
+         */
+        private Object decodeLine(int start, int end) {
+            if (decoder == null) {
+                source = new Utf8Source(EMPTY, 0, 0);
+                decoder = new JsonDecoder(source);
+            }
+
+            ByteBuffer buffer = regions[region];
+            if (buffer.hasArray()) {
+                source.buffer = buffer.array();
+                source.position = buffer.arrayOffset() + start;
+                source.limit = buffer.arrayOffset() + end;
+            } else {
+                int length = end - start;
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+
+                if (view == null) {
+                    view = buffer.duplicate();
+                }
+
+                view.limit(end).position(start);
+                view.get(scratch, 0, length);
+                source.buffer = scratch;
+                source.position = 0;
+                source.limit = length;
+            }
+
+            try {
+                int codePoint = source.nextSignificant();
+                if (codePoint == JsonSource.EOF) {
+                    return null;
+                }
+
+                Object value = decoder.readJsonValue(codePoint);
+                if (value == null) {
+                    throw JsonDecoder.unexpected(codePoint, "a value");
+                }
+
+                codePoint = source.nextSignificant();
+                if (codePoint != JsonSource.EOF) {
+                    throw JsonDecoder.unexpected(codePoint, "end of line");
+                }
+
+                return value;
+            } catch (IOException ioe) {
+                throw new IllegalArgumentException(ioe);
+            }
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            if (region < endRegion) {
+                // whole regions first, every region ends on a line boundary
+                int middle = (region + endRegion + 1) >>> 1;
+                LineSpliterator prefix = new LineSpliterator(
+                        regions, region, position, middle - 1, regions[middle - 1].limit());
+                region = middle;
+                position = 0;
+                view = null;
+                return prefix;
+            }
+
+            int remaining = endPosition - position;
+            return remaining >= MIN_SPLIT_SIZE * 2 ? splitAt(position + remaining / 2) : null;
+        }
+
+        @Override
+        public Spliterator<Object> nextChunk() {
+            while (position >= limit()) {
+                if (region >= endRegion) {
+                    return null;
+                }
+
+                region++;
+                position = 0;
+                view = null;
+            }
+
+            int split = position + CHUNK_SIZE;
+            if (split >= limit()) {
+                LineSpliterator chunk = new LineSpliterator(regions, region, position, region, limit());
+                position = limit();
+                return chunk;
+            }
+
+            Spliterator<Object> chunk = splitAt(split);
+            if (chunk == null) {
+                // one line for the rest of the region
+                chunk = new LineSpliterator(regions, region, position, region, limit());
+                position = limit();
+            }
+
+            return chunk;
+        }
+
+        /**
+         * Split off the lines before the first line boundary at or after {@code target} in the current region.
+         */
+        private Spliterator<Object> splitAt(int target) {
+            int limit = limit();
+            int newline = indexOfNewline(regions[region], target, limit);
+            if (newline == -1) {
+                return null;
+            }
+
+            LineSpliterator prefix = new LineSpliterator(regions, region, position, region, newline + 1);
+            position = newline + 1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (int i = region; i <= endRegion; i++) {
+                size += (i == endRegion ? endPosition : regions[i].limit()) - (i == region ? position : 0);
+            }
+
+            // assume lines of around 64 bytes, this is only a hint
+            return size >> 6;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Reads an {@code InputStream} sequentially in blocks of complete lines, each of which can be split off and decoded
+     * on another thread.
+     */
+    private static final class InputStreamSpliterator implements Spliterator<Object>, Chunked {
+        private final InputStream in;
+
+        /**
+         * The start of a line that did not fit in the last block read.
+         */
+        private byte[] carry = new byte[0];
+        private boolean eof;
+
+        private LineSpliterator current;
+
+        InputStreamSpliterator(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public Spliterator<Object> nextChunk() {
+            if (eof && carry.length == 0) {
+                return null;
+            }
+
+            byte[] block = Arrays.copyOf(carry, Math.max(CHUNK_SIZE, carry.length * 2));
+            int length = carry.length;
+            int end = -1;
+            try {
+                while (end == -1 && !eof) {
+                    if (length == block.length) {
+                        block = Arrays.copyOf(block, block.length * 2);
+                    }
+
+                    int count = in.read(block, length, block.length - length);
+                    if (count < 0) {
+                        eof = true;
+                    } else {
+                        length += count;
+                        if (length == block.length) {
+                            end = lastIndexOfNewline(ByteBuffer.wrap(block), length) + 1;
+                            end = end == 0 ? -1 : end;
+                        }
+                    }
+                }
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+
+            if (eof) {
+                end = length;
+            }
+
+            carry = Arrays.copyOfRange(block, end, length);
+            return end == 0 ? null : new LineSpliterator(new ByteBuffer[]{ByteBuffer.wrap(block, 0, end).slice()});
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            while (current == null || !current.tryAdvance(action)) {
+                Spliterator<Object> chunk = nextChunk();
+                if (chunk == null) {
+                    return false;
+                }
+
+                current = (LineSpliterator) chunk;
+            }
+
+            return true;
+        }
+
+        @Override
+        public Spliterator<Object> trySplit() {
+            // anything left over from the current block comes first
+            if (current != null) {
+                Spliterator<Object> prefix = current;
+                current = null;
+                return prefix;
+            }
+
+            return nextChunk();
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.lemnik.minijson;
+
+/**
+ * <p>
+ * Receives a {@link JsonStats} after each top-level decode or encode, for feeding into counters and histograms.
+ * Set for every new decoder and encoder with {@link Json#setMetrics(JsonMetrics)}, or for a single instance with
+ * {@link JsonDecoder#setMetrics(JsonMetrics)} and {@link JsonEncoder#setMetrics(JsonMetrics)}.
+ * </p><p>
+ * Methods are called on the decoding or encoding thread, after failed calls as well as successful ones, and so should
+ * be quick and thread-safe. The {@code JsonStats} is only valid until the method returns.
+ * </p>
+ *
+ * @see JsonStats
+ */
+public interface JsonMetrics {
+    /**
+     * Called after each {@link JsonDecoder#nextJsonValue()}.
+     */
+    default void decoded(JsonStats stats) {
+    }
+
+    /**
+     * Called after each top-level {@code JsonEncoder.writeValue} of a {@code Map} or {@code Collection}.
+     */
+    default void encoded(JsonStats stats) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.lemnik.minijson;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * A string that is encoded once, quoted and escaped, both as characters and as UTF-8 bytes, so that it can be copied
+ * into the output in bulk each time it is written rather than being escaped again. Intended for property names that
+ * are written over and over, typically held in {@code static final} fields:
+ * </p>
+ * <pre>
+ * private static final JsonName ID = JsonName.of("id");
+ * ...
+ * writer.name(ID).value(user.getId());
+ * </pre>
+ * <p>
+ * A {@code JsonName} is a {@code CharSequence} with the content of the original string, and may be written as a
+ * {@link JsonWriter#name(CharSequence)} or anywhere a {@code CharSequence} value is accepted. The {@code String} keys of
+ * ordinary maps are written in the same way when the encoder has a {@link JsonNameCache}.
+ * Instances are immutable and thread-safe.
+ * </p>
+ */
+public final class JsonName implements CharSequence {
+    private final String name;
+
+    /**
+     * The quoted and escaped characters, for a {@code Writer}.
+     */
+    final char[] chars;
+
+    /**
+     * The quoted and escaped UTF-8 bytes, for every other destination.
+     */
+    final byte[] utf8;
+
+    private JsonName(String name) {
+        this.name = name;
+        this.chars = JsonSink.escape(name);
+        this.utf8 = toUtf8(chars);
+    }
+
+    /**
+     * Encode {@code chars}, which are already escaped and so hold only valid surrogate pairs, into an array of exactly
+     * the right length.
+     */
+    private static byte[] toUtf8(char[] chars) {
+        int length = 0;
+        for (char ch : chars) {
+            // each half of a surrogate pair counts for two of its four bytes
+            length += ch < 0x80 ? 1 : ch < 0x800 || Character.isSurrogate(ch) ? 2 : 3;
+        }
+
+        final byte[] bytes = new byte[length];
+        int position = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char ch = chars[i];
+            if (ch < 0x80) {
+                bytes[position++] = (byte) ch;
+            } else if (ch < 0x800) {
+                bytes[position++] = (byte) (0xc0 | (ch >> 6));
+                bytes[position++] = (byte) (0x80 | (ch & 0x3f));
+            } else if (!Character.isSurrogate(ch)) {
+                bytes[position++] = (byte) (0xe0 | (ch >> 12));
+                bytes[position++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                bytes[position++] = (byte) (0x80 | (ch & 0x3f));
+            } else {
+                int codePoint = Character.toCodePoint(ch, chars[++i]);
+                bytes[position++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            }
+        }
+
+        return bytes;
+    }
+
+    public static JsonName of(String name) {
+        return new JsonName(Objects.requireNonNull(name, "name"));
+    }
+
+    @Override
+    public int length() {
+        return name.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return name.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return name.subSequence(start, end);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof JsonName && name.equals(((JsonName) o).name));
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    /**
+     * The original, unescaped string.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,70 @@
+package com.lemnik.minijson;
+
+/**
+ * <p>
+ * A bounded cache of {@link JsonName}s for the keys of encoded maps, so that an encoder writing the same keys over and
+ * over copies each one pre-escaped instead of escaping it again every time. Enabled for an encoder with
+ * {@link JsonEncoder#setNameCache(JsonNameCache)}.
+ * </p><p>
+ * Like {@link JsonKeyCache} the table is a fixed size, open-addressed array that never grows: when every slot that a
+ * key may occupy is taken, one of them is simply replaced. Instances are safe to share across any number of encoders
+ * and threads without locking; since {@code JsonName}s are immutable a racing thread can at worst miss the cache and
+ * encode its own copy.
+ * </p>
+ */
+public final class JsonNameCache {
+    /**
+     * A cache that may be shared by every encoder in the application.
+     */
+    public static final JsonNameCache SHARED = new JsonNameCache(4096);
+
+    /**
+     * Keys longer than this are very unlikely to repeat, and are never cached.
+     */
+    static final int MAX_KEY_LENGTH = 64;
+
+    /**
+     * The number of consecutive slots a key may be placed in.
+     */
+    private static final int PROBES = 4;
+
+    private final JsonName[] table;
+    private final int mask;
+
+    /**
+     * @param capacity the maximum number of names to retain, rounded up to a power of two
+     */
+    public JsonNameCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1)) << 1;
+        this.table = new JsonName[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the {@code JsonName} for {@code key}, or {@code null} if {@code key} is too long to be worth caching.
+     */
+    public JsonName get(String key) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            return null;
+        }
+
+        final int hash = key.hashCode();
+        final JsonName[] table = this.table;
+        final int index = (hash ^ (hash >>> 16)) & mask;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = (index + probe) & mask;
+            JsonName entry = table[slot];
+            if (entry == null) {
+                return table[slot] = JsonName.of(key);
+            } else if (entry.hashCode() == hash && entry.toString().equals(key)) {
+                return entry;
+            }
+        }
+
+        return table[index] = JsonName.of(key);
+    }
+}
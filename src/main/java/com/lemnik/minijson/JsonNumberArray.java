@@ -0,0 +1,179 @@
+package com.lemnik.minijson;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * A JSON array of numbers stored without boxing, in an {@code int[]} while every element fits in an {@code int}, then
+ * a {@code long[]}, then a {@code double[]} once any element has a fraction or exponent. Each promotion converts the
+ * existing elements, so a {@code long} beyond 2<sup>53</sup> may lose precision once the array holds doubles. Decoded
+ * by {@link JsonDecoder} when {@link JsonDecoder#setNumericArrays(boolean)} is enabled, and written by
+ * {@link JsonEncoder} without boxing.
+ * </p><p>
+ * {@link #get(int)} boxes each element as an {@code Integer}, {@code Long} or {@code Double} according to the current
+ * storage, the {@code getInt}, {@code getLong} and {@code getDouble} accessors do not box and convert in the same way as
+ * the equivalent {@code Number} methods. Only {@code Number} elements may be added, and elements cannot be removed.
+ * </p>
+ */
+public final class JsonNumberArray extends AbstractList<Object> implements RandomAccess {
+    static final byte INT = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+
+    private static final int INITIAL_CAPACITY = 10;
+
+    byte kind = INT;
+    int[] ints = new int[INITIAL_CAPACITY];
+    long[] longs;
+    double[] doubles;
+    int size;
+
+    public JsonNumberArray() {
+    }
+
+    public int getInt(int index) {
+        checkIndex(index);
+        switch (kind) {
+            case INT:
+                return ints[index];
+            case LONG:
+                return (int) longs[index];
+            default:
+                return (int) doubles[index];
+        }
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        switch (kind) {
+            case INT:
+                return ints[index];
+            case LONG:
+                return longs[index];
+            default:
+                return (long) doubles[index];
+        }
+    }
+
+    public double getDouble(int index) {
+        checkIndex(index);
+        switch (kind) {
+            case INT:
+                return ints[index];
+            case LONG:
+                return longs[index];
+            default:
+                return doubles[index];
+        }
+    }
+
+    @Override
+    public Object get(int index) {
+        checkIndex(index);
+        switch (kind) {
+            case INT:
+                return ints[index];
+            case LONG:
+                return longs[index];
+            default:
+                return doubles[index];
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append {@code value}, which must be a {@code Number}. {@code Float}, {@code Double}, {@code BigDecimal} and
+     * any unknown {@code Number} types are stored as {@code double}.
+     */
+    @Override
+    public boolean add(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            addLong(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            addLong((Long) value);
+        } else if (value instanceof Number) {
+            addDouble(((Number) value).doubleValue());
+        } else {
+            throw new IllegalArgumentException("not a number: " + value);
+        }
+
+        return true;
+    }
+
+    void addLong(long value) {
+        if (kind == INT && value != (int) value) {
+            promote(LONG);
+        }
+
+        ensureCapacity(size + 1);
+        switch (kind) {
+            case INT:
+                ints[size++] = (int) value;
+                break;
+            case LONG:
+                longs[size++] = value;
+                break;
+            default:
+                doubles[size++] = value;
+                break;
+        }
+
+        modCount++;
+    }
+
+    void addDouble(double value) {
+        if (kind != DOUBLE) {
+            promote(DOUBLE);
+        }
+
+        ensureCapacity(size + 1);
+        doubles[size++] = value;
+        modCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        switch (kind) {
+            case INT:
+                if (capacity > ints.length) ints = Arrays.copyOf(ints, Math.max(capacity, ints.length * 2));
+                break;
+            case LONG:
+                if (capacity > longs.length) longs = Arrays.copyOf(longs, Math.max(capacity, longs.length * 2));
+                break;
+            default:
+                if (capacity > doubles.length) doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+                break;
+        }
+    }
+
+    private void promote(byte to) {
+        int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+        if (to == LONG) {
+            longs = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                longs[i] = ints[i];
+            }
+        } else {
+            doubles = new double[capacity];
+            for (int i = 0; i < size; i++) {
+                doubles[i] = kind == INT ? ints[i] : longs[i];
+            }
+
+            longs = null;
+        }
+
+        ints = null;
+        kind = to;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " size " + size);
+        }
+    }
+}
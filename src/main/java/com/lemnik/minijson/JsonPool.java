@@ -0,0 +1,67 @@
+package com.lemnik.minijson;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A small lock-free pool of reusable instances. Threads claim and return instances with a single atomic operation on a
+ * slot, starting from a slot chosen by thread id, so there is no locking to pin a virtual thread and no per-thread
+ * storage to outlive short-lived threads. When every slot is empty {@link #acquire()} returns {@code null} and the
+ * caller creates a new instance, when every slot is full {@link #release(Object)} drops the instance.
+ */
+final class JsonPool<T> {
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    JsonPool() {
+        int size = Integer.highestOneBit(Math.max(PROBES, Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    private static int start() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    }
+
+    /**
+     * Claim a pooled instance, or return {@code null} if none was found.
+     */
+    T acquire() {
+        final int start = start();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) != null) {
+                T instance = slots.getAndSet(slot, null);
+                if (instance != null) {
+                    return instance;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return {@code instance} to the pool, it must not be used by the caller again.
+     */
+    void release(T instance) {
+        final int start = start();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, instance)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop every pooled instance.
+     */
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A pull-style reader over the tokens of a JSON stream, allowing documents of any size to be processed one token at a
+ * time without materializing them as {@code Map} and {@code List} trees. Any individual value may still be
+ * materialized with {@link #nextJsonValue()}.
+ * </p><p>
+ * Each {@code next} / {@code begin} / {@code end} method throws an {@code IllegalStateException} if the next token is
+ * not of the expected kind, and an {@code IOException} if the input is not valid JSON.
+ * </p>
+ */
+public class JsonReader {
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    /**
+     * A property name has been read, and its value has not.
+     */
+    private static final int DANGLING_NAME = 6;
+
+    private final JsonDecoder decoder;
+    private final JsonSource source;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+
+    /**
+     * The token returned by the last call to {@link #peek()} that has not yet been consumed, or {@code null}.
+     */
+    private JsonToken peeked;
+
+    /**
+     * The character that started the {@link #peeked} token, which has already been consumed from the source.
+     */
+    private int peekedChar;
+
+    public JsonReader(JsonDecoder decoder) {
+        this.decoder = Objects.requireNonNull(decoder, "decoder");
+        this.source = decoder.source;
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public JsonReader(Reader reader) {
+        this(new JsonDecoder(reader));
+    }
+
+    public JsonReader(String json) {
+        this(new JsonDecoder(json));
+    }
+
+    public JsonReader(byte[] json) {
+        this(new JsonDecoder(json));
+    }
+
+    /**
+     * Returns the kind of the next token without consuming it.
+     */
+    public JsonToken peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int codePoint;
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return peekValue(source.nextSignificant());
+            case NONEMPTY_DOCUMENT:
+                codePoint = source.nextSignificant();
+                if (codePoint == JsonSource.EOF) {
+                    return peeked = JsonToken.END_DOCUMENT;
+                }
+
+                return peekValue(codePoint);
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                codePoint = source.nextSignificant();
+                if (codePoint == ']') {
+                    return peekEnd(JsonToken.END_ARRAY, codePoint);
+                }
+
+                return peekValue(codePoint);
+            case NONEMPTY_ARRAY:
+                codePoint = source.nextSignificant();
+                if (codePoint == ']') {
+                    return peekEnd(JsonToken.END_ARRAY, codePoint);
+                } else if (codePoint != ',') {
+                    throw unexpected(codePoint, ", or ]");
+                }
+
+                return peekValue(source.nextSignificant());
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                codePoint = source.nextSignificant();
+                if (codePoint == '}') {
+                    return peekEnd(JsonToken.END_OBJECT, codePoint);
+                } else if (stack[depth - 1] == NONEMPTY_OBJECT) {
+                    if (codePoint != ',') {
+                        throw unexpected(codePoint, ", or }");
+                    }
+
+                    codePoint = source.nextSignificant();
+                }
+
+                if (codePoint != '"') {
+                    throw unexpected(codePoint, "\"");
+                }
+
+                stack[depth - 1] = DANGLING_NAME;
+                peekedChar = codePoint;
+                return peeked = JsonToken.NAME;
+            case DANGLING_NAME:
+                codePoint = source.nextSignificant();
+                if (codePoint != ':') {
+                    throw unexpected(codePoint, ":");
+                }
+
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return peekValue(source.nextSignificant());
+            default:
+                throw new IllegalStateException("corrupt reader state");
+        }
+    }
+
+    private JsonToken peekEnd(JsonToken token, int codePoint) {
+        peekedChar = codePoint;
+        return peeked = token;
+    }
+
+    private JsonToken peekValue(int codePoint) throws IOException {
+        JsonToken token;
+        switch (codePoint) {
+            case '{':
+                token = JsonToken.BEGIN_OBJECT;
+                break;
+            case '[':
+                token = JsonToken.BEGIN_ARRAY;
+                break;
+            case '"':
+                token = JsonToken.STRING;
+                break;
+            case 't':
+            case 'f':
+                token = JsonToken.BOOLEAN;
+                break;
+            case 'n':
+                token = JsonToken.NULL;
+                break;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                token = JsonToken.NUMBER;
+                break;
+            case JsonSource.EOF:
+                throw new IOException("unexpected EOF");
+            default:
+                throw unexpected(codePoint, "a value");
+        }
+
+        peekedChar = codePoint;
+        return peeked = token;
+    }
+
+    /**
+     * Returns {@code true} if the current array or object has another element, or if there is another value in
+     * the document.
+     */
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        depth--;
+    }
+
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        return decoder.parseKey(decoder.readStringContent());
+    }
+
+    public String nextString() throws IOException {
+        expect(JsonToken.STRING);
+        return decoder.readStringContent().toString();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        if (peekedChar == 't') {
+            decoder.consume("rue");
+            return true;
+        } else {
+            decoder.consume("alse");
+            return false;
+        }
+    }
+
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        decoder.consume("ull");
+    }
+
+    /**
+     * Returns the next number, which must be an integer within the range of {@code int}.
+     *
+     * @throws IOException if the number is fractional or out of range, after consuming it
+     */
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IOException("not an int: " + value);
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Returns the next number, which must be an integer within the range of {@code long}.
+     *
+     * @throws IOException if the number is fractional or out of range, after consuming it
+     */
+    public long nextLong() throws IOException {
+        try {
+            return nextNumber().toLong();
+        } catch (NumberFormatException nfe) {
+            throw new IOException(nfe.getMessage(), nfe);
+        }
+    }
+
+    public double nextDouble() throws IOException {
+        return nextNumber().toDouble();
+    }
+
+    private NumberParser nextNumber() throws IOException {
+        expect(JsonToken.NUMBER);
+        NumberParser parser = decoder.numberParser;
+        try {
+            parser.scan(decoder.readNumberContent(peekedChar));
+        } catch (NumberFormatException nfe) {
+            throw new IOException(nfe.getMessage(), nfe);
+        }
+
+        return parser;
+    }
+
+    /**
+     * Read the next value as it would be returned by {@link JsonDecoder#nextJsonValue()}, including any nested
+     * objects and arrays.
+     */
+    public Object nextJsonValue() throws IOException {
+        JsonToken token = peek();
+        if (token == JsonToken.NAME || token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY
+                || token == JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("expected a value but was " + token);
+        }
+
+        peeked = null;
+        return decoder.readJsonValue(peekedChar);
+    }
+
+    private void expect(JsonToken expected) throws IOException {
+        JsonToken token = peek();
+        if (token != expected) {
+            throw new IllegalStateException("expected " + expected + " but was " + token);
+        }
+
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+
+        stack[depth++] = scope;
+    }
+
+    private static IOException unexpected(int codePoint, String expected) {
+        if (codePoint == JsonSource.EOF) {
+            return new IOException("unexpected EOF expected " + expected);
+        }
+
+        return new IOException("unexpected '" + (char) codePoint + "' expected " + expected);
+    }
+}
@@ -0,0 +1,185 @@
+package com.lemnik.minijson;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * The ordered keys of a {@link ShapedMap}, shared by every map with the same key sequence. Shapes form a tree rooted at
+ * {@link #EMPTY}: adding a key to a map moves it to the child shape for that key, which is created once and then
+ * reused, so decoding many records with the same keys in the same order ends with them all sharing a single shape.
+ * </p><p>
+ * The tree is bounded to protect against objects used as open-ended dictionaries: there are no shapes with more than
+ * {@link #MAX_CACHED_KEYS} keys, beyond the first {@link #MAX_TRANSITIONS} children of any shape, or beyond
+ * {@link #MAX_SHAPES} in total. A map whose keys fall outside the tree switches to an ordinary {@code LinkedHashMap}
+ * instead. Shapes are immutable and thread-safe.
+ * </p>
+ */
+final class JsonShape {
+    static final int MAX_CACHED_KEYS = 64;
+    static final int MAX_TRANSITIONS = 64;
+    static final int MAX_SHAPES = 4096;
+
+    /**
+     * The number of shapes in the tree, which is never pruned.
+     */
+    private static final AtomicInteger SHAPES = new AtomicInteger();
+
+    /**
+     * Shapes with more keys than this get a hash index rather than being searched linearly.
+     */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    static final JsonShape EMPTY = new JsonShape(new String[0], true);
+
+    final String[] keys;
+
+    /**
+     * Open-addressed table of key index + 1 by key hash, only for shapes larger than {@link #LINEAR_SEARCH_LIMIT}.
+     */
+    private final int[] index;
+
+    /**
+     * Whether this shape is in the tree, rather than belonging to a single map.
+     */
+    private final boolean shared;
+
+    /**
+     * Created on the first transition, since most shapes are leaves.
+     */
+    private volatile ConcurrentHashMap<String, JsonShape> transitions;
+
+    private JsonShape(String[] keys, boolean shared) {
+        this.keys = keys;
+        this.shared = shared;
+        this.index = keys.length > LINEAR_SEARCH_LIMIT ? buildIndex(keys) : null;
+    }
+
+    private static int[] buildIndex(String[] keys) {
+        int[] index = new int[Integer.highestOneBit(keys.length * 2) * 2];
+        int mask = index.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+
+            index[slot] = i + 1;
+        }
+
+        return index;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * The position of {@code key} in this shape, or {@code -1}.
+     */
+    int indexOf(Object key) {
+        final String[] keys = this.keys;
+        if (index == null) {
+            // keys decoded through a JsonKeyCache are usually the same instance
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+
+            if (key != null) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i].equals(key)) {
+                        return i;
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        if (key == null) {
+            return -1;
+        }
+
+        final int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = index[slot]) != 0) {
+            if (keys[entry - 1].equals(key)) {
+                return entry - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * The shared shape with {@code key} appended, which must not already be in this shape, or {@code null} if that
+     * shape is outside the bounds of the tree.
+     */
+    JsonShape with(String key) {
+        ConcurrentHashMap<String, JsonShape> transitions = this.transitions;
+        JsonShape next = transitions != null ? transitions.get(key) : null;
+        if (next != null) {
+            return next;
+        } else if (!shared || keys.length >= MAX_CACHED_KEYS || SHAPES.get() >= MAX_SHAPES) {
+            return null;
+        }
+
+        if (transitions == null) {
+            synchronized (this) {
+                transitions = this.transitions;
+                if (transitions == null) {
+                    this.transitions = transitions = new ConcurrentHashMap<>(4);
+                }
+            }
+        }
+
+        if (transitions.size() >= MAX_TRANSITIONS) {
+            return null;
+        }
+
+        String[] nextKeys = Arrays.copyOf(keys, keys.length + 1);
+        nextKeys[keys.length] = key;
+        next = new JsonShape(nextKeys, true);
+
+        JsonShape existing = transitions.putIfAbsent(key, next);
+        if (existing != null) {
+            return existing;
+        }
+
+        SHAPES.incrementAndGet();
+        return next;
+    }
+
+    /**
+     * The shape of this shape's keys without the key at {@code removed}: the shared one if it is in the tree,
+     * otherwise one belonging to the caller alone.
+     */
+    JsonShape without(int removed) {
+        JsonShape shape = EMPTY;
+        for (int i = 0; i < keys.length && shape != null; i++) {
+            if (i != removed) {
+                shape = shape.with(keys[i]);
+            }
+        }
+
+        if (shape != null) {
+            return shape;
+        }
+
+        String[] remaining = new String[keys.length - 1];
+        System.arraycopy(keys, 0, remaining, 0, removed);
+        System.arraycopy(keys, removed + 1, remaining, removed, keys.length - removed - 1);
+        return new JsonShape(remaining, false);
+    }
+}
@@ -0,0 +1,166 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+
+/**
+ * The raw output of a {@link JsonEncoder}. Implementations buffer internally and own the per-character loops (string
+ * escaping) so that the encoder only pays for a single call per token.
+ */
+abstract class JsonSink {
+    /**
+     * Escape sequences for every character that cannot appear as-is in a JSON string literal, indexed by character.
+     */
+    static final char[][] ESCAPES = new char['\\' + 1][];
+
+    /**
+     * The number of characters in a unicode escape, a backslash, {@code u} and four hex digits.
+     */
+    static final int UNICODE_ESCAPE_LENGTH = 6;
+
+    static {
+        for (int ch = 0; ch < 0x20; ch++) {
+            ESCAPES[ch] = new char[]{'\\', 'u', '0', '0', hexDigit(ch >> 4), hexDigit(ch)};
+        }
+
+        ESCAPES['"'] = new char[]{'\\', '"'};
+        ESCAPES['\\'] = new char[]{'\\', '\\'};
+        ESCAPES['\b'] = new char[]{'\\', 'b'};
+        ESCAPES['\f'] = new char[]{'\\', 'f'};
+        ESCAPES['\n'] = new char[]{'\\', 'n'};
+        ESCAPES['\r'] = new char[]{'\\', 'r'};
+        ESCAPES['\t'] = new char[]{'\\', 't'};
+    }
+
+    static char hexDigit(int value) {
+        return "0123456789abcdef".charAt(value & 0xf);
+    }
+
+    static boolean needsEscape(char ch) {
+        return ch < ESCAPES.length && ESCAPES[ch] != null;
+    }
+
+    /**
+     * Write the unicode escape of {@code ch} to {@code out} at {@code offset}, which must have
+     * {@link #UNICODE_ESCAPE_LENGTH} characters available, returning the offset just after it.
+     */
+    static int writeUnicodeEscape(char ch, char[] out, int offset) {
+        out[offset] = '\\';
+        out[offset + 1] = 'u';
+        out[offset + 2] = hexDigit(ch >> 12);
+        out[offset + 3] = hexDigit(ch >> 8);
+        out[offset + 4] = hexDigit(ch >> 4);
+        out[offset + 5] = hexDigit(ch);
+        return offset + UNICODE_ESCAPE_LENGTH;
+    }
+
+    /**
+     * {@code string} as a quoted and escaped JSON string literal, in an array of exactly the right length. Escaped
+     * exactly as {@link #writeString(CharSequence)} escapes it.
+     */
+    static char[] escape(CharSequence string) {
+        final int length = string.length();
+        int escapedLength = length + 2;
+        for (int i = 0; i < length; i++) {
+            char ch = string.charAt(i);
+            if (needsEscape(ch)) {
+                escapedLength += ESCAPES[ch].length - 1;
+            } else if (Character.isSurrogate(ch) && isUnpairedSurrogate(string, i, ch)) {
+                escapedLength += UNICODE_ESCAPE_LENGTH - 1;
+            }
+        }
+
+        final char[] escaped = new char[escapedLength];
+        int position = 0;
+        escaped[position++] = '"';
+        for (int i = 0; i < length; i++) {
+            char ch = string.charAt(i);
+            if (needsEscape(ch)) {
+                char[] escape = ESCAPES[ch];
+                System.arraycopy(escape, 0, escaped, position, escape.length);
+                position += escape.length;
+            } else if (Character.isSurrogate(ch) && isUnpairedSurrogate(string, i, ch)) {
+                position = writeUnicodeEscape(ch, escaped, position);
+            } else {
+                escaped[position++] = ch;
+            }
+        }
+
+        escaped[position] = '"';
+        return escaped;
+    }
+
+    /**
+     * Whether the surrogate {@code ch} at {@code index} of {@code string} is not half of a valid pair. Unpaired
+     * surrogates cannot be encoded as UTF-8, so every sink writes them as a six character unicode escape instead.
+     */
+    static boolean isUnpairedSurrogate(CharSequence string, int index, char ch) {
+        if (Character.isHighSurrogate(ch)) {
+            return index + 1 >= string.length() || !Character.isLowSurrogate(string.charAt(index + 1));
+        }
+
+        return index == 0 || !Character.isHighSurrogate(string.charAt(index - 1));
+    }
+
+    /**
+     * Write a single structural (ASCII) character.
+     */
+    abstract void write(char ch) throws IOException;
+
+    /**
+     * Write a literal token (ASCII only, such as {@code null} or a number) without quoting or escaping.
+     */
+    abstract void write(String token) throws IOException;
+
+    /**
+     * Write {@code value} in decimal, without allocating.
+     */
+    abstract void writeLong(long value) throws IOException;
+
+    /**
+     * Write the shortest decimal that reads back as exactly {@code value}, in the layout of {@code Double.toString},
+     * without allocating.
+     */
+    abstract void writeDouble(double value) throws IOException;
+
+    /**
+     * Write {@code string} as a quoted and escaped JSON string literal.
+     */
+    abstract void writeString(CharSequence string) throws IOException;
+
+    /**
+     * Copy the pre-encoded, quoted form of {@code name} in bulk.
+     */
+    abstract void writeName(JsonName name) throws IOException;
+
+    /**
+     * A new sink that keeps everything written to it in memory, in the same encoding as this sink, so that it can be
+     * filled on another thread and then appended with {@link #writeSegment(JsonSink)}.
+     */
+    abstract JsonSink newSegment();
+
+    /**
+     * The number of characters (or bytes) written to this sink so far, including any still buffered.
+     */
+    abstract long offset();
+
+    /**
+     * Discard everything written after {@code offset}, which must all still be buffered, such as a separator written
+     * just before a value that then could not be encoded.
+     */
+    abstract void discard(long offset);
+
+    /**
+     * Append everything written to {@code segment}, which must have been created by {@link #newSegment()}.
+     */
+    abstract void writeSegment(JsonSink segment) throws IOException;
+
+    /**
+     * Write any buffered output to the destination, and flush the destination.
+     */
+    abstract void flush() throws IOException;
+
+    /**
+     * Flush and then close the destination.
+     */
+    abstract void close() throws IOException;
+}
@@ -0,0 +1,81 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+
+/**
+ * The raw input of a {@link JsonDecoder}. Implementations own the per-character loops (whitespace, string and number
+ * runs) so that the decoder itself only pays for a single call per token rather than a call per character.
+ */
+abstract class JsonSource {
+    static final int EOF = -1;
+
+    /**
+     * Read and consume the next character, returning {@link #EOF} if there is no more input.
+     */
+    abstract int read() throws IOException;
+
+    /**
+     * Skip any whitespace and then read and consume the next character, returning {@link #EOF} if there is no more
+     * input.
+     */
+    abstract int nextSignificant() throws IOException;
+
+    /**
+     * Append the content of a string literal to {@code out} up to (but not including) the next {@code '"'} or
+     * {@code '\\'}, which is consumed and returned. Returns {@link #EOF} if the input ends first.
+     */
+    abstract int readStringRun(StringBuilder out) throws IOException;
+
+    /**
+     * Append the characters of a number literal to {@code out}, stopping before the first character that cannot
+     * be part of a number.
+     */
+    abstract void readNumberRun(StringBuilder out) throws IOException;
+
+    /**
+     * Consume the rest of a string literal, up to and including the closing quote, without decoding it.
+     *
+     * @return {@code false} if the input ends first
+     */
+    abstract boolean skipString() throws IOException;
+
+    /**
+     * Consume the rest of an object or array, up to and including its closing bracket, by counting brackets and
+     * skipping over string literals. Nothing is decoded or validated.
+     *
+     * @return {@code false} if the input ends first
+     */
+    abstract boolean skipContainer() throws IOException;
+
+    /**
+     * Whether the entire input is held in memory, allowing {@link #position()} and {@link #seek(int)}.
+     */
+    abstract boolean isRandomAccess();
+
+    /**
+     * The offset of the next character to be read within the underlying array.
+     */
+    abstract int position();
+
+    /**
+     * The number of characters (or bytes) read so far plus an arbitrary origin, only the difference between two
+     * offsets is meaningful. Unlike {@link #position()} this is available for every source.
+     */
+    abstract long offset();
+
+    /**
+     * Move to the given offset within the underlying array, as previously returned by {@link #position()}.
+     */
+    abstract void seek(int position);
+
+    /**
+     * A new source over the same underlying array, for reading it concurrently from another thread.
+     *
+     * @throws UnsupportedOperationException if this source is not {@linkplain #isRandomAccess() random access}
+     */
+    abstract JsonSource duplicate();
+
+    static boolean isNumberChar(int ch) {
+        return (ch >= '0' && ch <= '9') || ch == '.' || ch == 'e' || ch == 'E' || ch == '-' || ch == '+';
+    }
+}
@@ -0,0 +1,149 @@
+package com.lemnik.minijson;
+
+/**
+ * <p>
+ * What a single call to {@link JsonDecoder#nextJsonValue()} or a top-level {@code JsonEncoder.writeValue} did, as
+ * reported to {@link JsonMetrics}. The same instance is reused by each decoder or encoder for every call, so a
+ * {@code JsonMetrics} must copy out anything it needs before returning rather than keep a reference to it.
+ * </p><p>
+ * Counts cover every value at any depth. Object keys are not counted as strings, the key cache counts are always zero
+ * for encoding and for decoders with no {@link JsonKeyCache}.
+ * </p>
+ */
+public final class JsonStats {
+    long durationNanos;
+    long length;
+    int depth;
+    int maxDepth;
+    long objects;
+    long arrays;
+    long strings;
+    long numbers;
+    long keyCacheHits;
+    long keyCacheMisses;
+    boolean failed;
+
+    /**
+     * The flight recorder event being recorded alongside these stats, or {@code null}. Typed as {@code Object} so that
+     * nothing here depends on {@code jdk.jfr}.
+     */
+    Object event;
+
+    JsonStats() {
+    }
+
+    void reset() {
+        durationNanos = 0;
+        length = 0;
+        depth = 0;
+        maxDepth = 0;
+        objects = 0;
+        arrays = 0;
+        strings = 0;
+        numbers = 0;
+        keyCacheHits = 0;
+        keyCacheMisses = 0;
+        failed = false;
+        event = null;
+    }
+
+    void enter() {
+        if (++depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    void exit() {
+        depth--;
+    }
+
+    /**
+     * Add the counts from {@code other}, collected for part of the same value, to these.
+     */
+    void merge(JsonStats other) {
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        objects += other.objects;
+        arrays += other.arrays;
+        strings += other.strings;
+        numbers += other.numbers;
+        keyCacheHits += other.keyCacheHits;
+        keyCacheMisses += other.keyCacheMisses;
+    }
+
+    /**
+     * The wall-clock time taken by the call in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * The number of characters read or written, or bytes for UTF-8 input and output. Includes whitespace skipped
+     * before a decoded value.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * The deepest nesting of objects and arrays, {@code 0} for a top-level scalar.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getObjectCount() {
+        return objects;
+    }
+
+    public long getArrayCount() {
+        return arrays;
+    }
+
+    public long getStringCount() {
+        return strings;
+    }
+
+    public long getNumberCount() {
+        return numbers;
+    }
+
+    public long getKeyCacheHits() {
+        return keyCacheHits;
+    }
+
+    public long getKeyCacheMisses() {
+        return keyCacheMisses;
+    }
+
+    /**
+     * The fraction of object keys found in the key cache, or {@code 0} if no keys were looked up.
+     */
+    public double getKeyCacheHitRate() {
+        long lookups = keyCacheHits + keyCacheMisses;
+        return lookups == 0 ? 0 : (double) keyCacheHits / lookups;
+    }
+
+    /**
+     * Whether the call threw an exception, in which case the counts only cover what happened before it was thrown.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    @Override
+    public String toString() {
+        return "JsonStats{"
+                + "durationNanos=" + durationNanos
+                + ", length=" + length
+                + ", maxDepth=" + maxDepth
+                + ", objects=" + objects
+                + ", arrays=" + arrays
+                + ", strings=" + strings
+                + ", numbers=" + numbers
+                + ", keyCacheHits=" + keyCacheHits
+                + ", keyCacheMisses=" + keyCacheMisses
+                + ", failed=" + failed
+                + '}';
+    }
+}
@@ -0,0 +1,28 @@
+package com.lemnik.minijson;
+
+/**
+ * The kinds of token returned by {@link JsonReader#peek()} and {@link NonBlockingJsonDecoder#nextToken()}.
+ */
+public enum JsonToken {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    /**
+     * A property name within an object.
+     */
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    /**
+     * The end of the input has been reached.
+     */
+    END_DOCUMENT,
+    /**
+     * The available input has been consumed without completing a token. Only returned by
+     * {@link NonBlockingJsonDecoder}.
+     */
+    NEED_MORE_INPUT
+}
@@ -0,0 +1,55 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Receives the structure of a JSON value as a series of events from {@link JsonDecoder#nextJsonValue(JsonVisitor)},
+ * without any {@code Map}, {@code List} or {@code String} being allocated for it.
+ * </p><p>
+ * {@code CharSequence} arguments are views over the decoder's internal buffer: they are only valid for the duration of
+ * the call, must not be modified and must be copied (with {@code toString()}) if they are needed afterwards.
+ * </p><p>
+ * Every method does nothing by default, so implementations only need to override the events they are interested in.
+ * </p>
+ */
+public interface JsonVisitor {
+    default void startObject() throws IOException {
+    }
+
+    /**
+     * A property name within the current object, always followed by the events for its value.
+     */
+    default void key(CharSequence key) throws IOException {
+    }
+
+    default void endObject() throws IOException {
+    }
+
+    default void startArray() throws IOException {
+    }
+
+    default void endArray() throws IOException {
+    }
+
+    default void value(CharSequence string) throws IOException {
+    }
+
+    /**
+     * A number literal without a fraction or exponent that fits within a {@code long}.
+     */
+    default void value(long number) throws IOException {
+    }
+
+    /**
+     * Any other number literal.
+     */
+    default void value(double number) throws IOException {
+    }
+
+    default void value(boolean value) throws IOException {
+    }
+
+    default void nullValue() throws IOException {
+    }
+}
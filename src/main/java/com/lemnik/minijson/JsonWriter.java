@@ -0,0 +1,257 @@
+package com.lemnik.minijson;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A push-style writer emitting a JSON stream one token at a time, so that documents of any size can be written
+ * straight from domain objects or cursors without first building {@code Map} and {@code List} trees. Commas and colons
+ * are written automatically, and any individual value may still be written from a tree with {@link #value(Object)}.
+ * Output is buffered by the underlying {@link JsonEncoder}, so {@link #flush()} or {@link #close()} must be called.
+ * </p><p>
+ * Each method throws an {@code IllegalStateException} if it would produce invalid JSON, such as a value where a name
+ * is expected or an {@code endArray()} that closes an object. Several top-level values may be written, each on its
+ * own line.
+ * </p>
+ */
+public class JsonWriter implements Flushable, Closeable {
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    /**
+     * A property name has been written, and its value has not.
+     */
+    private static final int DANGLING_NAME = 6;
+
+    private final JsonEncoder encoder;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+
+    public JsonWriter(JsonEncoder encoder) {
+        this.encoder = Objects.requireNonNull(encoder, "encoder");
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public JsonWriter(Writer writer) {
+        this(new JsonEncoder(writer));
+    }
+
+    /**
+     * Write UTF-8 encoded JSON to {@code stream}.
+     */
+    public JsonWriter(OutputStream stream) {
+        this(new JsonEncoder(stream));
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        encoder.sink.write('{');
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        end(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        encoder.sink.write('[');
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        end(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+        return this;
+    }
+
+    /**
+     * Write the name of the next property of the current object, which must be followed by its value. Names that are
+     * {@link JsonName}s are copied already encoded.
+     */
+    public JsonWriter name(CharSequence name) throws IOException {
+        Objects.requireNonNull(name, "name");
+        final JsonSink sink = encoder.sink;
+        switch (stack[depth - 1]) {
+            case NONEMPTY_OBJECT:
+                sink.write(',');
+                break;
+            case EMPTY_OBJECT:
+                break;
+            case DANGLING_NAME:
+                throw new IllegalStateException("expected a value for the previous name");
+            default:
+                throw new IllegalStateException("names are only allowed in an object");
+        }
+
+        encoder.writeKey(name);
+        sink.write(':');
+        stack[depth - 1] = DANGLING_NAME;
+        return this;
+    }
+
+    /**
+     * Write a string, or {@code null}.
+     */
+    public JsonWriter value(CharSequence value) throws IOException {
+        beforeValue();
+        encoder.writeValue(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        encoder.writeValue(value);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code value} is NaN or infinite, which cannot be represented in JSON
+     */
+    public JsonWriter value(double value) throws IOException {
+        JsonEncoder.checkFinite(value);
+        beforeValue();
+        encoder.writeValue(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        encoder.writeValue(value);
+        return this;
+    }
+
+    /**
+     * Write a number, or {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code value} is a NaN or infinite {@code Double} or {@code Float}
+     */
+    public JsonWriter value(Number value) throws IOException {
+        if (value instanceof Double || value instanceof Float) {
+            JsonEncoder.checkFinite(value.doubleValue());
+        }
+
+        beforeValue();
+        encoder.writeValue(value);
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        encoder.writeNull();
+        return this;
+    }
+
+    /**
+     * Write {@code value} and everything nested within it as {@link JsonEncoder} would, for example a {@code Map}
+     * or {@code Collection} that is already in memory. Numbers are checked as by {@link #value(Number)}, including
+     * those nested within {@code value}. If the encoder rejects {@code value} itself, such as for an unsupported type, nothing is written and this writer
+     * may still be used. A failure nested within {@code value} leaves the output incomplete.
+     *
+     * @throws IllegalArgumentException if {@code value} is a NaN or infinite number, or cannot be encoded
+     */
+    public JsonWriter value(Object value) throws IOException {
+        if (value instanceof Number) {
+            return value((Number) value);
+        }
+
+        final JsonSink sink = encoder.sink;
+        final int scope = stack[depth - 1];
+        final long offset = sink.offset();
+        beforeValue();
+
+        final long start = sink.offset();
+        final boolean finiteOnly = encoder.finiteOnly;
+        encoder.finiteOnly = true;
+        try {
+            encoder.writeValue(value);
+        } catch (RuntimeException e) {
+            if (sink.offset() == start) {
+                // nothing of the value was written, so take back the separator as well
+                sink.discard(offset);
+                stack[depth - 1] = scope;
+            }
+
+            throw e;
+        } finally {
+            encoder.finiteOnly = finiteOnly;
+        }
+
+        return this;
+    }
+
+    /**
+     * Write all buffered output through to the destination, and flush the destination.
+     */
+    @Override
+    public void flush() throws IOException {
+        encoder.flush();
+    }
+
+    /**
+     * Write all buffered output through to the destination, and close the destination.
+     *
+     * @throws IOException if an object or array has not been ended, after closing the destination
+     */
+    @Override
+    public void close() throws IOException {
+        encoder.close();
+        if (depth > 1) {
+            throw new IOException("incomplete document");
+        }
+    }
+
+    private void beforeValue() throws IOException {
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                encoder.sink.write('\n');
+                break;
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                encoder.sink.write(',');
+                break;
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            default:
+                throw new IllegalStateException("expected a name");
+        }
+    }
+
+    private void end(int empty, int nonEmpty, char close) throws IOException {
+        int scope = stack[depth - 1];
+        if (scope == DANGLING_NAME) {
+            throw new IllegalStateException("expected a value for the previous name");
+        } else if (scope != empty && scope != nonEmpty) {
+            throw new IllegalStateException("unexpected " + close);
+        }
+
+        depth--;
+        encoder.sink.write(close);
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+
+        stack[depth++] = scope;
+    }
+}
@@ -0,0 +1,67 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only JSON array backed by the input of a {@link JsonDecoder}, see {@link JsonDecoder#nextLazyValue()}. The
+ * elements are indexed on first access by skipping over them, each element is decoded the first time it is requested.
+ */
+final class LazyJsonArray extends AbstractList<Object> implements RandomAccess {
+    private final JsonDecoder decoder;
+
+    /**
+     * The offset of the first character after the opening bracket.
+     */
+    private final int start;
+
+    private int size = -1;
+    private int[] offsets;
+    private Object[] values;
+
+    LazyJsonArray(JsonDecoder decoder, int start) {
+        this.decoder = decoder;
+        this.start = start;
+    }
+
+    private void index() {
+        if (size >= 0) {
+            return;
+        }
+
+        final JsonSource source = decoder.source;
+        final int position = source.position();
+        try {
+            source.seek(start);
+            offsets = decoder.readElementOffsets();
+            values = new Object[offsets.length];
+            size = offsets.length;
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            source.seek(position);
+        }
+    }
+
+    @Override
+    public Object get(int index) {
+        index();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " size " + size);
+        }
+
+        Object value = values[index];
+        if (value == null) {
+            value = values[index] = decoder.readLazyValue(offsets[index]);
+        }
+
+        return value;
+    }
+
+    @Override
+    public int size() {
+        index();
+        return size;
+    }
+}
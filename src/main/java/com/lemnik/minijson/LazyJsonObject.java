@@ -0,0 +1,297 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-only JSON object backed by the input of a {@link JsonDecoder}, see {@link JsonDecoder#nextLazyValue()}. The
+ * members are indexed on first access by decoding the keys and skipping over the values, each value is decoded the
+ * first time it is requested.
+ */
+final class LazyJsonObject extends AbstractMap<String, Object> {
+    /**
+     * Objects with more members than this get a hash table rather than being searched linearly.
+     */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private final JsonDecoder decoder;
+
+    /**
+     * The offset of the first character after the opening brace.
+     */
+    private final int start;
+
+    private int size = -1;
+    private String[] keys;
+    private int[] offsets;
+    private Object[] values;
+
+    /**
+     * Open-addressed table of member index + 1 by key hash, only built for objects larger than
+     * {@link #LINEAR_SEARCH_LIMIT}.
+     */
+    private int[] table;
+
+    private Set<Entry<String, Object>> entrySet;
+    private Set<String> keySet;
+
+    LazyJsonObject(JsonDecoder decoder, int start) {
+        this.decoder = decoder;
+        this.start = start;
+    }
+
+    private void index() {
+        if (size >= 0) {
+            return;
+        }
+
+        final JsonSource source = decoder.source;
+        final int position = source.position();
+        try {
+            source.seek(start);
+
+            String[] keys = new String[8];
+            int[] offsets = new int[8];
+            int size = 0;
+
+            int codePoint = source.nextSignificant();
+            if (codePoint != '}') {
+                while (true) {
+                    if (codePoint != '"') {
+                        throw JsonDecoder.unexpected(codePoint, "\"");
+                    }
+
+                    String key = decoder.parseKey(decoder.readStringContent());
+                    codePoint = source.nextSignificant();
+                    if (codePoint != ':') {
+                        throw JsonDecoder.unexpected(codePoint, ":");
+                    }
+
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                        offsets = Arrays.copyOf(offsets, size * 2);
+                    }
+
+                    keys[size] = key;
+                    offsets[size] = source.position();
+                    size++;
+
+                    decoder.skipValue(source.nextSignificant());
+
+                    codePoint = source.nextSignificant();
+                    if (codePoint == '}') {
+                        break;
+                    } else if (codePoint != ',') {
+                        throw JsonDecoder.unexpected(codePoint, ", or }");
+                    }
+
+                    codePoint = source.nextSignificant();
+                }
+            }
+
+            this.keys = keys;
+            this.offsets = offsets;
+            size = collapseDuplicates(size);
+            this.values = new Object[size];
+            this.size = size;
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        } finally {
+            source.seek(position);
+        }
+    }
+
+    /**
+     * Collapses duplicate keys the way a {@code LinkedHashMap} would: the member keeps the position of the first
+     * occurrence and the value of the last. Objects larger than {@link #LINEAR_SEARCH_LIMIT} get their hash table
+     * built along the way.
+     *
+     * @return the number of distinct members
+     */
+    private int collapseDuplicates(int size) {
+        int[] table = size > LINEAR_SEARCH_LIMIT ? new int[Integer.highestOneBit(size * 2) * 2] : null;
+        int mask = table != null ? table.length - 1 : 0;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            String key = keys[i];
+            int existing = -1;
+            if (table == null) {
+                for (int j = 0; j < count; j++) {
+                    if (keys[j].equals(key)) {
+                        existing = j;
+                        break;
+                    }
+                }
+            } else {
+                int slot = hash(key) & mask;
+                int member;
+                while ((member = table[slot]) != 0) {
+                    if (keys[member - 1].equals(key)) {
+                        existing = member - 1;
+                        break;
+                    }
+
+                    slot = (slot + 1) & mask;
+                }
+
+                if (existing < 0) {
+                    table[slot] = count + 1;
+                }
+            }
+
+            if (existing >= 0) {
+                offsets[existing] = offsets[i];
+            } else {
+                keys[count] = key;
+                offsets[count] = offsets[i];
+                count++;
+            }
+        }
+
+        this.table = table;
+        return count;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        index();
+        if (!(key instanceof String)) {
+            return -1;
+        }
+
+        if (table == null) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (keys[i] == key || keys[i].equals(key)) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        int mask = table.length - 1;
+        int slot = hash((String) key) & mask;
+        int member;
+        while ((member = table[slot]) != 0) {
+            if (keys[member - 1].equals(key)) {
+                return member - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private Object value(int index) {
+        Object value = values[index];
+        if (value == null) {
+            value = values[index] = decoder.readLazyValue(offsets[index]);
+        }
+
+        return value;
+    }
+
+    @Override
+    public int size() {
+        index();
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? value(index) : null;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (keySet == null) {
+            keySet = new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new MemberIterator<String>() {
+                        @Override
+                        String member(int index) {
+                            return keys[index];
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return LazyJsonObject.this.size();
+                }
+            };
+        }
+
+        return keySet;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new MemberIterator<Entry<String, Object>>() {
+                        @Override
+                        Entry<String, Object> member(int index) {
+                            return new SimpleImmutableEntry<>(keys[index], value(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return LazyJsonObject.this.size();
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    private abstract class MemberIterator<T> implements Iterator<T> {
+        private int next;
+
+        MemberIterator() {
+            index();
+        }
+
+        abstract T member(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+
+            return member(next++);
+        }
+    }
+}
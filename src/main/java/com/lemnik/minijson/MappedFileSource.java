@@ -0,0 +1,64 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link ByteBufferSource} over a memory-mapped file. A single mapping is limited to 2GB, so larger files are
+ * mapped as a series of chunks that are read one after the other. The OS page cache does all of the buffering, only
+ * the small decoding window lives on the heap.
+ */
+class MappedFileSource extends ByteBufferSource {
+    static final long CHUNK_SIZE = 1L << 30;
+
+    private final ByteBuffer[] chunks;
+    private int chunk;
+
+    private MappedFileSource(ByteBuffer[] chunks) {
+        super(chunks[0]);
+        this.chunks = chunks;
+    }
+
+    static MappedFileSource open(Path path) throws IOException {
+        return new MappedFileSource(map(path, CHUNK_SIZE));
+    }
+
+    static MappedFileSource open(Path path, long chunkSize) throws IOException {
+        return new MappedFileSource(map(path, chunkSize));
+    }
+
+    /**
+     * Map the entire file at {@code path} as read-only chunks of at most {@code chunkSize} bytes. The channel is
+     * closed before returning, the mappings remain valid until they are garbage collected.
+     */
+    static ByteBuffer[] map(Path path, long chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int count = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            ByteBuffer[] chunks = new ByteBuffer[count];
+
+            for (int i = 0; i < count; i++) {
+                long start = i * chunkSize;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+            }
+
+            return chunks;
+        }
+    }
+
+    @Override
+    boolean fill() throws IOException {
+        while (!super.fill()) {
+            if (chunk + 1 >= chunks.length) {
+                return false;
+            }
+
+            input = chunks[++chunk];
+        }
+
+        return true;
+    }
+}
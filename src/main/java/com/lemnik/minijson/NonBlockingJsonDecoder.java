@@ -0,0 +1,577 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+
+/**
+ * <p>
+ * A resumable decoder for UTF-8 encoded JSON that arrives in arbitrarily split chunks, such as network buffers. It
+ * never blocks: input is handed over with {@link #feed(ByteBuffer)}, and {@link #nextToken()} returns
+ * {@link JsonToken#NEED_MORE_INPUT} whenever the chunk runs out part way through. Only the token currently being read
+ * is held in memory, never the whole message.
+ * </p><p>
+ * A typical event loop feeds each buffer as it arrives and pulls tokens (or complete values with
+ * {@link #nextJsonValue()}) until more input is needed, then calls {@link #endOfInput()} once the stream is closed.
+ * Any number of top-level values may follow each other in the stream, separated by whitespace such as the newlines
+ * of NDJSON.
+ * </p>
+ */
+public class NonBlockingJsonDecoder {
+    private static final int EXPECT_VALUE = 0;
+    private static final int EXPECT_VALUE_OR_END_ARRAY = 1;
+    private static final int EXPECT_NAME_OR_END_OBJECT = 2;
+    private static final int EXPECT_NAME = 3;
+    private static final int EXPECT_COLON = 4;
+    /**
+     * A value has been read: expect a comma or the end of the current container, or another top-level value.
+     */
+    private static final int EXPECT_SEPARATOR = 5;
+
+    private static final int PARTIAL_NONE = 0;
+    private static final int PARTIAL_STRING = 1;
+    private static final int PARTIAL_NAME = 2;
+    private static final int PARTIAL_NUMBER = 3;
+    private static final int PARTIAL_LITERAL = 4;
+
+    private static final int ESCAPE_NONE = 0;
+    private static final int ESCAPE_STARTED = -1;
+
+    private ByteBuffer input;
+    private boolean endOfInput;
+
+    private int expect = EXPECT_VALUE;
+
+    /**
+     * Whether whitespace has been read since the last value ended, which is required between top-level values.
+     */
+    private boolean separated;
+
+    /**
+     * The token most recently returned by {@link #nextToken()}.
+     */
+    private JsonToken token;
+
+    private JsonKeyCache keyCache = new JsonKeyCache(JsonKeyCache.DEFAULT_CAPACITY);
+
+    /**
+     * One entry per open container, {@code true} for objects and {@code false} for arrays.
+     */
+    private boolean[] scopes = new boolean[32];
+    private int depth;
+
+    private int partial = PARTIAL_NONE;
+
+    /**
+     * {@link #ESCAPE_NONE}, {@link #ESCAPE_STARTED} after a backslash, or one more than the number of hex digits read
+     * so far in a unicode escape.
+     */
+    private int escape;
+    private int unicodeEscape;
+
+    private int utf8Remaining;
+    private int utf8CodePoint;
+    private int utf8Minimum;
+
+    private String literal;
+    private int literalIndex;
+    private JsonToken literalToken;
+    private boolean booleanValue;
+
+    private final StringBuilder text = new StringBuilder();
+    private final NumberParser numberParser = new NumberParser();
+
+    private final List<Object> containers = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+
+    /**
+     * Hand over the next chunk of input, which is read from its current position as tokens are pulled. The buffer
+     * belongs to this decoder until {@link #nextToken()} has returned {@link JsonToken#NEED_MORE_INPUT}.
+     *
+     * @throws IllegalStateException if the previous chunk has not been fully consumed, or {@link #endOfInput()} has
+     *                               been called
+     */
+    public void feed(ByteBuffer input) {
+        if (endOfInput) {
+            throw new IllegalStateException("endOfInput() has already been called");
+        } else if (this.input != null && this.input.hasRemaining()) {
+            throw new IllegalStateException("the previous input has not been fully consumed");
+        }
+
+        this.input = input;
+    }
+
+    /**
+     * Signal that there is no more input. Any remaining tokens can then be read, ending with
+     * {@link JsonToken#END_DOCUMENT}.
+     */
+    public void endOfInput() {
+        endOfInput = true;
+    }
+
+    /**
+     * Read the next token, or return {@link JsonToken#NEED_MORE_INPUT} if the current input has been consumed
+     * without completing one. Once the input has ended {@link JsonToken#END_DOCUMENT} is returned indefinitely.
+     *
+     * @throws IOException if the input is not valid JSON
+     */
+    public JsonToken nextToken() throws IOException {
+        return token = readToken();
+    }
+
+    /**
+     * The token most recently returned by {@link #nextToken()}, or {@code null} before the first. After
+     * {@link #nextJsonValue()} returns {@code null} this tells apart {@link JsonToken#NEED_MORE_INPUT} and
+     * {@link JsonToken#END_DOCUMENT}.
+     */
+    public JsonToken getToken() {
+        return token;
+    }
+
+    private JsonToken readToken() throws IOException {
+        JsonToken token;
+        if (partial != PARTIAL_NONE) {
+            token = continuePartial();
+            return token != null ? token : JsonToken.NEED_MORE_INPUT;
+        }
+
+        while (input != null && input.hasRemaining()) {
+            int b = input.get() & 0xff;
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                separated = true;
+                continue;
+            }
+
+            token = startToken(b);
+            if (token != null) {
+                return token;
+            } else if (partial != PARTIAL_NONE) {
+                token = continuePartial();
+                return token != null ? token : JsonToken.NEED_MORE_INPUT;
+            }
+        }
+
+        if (!endOfInput) {
+            return JsonToken.NEED_MORE_INPUT;
+        } else if (depth != 0 || expect == EXPECT_COLON) {
+            throw new IOException("unexpected EOF");
+        }
+
+        return JsonToken.END_DOCUMENT;
+    }
+
+    /**
+     * <p>
+     * Read tokens until a complete top-level value is available, and return it as it would be returned by
+     * {@link JsonDecoder#nextJsonValue()}. Returns {@code null} if more input is needed first, or if there are no
+     * more values, which {@link #getToken()} then tells apart. Partially built values are kept between calls.
+     * </p><p>
+     * This should not be mixed with calls to {@link #nextToken()} within the same top-level value.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public Object nextJsonValue() throws IOException {
+        for (; ; ) {
+            Object value;
+            switch (nextToken()) {
+                case NEED_MORE_INPUT:
+                case END_DOCUMENT:
+                    return null;
+                case BEGIN_OBJECT:
+                    containers.add(new LinkedHashMap<String, Object>());
+                    continue;
+                case BEGIN_ARRAY:
+                    containers.add(new ArrayList<>());
+                    continue;
+                case NAME:
+                    keys.add(keyCache != null ? keyCache.intern(text) : text.toString());
+                    continue;
+                case END_OBJECT:
+                    value = containers.remove(containers.size() - 1);
+                    if (((Map<String, Object>) value).isEmpty()) {
+                        value = emptyMap();
+                    }
+                    break;
+                case END_ARRAY:
+                    value = containers.remove(containers.size() - 1);
+                    if (((List<Object>) value).isEmpty()) {
+                        value = emptyList();
+                    }
+                    break;
+                case STRING:
+                    value = text.length() != 0 ? text.toString() : "";
+                    break;
+                case NUMBER:
+                    try {
+                        value = getNumber();
+                    } catch (NumberFormatException nfe) {
+                        throw new IOException(nfe.getMessage(), nfe);
+                    }
+                    break;
+                case BOOLEAN:
+                    value = booleanValue ? Boolean.TRUE : Boolean.FALSE;
+                    break;
+                case NULL:
+                    value = Json.NULL;
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+
+            if (containers.isEmpty()) {
+                return value;
+            }
+
+            Object container = containers.get(containers.size() - 1);
+            if (container instanceof Map) {
+                ((Map<String, Object>) container).put(keys.remove(keys.size() - 1), value);
+            } else {
+                ((List<Object>) container).add(value);
+            }
+        }
+    }
+
+    /**
+     * Set the cache used for the property names of objects built by {@link #nextJsonValue()}, or {@code null} to
+     * allocate a new {@code String} for every name. Defaults to a small cache belonging to this decoder.
+     */
+    public void setKeyCache(JsonKeyCache keyCache) {
+        this.keyCache = keyCache;
+    }
+
+    /**
+     * The content of the last {@link JsonToken#NAME}, {@link JsonToken#STRING} or {@link JsonToken#NUMBER} token.
+     * The returned buffer is reused, and only valid until the next call to {@link #nextToken()}.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    public String getString() {
+        return text.toString();
+    }
+
+    public boolean getBoolean() {
+        return booleanValue;
+    }
+
+    public long getLong() {
+        numberParser.scan(text);
+        return numberParser.toLong();
+    }
+
+    public double getDouble() {
+        numberParser.scan(text);
+        return numberParser.toDouble();
+    }
+
+    /**
+     * The last {@link JsonToken#NUMBER} as it would be returned by {@link JsonDecoder#nextJsonValue()}.
+     */
+    public Number getNumber() {
+        numberParser.scan(text);
+        return numberParser.toNumber(false);
+    }
+
+    private JsonToken startToken(int b) throws IOException {
+        switch (expect) {
+            case EXPECT_SEPARATOR:
+                if (depth == 0) {
+                    if (!separated) {
+                        throw unexpected(b, "whitespace between top-level values");
+                    }
+
+                    return startValue(b);
+                } else if (b == ',') {
+                    expect = scopes[depth - 1] ? EXPECT_NAME : EXPECT_VALUE;
+                    return null;
+                } else if (b == (scopes[depth - 1] ? '}' : ']')) {
+                    return endScope();
+                }
+
+                throw unexpected(b, scopes[depth - 1] ? ", or }" : ", or ]");
+            case EXPECT_COLON:
+                if (b == ':') {
+                    expect = EXPECT_VALUE;
+                    return null;
+                }
+
+                throw unexpected(b, ":");
+            case EXPECT_NAME_OR_END_OBJECT:
+                return b == '}' ? endScope() : startName(b);
+            case EXPECT_NAME:
+                return startName(b);
+            case EXPECT_VALUE_OR_END_ARRAY:
+                return b == ']' ? endScope() : startValue(b);
+            default:
+                return startValue(b);
+        }
+    }
+
+    private JsonToken startName(int b) throws IOException {
+        if (b != '"') {
+            throw unexpected(b, "\"");
+        }
+
+        startString(PARTIAL_NAME);
+        return null;
+    }
+
+    private JsonToken startValue(int b) throws IOException {
+        switch (b) {
+            case '{':
+                push(true);
+                expect = EXPECT_NAME_OR_END_OBJECT;
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                push(false);
+                expect = EXPECT_VALUE_OR_END_ARRAY;
+                return JsonToken.BEGIN_ARRAY;
+            case '"':
+                startString(PARTIAL_STRING);
+                return null;
+            case 't':
+                startLiteral("rue", JsonToken.BOOLEAN, true);
+                return null;
+            case 'f':
+                startLiteral("alse", JsonToken.BOOLEAN, false);
+                return null;
+            case 'n':
+                startLiteral("ull", JsonToken.NULL, false);
+                return null;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                partial = PARTIAL_NUMBER;
+                text.setLength(0);
+                text.append((char) b);
+                return null;
+            default:
+                throw unexpected(b, "a value");
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+
+        scopes[depth++] = object;
+    }
+
+    private JsonToken endScope() {
+        expect = EXPECT_SEPARATOR;
+        separated = false;
+        return scopes[--depth] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+    }
+
+    private void startString(int kind) {
+        partial = kind;
+        escape = ESCAPE_NONE;
+        utf8Remaining = 0;
+        text.setLength(0);
+    }
+
+    private void startLiteral(String remaining, JsonToken token, boolean value) {
+        partial = PARTIAL_LITERAL;
+        literal = remaining;
+        literalIndex = 0;
+        literalToken = token;
+        booleanValue = value;
+    }
+
+    private JsonToken completeValue(JsonToken token) {
+        partial = PARTIAL_NONE;
+        expect = EXPECT_SEPARATOR;
+        separated = false;
+        return token;
+    }
+
+    /**
+     * Continue reading the partial token, returning it once it has been completed or {@code null} if more input is
+     * needed.
+     */
+    private JsonToken continuePartial() throws IOException {
+        switch (partial) {
+            case PARTIAL_STRING:
+            case PARTIAL_NAME:
+                return continueString();
+            case PARTIAL_NUMBER:
+                return continueNumber();
+            default:
+                return continueLiteral();
+        }
+    }
+
+    private JsonToken continueString() throws IOException {
+        final ByteBuffer input = this.input;
+        while (input != null && input.hasRemaining()) {
+            int b = input.get();
+
+            if (utf8Remaining > 0) {
+                continueUtf8(b);
+            } else if (escape != ESCAPE_NONE) {
+                continueEscape(b);
+            } else if (b == '"') {
+                if (partial == PARTIAL_NAME) {
+                    partial = PARTIAL_NONE;
+                    expect = EXPECT_COLON;
+                    return JsonToken.NAME;
+                }
+
+                return completeValue(JsonToken.STRING);
+            } else if (b == '\\') {
+                escape = ESCAPE_STARTED;
+            } else if (b >= 0) {
+                text.append((char) b);
+            } else {
+                startUtf8(b & 0xff);
+            }
+        }
+
+        if (endOfInput) {
+            throw new IOException("unexpected EOF while reading string");
+        }
+
+        return null;
+    }
+
+    private void startUtf8(int lead) throws IOException {
+        if ((lead & 0xe0) == 0xc0) {
+            utf8Remaining = 1;
+            utf8CodePoint = lead & 0x1f;
+            utf8Minimum = 0x80;
+        } else if ((lead & 0xf0) == 0xe0) {
+            utf8Remaining = 2;
+            utf8CodePoint = lead & 0x0f;
+            utf8Minimum = 0x800;
+        } else if ((lead & 0xf8) == 0xf0) {
+            utf8Remaining = 3;
+            utf8CodePoint = lead & 0x07;
+            utf8Minimum = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+        } else {
+            throw new IOException("malformed UTF-8 sequence starting with 0x" + Integer.toHexString(lead));
+        }
+    }
+
+    private void continueUtf8(int b) throws IOException {
+        if ((b & 0xc0) != 0x80) {
+            throw new IOException("malformed UTF-8 continuation byte: 0x" + Integer.toHexString(b & 0xff));
+        }
+
+        utf8CodePoint = (utf8CodePoint << 6) | (b & 0x3f);
+        if (--utf8Remaining == 0) {
+            if (utf8CodePoint < utf8Minimum
+                    || utf8CodePoint > Character.MAX_CODE_POINT
+                    || (utf8CodePoint >= Character.MIN_SURROGATE && utf8CodePoint <= Character.MAX_SURROGATE)) {
+                throw new IOException("malformed UTF-8 sequence for U+" + Integer.toHexString(utf8CodePoint));
+            }
+
+            text.appendCodePoint(utf8CodePoint);
+        }
+    }
+
+    private void continueEscape(int b) throws IOException {
+        if (escape == ESCAPE_STARTED) {
+            escape = ESCAPE_NONE;
+            switch (b) {
+                case '"':
+                case '\'':
+                case '/':
+                case '\\':
+                    text.append((char) b);
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    escape = 1;
+                    unicodeEscape = 0;
+                    break;
+                default:
+                    throw new IOException("unexpected escape character: " + (char) (b & 0xff));
+            }
+        } else {
+            int digit;
+            if (b >= '0' && b <= '9') digit = b - 0x30;
+            else if (b >= 'a' && b <= 'f') digit = b - 0x57;
+            else if (b >= 'A' && b <= 'F') digit = b - 0x37;
+            else throw new IOException("expected a hex digit, got '" + (char) (b & 0xff) + '\'');
+
+            unicodeEscape = (unicodeEscape << 4) | digit;
+            if (escape++ == 4) {
+                escape = ESCAPE_NONE;
+                text.append((char) unicodeEscape);
+            }
+        }
+    }
+
+    private JsonToken continueNumber() {
+        final ByteBuffer input = this.input;
+        while (input != null && input.hasRemaining()) {
+            int b = input.get();
+            if (!JsonSource.isNumberChar(b)) {
+                // the number has ended, the terminating byte belongs to whatever comes next
+                input.position(input.position() - 1);
+                return completeValue(JsonToken.NUMBER);
+            }
+
+            text.append((char) b);
+        }
+
+        // a number can only be known to be complete once the next byte (or the end of input) is seen
+        return endOfInput ? completeValue(JsonToken.NUMBER) : null;
+    }
+
+    private JsonToken continueLiteral() throws IOException {
+        final ByteBuffer input = this.input;
+        while (input != null && input.hasRemaining()) {
+            int b = input.get();
+            if (b != literal.charAt(literalIndex)) {
+                throw new IOException("Unexpected '" + (char) (b & 0xff) + "', expected '"
+                        + literal.charAt(literalIndex) + '\'');
+            }
+
+            if (++literalIndex == literal.length()) {
+                return completeValue(literalToken);
+            }
+        }
+
+        if (endOfInput) {
+            throw new IOException("unexpected EOF");
+        }
+
+        return null;
+    }
+
+    private static IOException unexpected(int b, String expected) {
+        return new IOException("unexpected '" + (char) b + "' expected " + expected);
+    }
+}
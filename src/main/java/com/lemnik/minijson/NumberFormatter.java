@@ -0,0 +1,334 @@
+package com.lemnik.minijson;
+
+import java.math.BigInteger;
+
+/**
+ * <p>
+ * Formats {@code long} and {@code double} values straight into a {@code char[]}, so that encoders can write numbers
+ * into their output buffers without allocating a {@code String} for each one.
+ * </p><p>
+ * Doubles are written with the fewest significant digits that read back as exactly the same {@code double}, using
+ * Giulietti's Schubfach algorithm with a 128-bit approximation of each power of ten, and in the same layout as
+ * {@code Double.toString}: plain notation from 10<sup>-3</sup> up to 10<sup>7</sup>, computerized scientific notation
+ * otherwise, and always at least one digit after the decimal point.
+ * </p><p>
+ * The digits match {@code Double.toString} from JDK 19, which uses the same algorithm. Earlier versions sometimes
+ * write more digits than needed, such as {@code 1.9999999999999998E23} for {@code 2.0E23}, so on those JDKs the output
+ * is not always identical to {@code Double.toString}: it is the shortest, and reads back as the same {@code double}.
+ * </p>
+ */
+final class NumberFormatter {
+    /**
+     * The most characters written for any {@code long} or {@code double}, such as {@code -1.2345678901234567E-308}.
+     */
+    static final int MAX_LENGTH = 24;
+
+    private static final char[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).toCharArray();
+    private static final char[] NAN = "NaN".toCharArray();
+    private static final char[] INFINITY = "Infinity".toCharArray();
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The two digits of every number from 0 to 99, so that digits can be produced two at a time.
+     */
+    private static final char[] DIGIT_PAIRS = new char[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (char) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (char) ('0' + i % 10);
+        }
+    }
+
+    // the binary format of a double
+    private static final int PRECISION = 53;
+    private static final int EXPONENT_MASK = 0x7ff;
+    private static final long SIGNIFICAND_MASK = (1L << (PRECISION - 1)) - 1;
+    private static final long HIDDEN_BIT = 1L << (PRECISION - 1);
+    private static final int Q_MIN = -1074;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    /**
+     * Subnormal significands below this have too few digits for the shortest decimal to be found directly, and are
+     * scaled up by ten first.
+     */
+    private static final long C_TINY = 3;
+
+    private NumberFormatter() {
+    }
+
+    /**
+     * Write {@code value} in decimal to {@code out} from {@code offset}, which must have at least {@link #MAX_LENGTH}
+     * characters available.
+     *
+     * @return the offset just after the last character written
+     */
+    static int formatLong(long value, char[] out, int offset) {
+        if (value == Long.MIN_VALUE) {
+            System.arraycopy(LONG_MIN_VALUE, 0, out, offset, LONG_MIN_VALUE.length);
+            return offset + LONG_MIN_VALUE.length;
+        } else if (value < 0) {
+            out[offset++] = '-';
+            value = -value;
+        }
+
+        final int end = offset + digitCount(value);
+        int position = end;
+        while (value >= 100) {
+            long quotient = value / 100;
+            int pair = (int) (value - quotient * 100) << 1;
+            out[--position] = DIGIT_PAIRS[pair + 1];
+            out[--position] = DIGIT_PAIRS[pair];
+            value = quotient;
+        }
+
+        if (value >= 10) {
+            out[--position] = DIGIT_PAIRS[((int) value << 1) + 1];
+            out[--position] = DIGIT_PAIRS[(int) value << 1];
+        } else {
+            out[--position] = (char) ('0' + value);
+        }
+
+        return end;
+    }
+
+    /**
+     * The number of decimal digits in the non-negative {@code value}.
+     */
+    private static int digitCount(long value) {
+        // an estimate from the bit length that is exact or one too small
+        value |= 1;
+        int estimate = ((64 - Long.numberOfLeadingZeros(value)) * 1233) >>> 12;
+        return value >= POWERS_OF_TEN[estimate] ? estimate + 1 : estimate;
+    }
+
+    /**
+     * Write the shortest decimal that uniquely identifies {@code value} to {@code out} from {@code offset}, which must
+     * have at least {@link #MAX_LENGTH} characters available. {@code NaN} and the infinities are written as
+     * {@code Double.toString} writes them.
+     *
+     * @return the offset just after the last character written
+     */
+    static int formatDouble(double value, char[] out, int offset) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long t = bits & SIGNIFICAND_MASK;
+        final int exponent = (int) (bits >>> (PRECISION - 1)) & EXPONENT_MASK;
+
+        if (exponent == EXPONENT_MASK) {
+            if (t != 0) {
+                return copy(NAN, out, offset);
+            } else if (bits < 0) {
+                out[offset++] = '-';
+            }
+
+            return copy(INFINITY, out, offset);
+        }
+
+        if (bits < 0) {
+            out[offset++] = '-';
+        }
+
+        if (exponent != 0) {
+            final int mq = -Q_MIN + 1 - exponent;
+            final long c = HIDDEN_BIT | t;
+            if (0 < mq && mq < PRECISION) {
+                // an integer below 2^53 is exact, and its own shortest decimal
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return formatDecimal(f, 0, out, offset);
+                }
+            }
+
+            return toDecimal(-mq, c, 0, out, offset);
+        } else if (t != 0) {
+            return t < C_TINY
+                    ? toDecimal(Q_MIN, 10 * t, -1, out, offset)
+                    : toDecimal(Q_MIN, t, 0, out, offset);
+        }
+
+        out[offset] = '0';
+        out[offset + 1] = '.';
+        out[offset + 2] = '0';
+        return offset + 3;
+    }
+
+    private static int copy(char[] chars, char[] out, int offset) {
+        System.arraycopy(chars, 0, out, offset, chars.length);
+        return offset + chars.length;
+    }
+
+    /**
+     * Find the shortest decimal {@code f * 10^e} within the rounding interval of {@code c * 2^q}, closest to it when
+     * several qualify, and format it.
+     */
+    private static int toDecimal(int q, long c, int dk, char[] out, int offset) {
+        final int out1 = (int) c & 1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+
+        if (c != HIDDEN_BIT || q == Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        } else {
+            // the interval below a power of two is half as wide
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+
+        final int h = q + floorLog2Pow10(-k) + 2;
+        final int index = (k - PowersOfTen.SMALLEST) << 1;
+        final long g1 = PowersOfTen.TABLE[index];
+        final long g0 = PowersOfTen.TABLE[index + 1];
+
+        final long vb = roundToOdd(g1, g0, cb << h);
+        final long vbl = roundToOdd(g1, g0, cbl << h);
+        final long vbr = roundToOdd(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit fewer first: sp10 = 10 * floor(s / 10)
+            long sp10 = 10 * NumberParser.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out1 <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out1 <= vbr;
+            if (upin != wpin) {
+                return formatDecimal(upin ? sp10 : tp10, k, out, offset);
+            }
+        }
+
+        final long t = s + 1;
+        boolean uin = vbl + out1 <= s << 2;
+        boolean win = (t << 2) + out1 <= vbr;
+        if (uin != win) {
+            return formatDecimal(uin ? s : t, k + dk, out, offset);
+        }
+
+        // both candidates are in the interval: take the closer, or the even one on a tie
+        long cmp = vb - ((s + t) << 1);
+        return formatDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, out, offset);
+    }
+
+    /**
+     * Computes {@code cp * g * 2^-127} rounded to odd, where {@code g = g1 * 2^63 + g0}.
+     */
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = NumberParser.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = NumberParser.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    private static int floorLog10Pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int floorLog10ThreeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    private static int floorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Write {@code f * 10^e} in the layout of {@code Double.toString}, where {@code f} is positive.
+     */
+    private static int formatDecimal(long f, int e, char[] out, int offset) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+
+        // the digits are written first, and then moved into place around the decimal point
+        final int length = formatLong(f, out, offset) - offset;
+        // the value is 0.<digits> * 10^point
+        final int point = e + length;
+
+        if (point > 0 && point <= 7) {
+            if (point >= length) {
+                int end = offset + length;
+                while (end < offset + point) {
+                    out[end++] = '0';
+                }
+
+                out[end] = '.';
+                out[end + 1] = '0';
+                return end + 2;
+            }
+
+            System.arraycopy(out, offset + point, out, offset + point + 1, length - point);
+            out[offset + point] = '.';
+            return offset + length + 1;
+        } else if (point > -3 && point <= 0) {
+            final int zeros = 2 - point;
+            System.arraycopy(out, offset, out, offset + zeros, length);
+            out[offset] = '0';
+            out[offset + 1] = '.';
+            for (int i = 2; i < zeros; i++) {
+                out[offset + i] = '0';
+            }
+
+            return offset + zeros + length;
+        }
+
+        int end;
+        if (length == 1) {
+            out[offset + 1] = '.';
+            out[offset + 2] = '0';
+            end = offset + 3;
+        } else {
+            System.arraycopy(out, offset + 1, out, offset + 2, length - 1);
+            out[offset + 1] = '.';
+            end = offset + length + 1;
+        }
+
+        out[end++] = 'E';
+        return formatLong(point - 1, out, end);
+    }
+
+    /**
+     * 128-bit approximations of every power of ten a {@code double} may need, computed once on first use rather than
+     * being carried as a 10KB table in the class file. For each {@code k} the entry is {@code g = floor(10^-k * 2^-r)
+     * + 1}, with {@code r} chosen so that {@code 2^125 <= g < 2^126}, split into 63-bit words.
+     */
+    private static final class PowersOfTen {
+        static final int SMALLEST = -324;
+        static final int LARGEST = 292;
+
+        /**
+         * Pairs of high and low 63-bit words, for each power from {@link #SMALLEST} to {@link #LARGEST}.
+         */
+        static final long[] TABLE = new long[2 * (LARGEST - SMALLEST + 1)];
+
+        static {
+            for (int k = SMALLEST; k <= LARGEST; k++) {
+                BigInteger g;
+                if (k <= 0) {
+                    BigInteger power = BigInteger.TEN.pow(-k);
+                    int shift = power.bitLength() - 126;
+                    g = shift >= 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+                } else {
+                    BigInteger divisor = BigInteger.TEN.pow(k);
+                    g = BigInteger.ONE.shiftLeft(divisor.bitLength() + 125).divide(divisor);
+                }
+
+                g = g.add(BigInteger.ONE);
+                int index = 2 * (k - SMALLEST);
+                TABLE[index] = g.shiftRight(63).longValue();
+                TABLE[index + 1] = g.longValue() & MASK_63;
+            }
+        }
+    }
+}
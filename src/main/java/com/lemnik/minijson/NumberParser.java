@@ -0,0 +1,369 @@
+package com.lemnik.minijson;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * <p>
+ * Parses JSON number literals by accumulating their digits directly, without allocating or throwing for any number
+ * that fits in a {@code long} or {@code double}. An instance is reusable scratch space for a single thread: call
+ * {@link #scan(CharSequence)} and then one of the {@code to...} methods.
+ * </p><p>
+ * Integers are returned exactly as {@code Integer} or {@code Long}. Doubles are correctly rounded: first by the
+ * classic exact fast-path (Clinger) when the digits and power of ten both fit in a {@code double}, then by the
+ * Eisel-Lemire algorithm using a 128-bit approximation of the power of ten, and only for the rare ambiguous case of
+ * more than 19 significant digits by falling back to {@code Double.parseDouble}.
+ * </p>
+ */
+final class NumberParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The number of decimal digits that can always be accumulated in an unsigned 64-bit mantissa.
+     */
+    private static final int MAX_MANTISSA_DIGITS = 19;
+
+    /**
+     * The most significant digits a {@code double} can round-trip, beyond this big-number mode uses
+     * {@code BigDecimal}.
+     */
+    private static final int MAX_DOUBLE_DIGITS = 17;
+
+    private static final long INFINITY_BITS = 0x7ff0000000000000L;
+
+    private CharSequence text;
+    private boolean negative;
+    private boolean integral;
+    private boolean truncated;
+
+    /**
+     * The first {@link #MAX_MANTISSA_DIGITS} significant digits as an unsigned value.
+     */
+    private long mantissa;
+
+    /**
+     * The power of ten that {@link #mantissa} must be scaled by.
+     */
+    private int exponent;
+    private int digits;
+
+    /**
+     * Scan {@code number}, which must remain unchanged until the value has been retrieved.
+     *
+     * @throws NumberFormatException if {@code number} is not a valid JSON number literal
+     */
+    void scan(CharSequence number) {
+        final int length = number.length();
+        int index = 0;
+
+        boolean negative = false;
+        if (index < length && number.charAt(index) == '-') {
+            negative = true;
+            index++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean integral = true;
+        char ch;
+
+        int start = index;
+        while (index < length && (ch = number.charAt(index)) >= '0' && ch <= '9') {
+            if (digits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) digits++;
+            } else {
+                exponent++;
+                truncated |= ch != '0';
+            }
+
+            index++;
+        }
+
+        if (index == start) {
+            throw invalid(number);
+        }
+
+        if (index < length && number.charAt(index) == '.') {
+            integral = false;
+            start = ++index;
+            while (index < length && (ch = number.charAt(index)) >= '0' && ch <= '9') {
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                } else {
+                    truncated |= ch != '0';
+                }
+
+                index++;
+            }
+
+            if (index == start) {
+                throw invalid(number);
+            }
+        }
+
+        if (index < length && ((ch = number.charAt(index)) == 'e' || ch == 'E')) {
+            integral = false;
+            index++;
+
+            boolean negativeExponent = false;
+            if (index < length && ((ch = number.charAt(index)) == '-' || ch == '+')) {
+                negativeExponent = ch == '-';
+                index++;
+            }
+
+            int explicitExponent = 0;
+            start = index;
+            while (index < length && (ch = number.charAt(index)) >= '0' && ch <= '9') {
+                // anything beyond this is zero or infinity anyway, don't let it overflow
+                if (explicitExponent < 100_000) {
+                    explicitExponent = explicitExponent * 10 + (ch - '0');
+                }
+
+                index++;
+            }
+
+            if (index == start) {
+                throw invalid(number);
+            }
+
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (index != length) {
+            throw invalid(number);
+        }
+
+        this.text = number;
+        this.negative = negative;
+        this.integral = integral;
+        this.truncated = truncated;
+        this.mantissa = mantissa;
+        this.exponent = exponent;
+        this.digits = digits;
+    }
+
+    /**
+     * Whether the last number scanned was written as an integer (without fraction or exponent) that fits in a
+     * {@code long}.
+     */
+    boolean isLong() {
+        return integral && exponent == 0 && (mantissa >= 0 || (negative && mantissa == Long.MIN_VALUE));
+    }
+
+    /**
+     * The last number scanned, which must satisfy {@link #isLong()}.
+     */
+    long longValue() {
+        return negative ? -mantissa : mantissa;
+    }
+
+    /**
+     * The last number scanned as a {@code long}, which may be written with a fraction or exponent as long as its
+     * value is an exact integer.
+     *
+     * @throws NumberFormatException if the value is not an integer within the range of {@code long}
+     */
+    long toLong() {
+        if (isLong()) {
+            return longValue();
+        }
+
+        double value = toDouble();
+        if (value != (long) value || value == Long.MAX_VALUE) {
+            throw new NumberFormatException("not a long: " + text);
+        }
+
+        return (long) value;
+    }
+
+    /**
+     * The last number scanned, correctly rounded to the nearest {@code double}.
+     */
+    double toDouble() {
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (!truncated && mantissa >= 0 && mantissa <= 1L << 53 && exponent >= -22 && exponent <= 22) {
+            // both the mantissa and power of ten are exact doubles, so a single operation rounds correctly
+            value = exponent >= 0
+                    ? (double) mantissa * POWERS_OF_TEN[exponent]
+                    : (double) mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            long bits = eiselLemire(mantissa, exponent);
+            // the dropped digits place the true value between mantissa and mantissa + 1
+            if (truncated && bits != eiselLemire(mantissa + 1, exponent)) {
+                return Double.parseDouble(text.toString());
+            }
+
+            value = Double.longBitsToDouble(bits);
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * The last number scanned as an {@code Integer}, {@code Long} or {@code Double}. When {@code bigNumbers} is
+     * {@code true}, integers beyond the range of {@code long} are returned as {@code BigInteger}, and decimals with more
+     * digits or a larger exponent than a {@code double} can hold are returned as {@code BigDecimal}.
+     */
+    Number toNumber(boolean bigNumbers) {
+        if (isLong()) {
+            long value = longValue();
+            if (value == (int) value) {
+                return Integer.valueOf((int) value);
+            }
+
+            return Long.valueOf(value);
+        }
+
+        if (bigNumbers) {
+            if (integral) {
+                return new BigInteger(text.toString());
+            } else if (truncated || digits > MAX_DOUBLE_DIGITS) {
+                return new BigDecimal(text.toString());
+            }
+        }
+
+        double value = toDouble();
+        if (bigNumbers && (Double.isInfinite(value) || (value == 0 && mantissa != 0))) {
+            return new BigDecimal(text.toString());
+        }
+
+        return Double.valueOf(value);
+    }
+
+    private static NumberFormatException invalid(CharSequence number) {
+        return new NumberFormatException("malformed number: " + number);
+    }
+
+    /**
+     * Returns the bits of the {@code double} nearest to {@code w * 10^q}, where {@code w} is unsigned.
+     *
+     * @see <a href="https://arxiv.org/abs/2101.11408">Number Parsing at a Gigabyte per Second</a>
+     */
+    static long eiselLemire(long w, int q) {
+        if (w == 0 || q < PowersOfFive.SMALLEST) {
+            return 0;
+        } else if (q > PowersOfFive.LARGEST) {
+            return INFINITY_BITS;
+        }
+
+        int leadingZeros = Long.numberOfLeadingZeros(w);
+        w <<= leadingZeros;
+
+        int index = 2 * (q - PowersOfFive.SMALLEST);
+        long high = multiplyHigh(w, PowersOfFive.TABLE[index]);
+        long low = w * PowersOfFive.TABLE[index];
+
+        // only when the bits that will be rounded away are all ones can the lower half of the power change the result
+        if ((high & 0x1ff) == 0x1ff) {
+            long secondHigh = multiplyHigh(w, PowersOfFive.TABLE[index + 1]);
+            long sum = low + secondHigh;
+            if (Long.compareUnsigned(secondHigh, sum) > 0) {
+                high++;
+            }
+
+            low = sum;
+        }
+
+        int upperBit = (int) (high >>> 63);
+        long mantissa = high >>> (upperBit + 9);
+        int power2 = (((152170 + 65536) * q) >> 16) + 63 + upperBit - leadingZeros + 1023;
+
+        if (power2 <= 0) {
+            // subnormal
+            if (-power2 + 1 >= 64) {
+                return 0;
+            }
+
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < (1L << 52) ? 0 : 1;
+            return ((long) power2 << 52) | mantissa;
+        }
+
+        // exactly half-way between two doubles: round to even rather than up
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && (mantissa << (upperBit + 9)) == high) {
+            mantissa &= ~1L;
+        }
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= (2L << 52)) {
+            mantissa = 1L << 52;
+            power2++;
+        }
+
+        mantissa &= ~(1L << 52);
+        if (power2 >= 0x7ff) {
+            return INFINITY_BITS;
+        }
+
+        return ((long) power2 << 52) | mantissa;
+    }
+
+    /**
+     * The upper 64 bits of the unsigned 128-bit product of {@code x} and {@code y}.
+     */
+    static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xffffffffL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xffffffffL;
+        long y1 = y >>> 32;
+
+        long w0 = x0 * y0;
+        long t = x1 * y0 + (w0 >>> 32);
+        long w1 = x0 * y1 + (t & 0xffffffffL);
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
+    /**
+     * 128-bit approximations of every power of five a {@code double} may need, computed once on first use rather
+     * than being carried as a 10KB table in the class file.
+     */
+    private static final class PowersOfFive {
+        static final int SMALLEST = -342;
+        static final int LARGEST = 308;
+
+        /**
+         * Pairs of high and low 64-bit words, for each power from {@link #SMALLEST} to {@link #LARGEST}.
+         */
+        static final long[] TABLE = new long[2 * (LARGEST - SMALLEST + 1)];
+
+        static {
+            BigInteger five = BigInteger.valueOf(5);
+            for (int q = SMALLEST; q <= LARGEST; q++) {
+                BigInteger power;
+                if (q >= 0) {
+                    // the power itself, truncated or extended to exactly 128 significant bits
+                    power = five.pow(q);
+                    int shift = 128 - power.bitLength();
+                    power = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+                } else {
+                    // the reciprocal, rounded up and then truncated to exactly 128 significant bits
+                    BigInteger divisor = five.pow(-q);
+                    int z = divisor.bitLength();
+                    int b = q >= -27 ? z + 127 : 2 * z + 128;
+                    power = BigInteger.ONE.shiftLeft(b).divide(divisor).add(BigInteger.ONE);
+                    if (power.bitLength() > 128) {
+                        power = power.shiftRight(power.bitLength() - 128);
+                    }
+                }
+
+                int index = 2 * (q - SMALLEST);
+                TABLE[index] = power.shiftRight(64).longValue();
+                TABLE[index + 1] = power.longValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Shared handling of the tasks used to decode and encode large arrays and objects in parallel.
+ */
+final class ParallelTasks {
+    /**
+     * Collections are only split into tasks when each task would have at least this many elements.
+     */
+    static final int MIN_ELEMENTS_PER_TASK = 256;
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * The number of tasks to split {@code size} elements into, {@code 1} if it is not worth splitting them at all.
+     */
+    static int taskCount(int size) {
+        return Math.max(1, Math.min(size / MIN_ELEMENTS_PER_TASK, 4 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The index of the first element of task {@code task} out of {@code tasks}, the end of the last task is
+     * {@code size}.
+     */
+    static int taskStart(int size, int task, int tasks) {
+        return (int) ((long) size * task / tasks);
+    }
+
+    /**
+     * Wait for {@code task} to complete, rethrowing whatever it failed with. If {@code task} fails or the calling
+     * thread is interrupted, all of {@code tasks} are cancelled first, as their results will never be used.
+     */
+    static <T> T join(Future<T> task, List<? extends Future<?>> tasks) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException ie) {
+            cancelAll(tasks);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for parallel tasks");
+        } catch (ExecutionException ee) {
+            cancelAll(tasks);
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    private static void cancelAll(List<? extends Future<?>> tasks) {
+        for (Future<?> pending : tasks) {
+            pending.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.lemnik.minijson;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A compact insertion-ordered {@code Map} made of a shared {@link JsonShape} holding the keys, and an {@code Object[]}
+ * of values in the same order. There are no per-entry objects, so a map costs little more than its values array.
+ * Decoded by {@link JsonDecoder} when {@link JsonDecoder#setCompactObjects(boolean)} is enabled. Once a key is added
+ * that takes the map outside the shared shapes (a very wide object, or one of too many distinct key sequences) its
+ * content moves into an ordinary {@code LinkedHashMap} for good, so that wide objects cost no more than usual to
+ * build. Like {@code LinkedHashMap} this is not thread-safe, and it does not permit {@code null} keys.
+ */
+final class ShapedMap extends AbstractMap<String, Object> {
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private JsonShape shape = JsonShape.EMPTY;
+    private Object[] values = NO_VALUES;
+    private int modCount;
+
+    /**
+     * Holds the entire content instead of {@link #shape} and {@link #values}, once the keys are outside the shared
+     * shapes.
+     */
+    private LinkedHashMap<String, Object> dictionary;
+
+    private Set<Entry<String, Object>> entrySet;
+
+    /**
+     * The shared shape of the keys, only meaningful while this map is not a {@link #isDictionary() dictionary}.
+     */
+    JsonShape shape() {
+        return shape;
+    }
+
+    boolean isDictionary() {
+        return dictionary != null;
+    }
+
+    @Override
+    public int size() {
+        return dictionary != null ? dictionary.size() : shape.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return dictionary != null ? dictionary.containsKey(key) : shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (dictionary != null) {
+            return dictionary.get(key);
+        }
+
+        int index = shape.indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (dictionary != null) {
+            return dictionary.put(Objects.requireNonNull(key, "key"), value);
+        }
+
+        int index = shape.indexOf(key);
+        if (index >= 0) {
+            Object previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        Objects.requireNonNull(key, "key");
+        JsonShape next = shape.with(key);
+        if (next == null) {
+            toDictionary().put(key, value);
+            return null;
+        }
+
+        int size = shape.size();
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size < 4 ? 4 : size + (size >> 1));
+        }
+
+        shape = next;
+        values[size] = value;
+        modCount++;
+        return null;
+    }
+
+    private LinkedHashMap<String, Object> toDictionary() {
+        final int size = shape.size();
+        LinkedHashMap<String, Object> dictionary = new LinkedHashMap<>(Math.max(16, size * 4 / 3 + 2));
+        for (int i = 0; i < size; i++) {
+            dictionary.put(shape.keys[i], values[i]);
+        }
+
+        this.dictionary = dictionary;
+        shape = JsonShape.EMPTY;
+        values = NO_VALUES;
+        modCount++;
+        return dictionary;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (dictionary != null) {
+            return dictionary.remove(key);
+        }
+
+        int index = shape.indexOf(key);
+        return index >= 0 ? removeAt(index) : null;
+    }
+
+    private Object removeAt(int index) {
+        Object previous = values[index];
+        int size = shape.size();
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[size - 1] = null;
+        shape = shape.without(index);
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        shape = JsonShape.EMPTY;
+        values = NO_VALUES;
+        dictionary = null;
+        modCount++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        if (dictionary != null) {
+            dictionary.forEach(action);
+            return;
+        }
+
+        final int expectedModCount = modCount;
+        final String[] keys = shape.keys;
+        for (int i = 0; i < keys.length; i++) {
+            action.accept(keys[i], values[i]);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return dictionary != null ? dictionary.entrySet().iterator() : new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return ShapedMap.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    ShapedMap.this.clear();
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < shape.size();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            } else if (next >= shape.size()) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+            return new ValueEntry(shape.keys[last], last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            } else if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * A view of a single entry, reading and writing through to the values array.
+     */
+    private final class ValueEntry implements Entry<String, Object> {
+        private final String key;
+        private final int index;
+
+        ValueEntry(String key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return values[index];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            return key.equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link JsonSink} that encodes directly to UTF-8 bytes in a reusable {@code byte[]}, without any {@code Writer} or
+ * {@code CharsetEncoder}. The buffer is drained to an {@code OutputStream}, a {@code WritableByteChannel} or a
+ * {@code ByteBuffer} in large blocks.
+ */
+class Utf8Sink extends JsonSink {
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The longest encoding of a single character: the six character unicode escape of a control character or
+     * unpaired surrogate.
+     */
+    private static final int MAX_CHAR_BYTES = UNICODE_ESCAPE_LENGTH;
+
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final ByteBuffer target;
+
+    /**
+     * The blocks written by a {@linkplain #newSegment() segment}, which has no other destination.
+     */
+    private final List<ByteBuffer> blocks;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer bufferView = ByteBuffer.wrap(buffer);
+    private int position;
+
+    /**
+     * Numbers are formatted here and then narrowed into {@link #buffer}, since every character of a number is ASCII.
+     */
+    private final char[] digits = new char[NumberFormatter.MAX_LENGTH];
+
+    /**
+     * The number of bytes already written through from {@link #buffer} or from segments.
+     */
+    private long flushed;
+
+    private Utf8Sink(OutputStream stream, WritableByteChannel channel, ByteBuffer target, List<ByteBuffer> blocks) {
+        this.stream = stream;
+        this.channel = channel;
+        this.target = target;
+        this.blocks = blocks;
+    }
+
+    Utf8Sink(OutputStream stream) {
+        this(stream, null, null, null);
+    }
+
+    Utf8Sink(WritableByteChannel channel) {
+        this(null, channel, null, null);
+    }
+
+    Utf8Sink(ByteBuffer target) {
+        this(null, null, target, null);
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position == 0) {
+            return;
+        }
+
+        if (stream != null) {
+            stream.write(buffer, 0, position);
+        } else if (channel != null) {
+            bufferView.clear().limit(position);
+            while (bufferView.hasRemaining()) {
+                channel.write(bufferView);
+            }
+        } else if (target != null) {
+            target.put(buffer, 0, position);
+        } else {
+            blocks.add(ByteBuffer.wrap(Arrays.copyOf(buffer, position)));
+        }
+
+        flushed += position;
+        position = 0;
+    }
+
+    @Override
+    void write(char ch) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+
+        buffer[position++] = (byte) ch;
+    }
+
+    @Override
+    void write(String token) throws IOException {
+        int length = token.length();
+        for (int i = 0; i < length; i++) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+
+            buffer[position++] = (byte) token.charAt(i);
+        }
+    }
+
+    @Override
+    void writeLong(long value) throws IOException {
+        writeDigits(NumberFormatter.formatLong(value, digits, 0));
+    }
+
+    @Override
+    void writeDouble(double value) throws IOException {
+        writeDigits(NumberFormatter.formatDouble(value, digits, 0));
+    }
+
+    private void writeDigits(int length) throws IOException {
+        if (buffer.length - position < length) {
+            flushBuffer();
+        }
+
+        final byte[] buffer = this.buffer;
+        final char[] digits = this.digits;
+        for (int i = 0; i < length; i++) {
+            buffer[position + i] = (byte) digits[i];
+        }
+
+        position += length;
+    }
+
+    @Override
+    void writeString(CharSequence string) throws IOException {
+        write('"');
+
+        final byte[] buffer = this.buffer;
+        int length = string.length();
+        int i = 0;
+        while (i < length) {
+            // ASCII fast-path: a single byte per character, no escaping, and no room checks within the run
+            int end = Math.min(length, i + buffer.length - position);
+            int pos = position;
+            char ch = 0;
+            while (i < end && (ch = string.charAt(i)) < 0x80 && !needsEscape(ch)) {
+                buffer[pos++] = (byte) ch;
+                i++;
+            }
+            position = pos;
+
+            if (i == end) {
+                if (i < length) {
+                    flushBuffer();
+                }
+
+                continue;
+            }
+
+            if (position > buffer.length - MAX_CHAR_BYTES) {
+                flushBuffer();
+            }
+
+            i = writeSpecial(string, i, ch);
+        }
+
+        write('"');
+    }
+
+    /**
+     * Write the escaped or multi-byte character {@code ch} at {@code index}, returning the index of the next
+     * character to write. The buffer has already been checked for {@link #MAX_CHAR_BYTES} of space.
+     */
+    private int writeSpecial(CharSequence string, int index, char ch) {
+        final byte[] buffer = this.buffer;
+        if (ch < 0x80) {
+            for (char escape : ESCAPES[ch]) {
+                buffer[position++] = (byte) escape;
+            }
+        } else if (ch < 0x800) {
+            buffer[position++] = (byte) (0xc0 | (ch >> 6));
+            buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+        } else if (!Character.isSurrogate(ch)) {
+            buffer[position++] = (byte) (0xe0 | (ch >> 12));
+            buffer[position++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+            buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+        } else if (Character.isHighSurrogate(ch)
+                && index + 1 < string.length()
+                && Character.isLowSurrogate(string.charAt(index + 1))) {
+
+            int codePoint = Character.toCodePoint(ch, string.charAt(index + 1));
+            buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            return index + 2;
+        } else {
+            // an unpaired surrogate has no UTF-8 encoding, but can be escaped
+            buffer[position++] = '\\';
+            buffer[position++] = 'u';
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                buffer[position++] = (byte) hexDigit(ch >> shift);
+            }
+        }
+
+        return index + 1;
+    }
+
+    @Override
+    void writeName(JsonName name) throws IOException {
+        final byte[] bytes = name.utf8;
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+
+            int count = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, count);
+            position += count;
+            offset += count;
+        }
+    }
+
+    @Override
+    JsonSink newSegment() {
+        return new Utf8Sink(null, null, null, new ArrayList<>());
+    }
+
+    @Override
+    void writeSegment(JsonSink segment) throws IOException {
+        Utf8Sink bytes = (Utf8Sink) segment;
+        if (bytes.blocks.isEmpty() && position + bytes.position <= buffer.length) {
+            // small enough to have never left the segment's buffer
+            System.arraycopy(bytes.buffer, 0, buffer, position, bytes.position);
+            position += bytes.position;
+            return;
+        }
+
+        bytes.flushBuffer();
+        flushBuffer();
+
+        ByteBuffer[] blocks = bytes.blocks.toArray(new ByteBuffer[0]);
+        for (ByteBuffer block : blocks) {
+            flushed += block.remaining();
+        }
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            int next = 0;
+            while (next < blocks.length) {
+                gathering.write(blocks, next, blocks.length - next);
+                while (next < blocks.length && !blocks[next].hasRemaining()) {
+                    next++;
+                }
+            }
+
+            return;
+        }
+
+        for (ByteBuffer block : blocks) {
+            if (stream != null) {
+                stream.write(block.array(), 0, block.limit());
+            } else if (channel != null) {
+                while (block.hasRemaining()) {
+                    channel.write(block);
+                }
+            } else if (target != null) {
+                target.put(block);
+            } else {
+                this.blocks.add(block);
+            }
+        }
+    }
+
+    @Override
+    long offset() {
+        return flushed + position;
+    }
+
+    @Override
+    void discard(long offset) {
+        if (offset < flushed || offset > flushed + position) {
+            throw new IllegalStateException("not buffered: " + offset);
+        }
+
+        position = (int) (offset - flushed);
+    }
+
+    @Override
+    void flush() throws IOException {
+        flushBuffer();
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    @Override
+    void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            if (stream != null) {
+                stream.close();
+            } else if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
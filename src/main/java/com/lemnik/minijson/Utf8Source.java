@@ -0,0 +1,284 @@
+package com.lemnik.minijson;
+
+import java.io.IOException;
+
+/**
+ * A {@link JsonSource} that tokenizes UTF-8 encoded bytes directly, without a {@code Reader} or charset decoding
+ * step. Everything outside of a string literal is ASCII in valid JSON, so multi-byte sequences are only decoded
+ * within string content. By default the entire input is a single {@code byte[]}, subclasses may treat the buffer as a
+ * window and override {@link #fill()} to load more input. Whitespace and string content are scanned a word at a time
+ * by {@link ByteScanner}.
+ */
+class Utf8Source extends JsonSource {
+    private static final byte[] NO_BYTES = new byte[0];
+
+    /**
+     * Scratch space to decode string content into before it is appended in bulk, always has room for a surrogate
+     * pair.
+     */
+    private final char[] chars = new char[256];
+
+    byte[] buffer;
+    int position;
+    int limit;
+
+    /**
+     * The number of bytes discarded from the start of {@link #buffer} by each {@link #fill()}.
+     */
+    long filled;
+
+    Utf8Source(byte[] json, int offset, int length) {
+        reset(json, offset, length);
+    }
+
+    /**
+     * Start reading {@code length} bytes of {@code json} from {@code offset}, keeping the scratch space.
+     */
+    final void reset(byte[] json, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > json.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + json.length);
+        }
+
+        this.buffer = json;
+        this.position = offset;
+        this.limit = offset + length;
+        this.filled = 0;
+    }
+
+    /**
+     * Stop reading, so that the input is not kept reachable while this source is idle.
+     */
+    final void clear() {
+        reset(NO_BYTES, 0, 0);
+    }
+
+    /**
+     * Attempt to load more input into {@link #buffer}, resetting {@link #position} and {@link #limit}.
+     *
+     * @return {@code false} if there is no more input
+     */
+    boolean fill() throws IOException {
+        return false;
+    }
+
+    @Override
+    long offset() {
+        return filled + position;
+    }
+
+    @Override
+    int read() throws IOException {
+        if (position < limit || fill()) {
+            return buffer[position++] & 0xff;
+        }
+
+        return EOF;
+    }
+
+    @Override
+    int nextSignificant() throws IOException {
+        do {
+            while (position < limit) {
+                int b = buffer[position++];
+                // anything negative is a non-ASCII lead byte, and is never whitespace
+                if (b > ' ' || b < 0 || !Character.isWhitespace(b)) {
+                    return b & 0xff;
+                }
+
+                if (position < limit && buffer[position] <= ' ') {
+                    // more than one whitespace character is probably indentation, skip it a word at a time
+                    position = ByteScanner.skipWhitespace(buffer, position, limit);
+                }
+            }
+        } while (fill());
+
+        return EOF;
+    }
+
+    @Override
+    int readStringRun(StringBuilder out) throws IOException {
+        final char[] chars = this.chars;
+        int count = 0;
+
+        do {
+            while (position < limit) {
+                // copy the plain ASCII content up to the next special byte in bulk, as far as there is room
+                final byte[] buffer = this.buffer;
+                final int room = chars.length - 1 - count;
+                if (room > 0) {
+                    int end = ByteScanner.indexOfStringSpecial(buffer, position,
+                            limit - position > room ? position + room : limit);
+                    for (int i = position; i < end; i++) {
+                        chars[count++] = (char) buffer[i];
+                    }
+
+                    position = end;
+                    if (position == limit) {
+                        break;
+                    }
+                }
+
+                int b = buffer[position];
+                if (b == '"' || b == '\\') {
+                    out.append(chars, 0, count);
+                    position++;
+                    return b;
+                }
+
+                position++;
+
+                if (count >= chars.length - 1) {
+                    out.append(chars, 0, count);
+                    count = 0;
+                }
+
+                if (b >= 0) {
+                    chars[count++] = (char) b;
+                } else {
+                    count = decodeMultiByte(b & 0xff, chars, count);
+                }
+            }
+        } while (fill());
+
+        out.append(chars, 0, count);
+        return EOF;
+    }
+
+    @Override
+    void readNumberRun(StringBuilder out) throws IOException {
+        do {
+            while (position < limit) {
+                int b = buffer[position];
+                if (!isNumberChar(b)) {
+                    return;
+                }
+
+                out.append((char) b);
+                position++;
+            }
+        } while (fill());
+    }
+
+    private int decodeMultiByte(int lead, char[] chars, int count) throws IOException {
+        int codePoint;
+        if ((lead & 0xe0) == 0xc0) {
+            codePoint = ((lead & 0x1f) << 6) | continuation();
+            if (codePoint < 0x80) {
+                throw malformed(lead);
+            }
+        } else if ((lead & 0xf0) == 0xe0) {
+            codePoint = ((lead & 0x0f) << 12) | (continuation() << 6) | continuation();
+            if (codePoint < 0x800 || Character.isSurrogate((char) codePoint)) {
+                throw malformed(lead);
+            }
+        } else if ((lead & 0xf8) == 0xf0) {
+            codePoint = ((lead & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT) {
+                throw malformed(lead);
+            }
+
+            chars[count++] = Character.highSurrogate(codePoint);
+            chars[count++] = Character.lowSurrogate(codePoint);
+            return count;
+        } else {
+            throw malformed(lead);
+        }
+
+        chars[count++] = (char) codePoint;
+        return count;
+    }
+
+    private int continuation() throws IOException {
+        if (position >= limit && !fill()) {
+            throw new IOException("unexpected EOF in UTF-8 sequence");
+        }
+
+        int b = buffer[position++];
+        if ((b & 0xc0) != 0x80) {
+            throw new IOException("malformed UTF-8 continuation byte: 0x" + Integer.toHexString(b & 0xff));
+        }
+
+        return b & 0x3f;
+    }
+
+    private static IOException malformed(int lead) {
+        return new IOException("malformed UTF-8 sequence starting with 0x" + Integer.toHexString(lead));
+    }
+
+    @Override
+    boolean skipString() throws IOException {
+        do {
+            while (position < limit) {
+                position = ByteScanner.indexOfQuoteOrBackslash(buffer, position, limit);
+                if (position == limit) {
+                    break;
+                }
+
+                int ch = buffer[position++];
+                if (ch == '"') {
+                    return true;
+                } else if (ch == '\\') {
+                    if (position >= limit && !fill()) {
+                        return false;
+                    }
+
+                    position++;
+                }
+            }
+        } while (fill());
+
+        return false;
+    }
+
+    @Override
+    boolean skipContainer() throws IOException {
+        int depth = 1;
+        do {
+            while (position < limit) {
+                switch (buffer[position++]) {
+                    case '"':
+                        if (!skipString()) {
+                            return false;
+                        }
+                        break;
+                    case '{':
+                    case '[':
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (--depth == 0) {
+                            return true;
+                        }
+                        break;
+                }
+            }
+        } while (fill());
+
+        return false;
+    }
+
+    @Override
+    boolean isRandomAccess() {
+        return true;
+    }
+
+    @Override
+    int position() {
+        return position;
+    }
+
+    @Override
+    void seek(int position) {
+        this.position = position;
+    }
+
+    @Override
+    JsonSource duplicate() {
+        if (!isRandomAccess()) {
+            throw new UnsupportedOperationException("not random access");
+        }
+
+        return new Utf8Source(buffer, 0, limit);
+    }
+}
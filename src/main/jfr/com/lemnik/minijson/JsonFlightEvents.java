@@ -0,0 +1,106 @@
+package com.lemnik.minijson;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The {@code jdk.jfr} side of {@link JsonFlightRecorder}, only loaded reflectively once {@code jdk.jfr} is known to be
+ * present.
+ */
+final class JsonFlightEvents extends JsonFlightRecorder {
+    private static final EventType DECODE = EventType.getEventType(DecodeEvent.class);
+    private static final EventType ENCODE = EventType.getEventType(EncodeEvent.class);
+
+    @Override
+    boolean decodeEnabled() {
+        return DECODE.isEnabled();
+    }
+
+    @Override
+    boolean encodeEnabled() {
+        return ENCODE.isEnabled();
+    }
+
+    @Override
+    Object newDecodeEvent() {
+        DecodeEvent event = new DecodeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    Object newEncodeEvent() {
+        EncodeEvent event = new EncodeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitEvent(JsonStats stats) {
+        JsonEvent event = (JsonEvent) stats.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.length = stats.length;
+            event.maxDepth = stats.maxDepth;
+            event.objects = stats.objects;
+            event.arrays = stats.arrays;
+            event.strings = stats.strings;
+            event.numbers = stats.numbers;
+            event.keyCacheHits = stats.keyCacheHits;
+            event.keyCacheMisses = stats.keyCacheMisses;
+            event.failed = stats.failed;
+            event.commit();
+        }
+    }
+
+    @Category("mini-json")
+    @Enabled(false)
+    @StackTrace(false)
+    abstract static class JsonEvent extends Event {
+        @Label("Length")
+        @Description("Characters, or bytes for UTF-8, read or written")
+        long length;
+
+        @Label("Max Depth")
+        int maxDepth;
+
+        @Label("Objects")
+        long objects;
+
+        @Label("Arrays")
+        long arrays;
+
+        @Label("Strings")
+        long strings;
+
+        @Label("Numbers")
+        long numbers;
+
+        @Label("Key Cache Hits")
+        long keyCacheHits;
+
+        @Label("Key Cache Misses")
+        long keyCacheMisses;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("com.lemnik.minijson.Decode")
+    @Label("JSON Decode")
+    @Description("A top-level value decoded by JsonDecoder.nextJsonValue()")
+    static final class DecodeEvent extends JsonEvent {
+    }
+
+    @Name("com.lemnik.minijson.Encode")
+    @Label("JSON Encode")
+    @Description("A top-level Map or Collection encoded by JsonEncoder.writeValue")
+    static final class EncodeEvent extends JsonEvent {
+    }
+}
@@ -0,0 +1,87 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ByteScannerTest {
+    private static final byte[] ALPHABET = {' ', '\t', '\n', '\r', '"', '\\', 'a', '{', 0x0b, 0x1f, (byte) 0x80, (byte) 0xe9};
+
+    @Test
+    void agreesWithByteAtATime() {
+        Random random = new Random(25);
+        for (int i = 0; i < 20_000; i++) {
+            byte[] bytes = new byte[random.nextInt(40)];
+            for (int j = 0; j < bytes.length; j++) {
+                // mostly whitespace or plain content, so that long runs occur
+                bytes[j] = random.nextInt(4) > 0
+                        ? ALPHABET[random.nextBoolean() ? 0 : 6]
+                        : ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+
+            int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+            int to = from + random.nextInt(bytes.length - from + 1);
+
+            int whitespace = from;
+            while (whitespace < to && (bytes[whitespace] == ' ' || bytes[whitespace] == '\t'
+                    || bytes[whitespace] == '\n' || bytes[whitespace] == '\r')) {
+                whitespace++;
+            }
+
+            int special = from;
+            while (special < to && bytes[special] != '"' && bytes[special] != '\\' && bytes[special] >= 0) {
+                special++;
+            }
+
+            int quote = from;
+            while (quote < to && bytes[quote] != '"' && bytes[quote] != '\\') {
+                quote++;
+            }
+
+            assertThat(ByteScanner.skipWhitespace(bytes, from, to), is(whitespace));
+            assertThat(ByteScanner.indexOfStringSpecial(bytes, from, to), is(special));
+            assertThat(ByteScanner.indexOfQuoteOrBackslash(bytes, from, to), is(quote));
+        }
+    }
+
+    @Test
+    void longStringsAcrossBufferBoundaries() throws IOException {
+        Random random = new Random(52);
+        String[] pieces = {"abcdefgh", "é", "你", "😀", "\\\"", "\\n", "\\u00e9", "<div class=\\\"x\\\">", " "};
+        String[] decoded = {"abcdefgh", "é", "你", "😀", "\"", "\n", "é", "<div class=\"x\">", " "};
+
+        List<String> expected = new ArrayList<>();
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            json.append(i > 0 ? ",\n" : "").append("            \t\"");
+            for (int j = random.nextInt(400); j > 0; j--) {
+                int piece = random.nextInt(pieces.length);
+                json.append(pieces[piece]);
+                text.append(decoded[piece]);
+            }
+
+            json.append('"');
+            expected.add(text.toString());
+        }
+
+        json.append("\n]");
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        assertThat(new JsonDecoder(bytes).nextJsonValue(), is(expected));
+        assertThat(new JsonDecoder(direct).nextJsonValue(), is(expected));
+
+        // lazy containers skip over the strings rather than decoding them
+        assertThat(new JsonDecoder(bytes).nextLazyValue(), is(expected));
+    }
+}
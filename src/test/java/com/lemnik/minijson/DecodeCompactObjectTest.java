@@ -0,0 +1,146 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class DecodeCompactObjectTest {
+    private static Object decode(String json) throws IOException {
+        JsonDecoder decoder = new JsonDecoder(json);
+        decoder.setCompactObjects(true);
+        return decoder.nextJsonValue();
+    }
+
+    @Test
+    void sameAsLinkedHashMap() throws IOException {
+        String json = DecodeSourceTest.readBigFile();
+        assertThat(decode(json), is(Json.parse(json)));
+    }
+
+    @Test
+    void recordsShareShapes() throws IOException {
+        List<?> records = (List<?>) decode("[{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}, {\"b\": 5, \"a\": 6}]");
+        ShapedMap first = (ShapedMap) records.get(0);
+        ShapedMap second = (ShapedMap) records.get(1);
+        ShapedMap third = (ShapedMap) records.get(2);
+
+        assertThat(first.shape(), is(sameInstance(second.shape())));
+        assertThat(first.shape(), is(not(sameInstance(third.shape()))));
+        assertThat(new ArrayList<>(third.keySet()), contains("b", "a"));
+        assertThat(third.get("a"), is(6));
+    }
+
+    @Test
+    void mapOperations() {
+        ShapedMap map = new ShapedMap();
+        Map<String, Object> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, i);
+            expected.put("key" + i, i);
+        }
+
+        assertThat(map, is(expected));
+        assertThat(map.hashCode(), is(expected.hashCode()));
+        assertThat(map.get("key15"), is(15));
+        assertThat(map.put("key15", "x"), is(15));
+        assertThat(map.get("key15"), is("x"));
+        assertThat(map.containsKey("key20"), is(false));
+        assertThat(map.get(null), is(nullValue()));
+
+        assertThat(map.remove("key3"), is(3));
+        assertThat(map.size(), is(19));
+        assertThat(map.get("key4"), is(4));
+        assertThat(new ArrayList<>(map.keySet()).subList(2, 5), contains("key2", "key4", "key5"));
+
+        Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            if (entry.getKey().equals("key0")) {
+                entry.setValue("zero");
+            } else if (Integer.parseInt(entry.getKey().substring(3)) > 5) {
+                iterator.remove();
+            }
+        }
+        assertThat(map.get("key0"), is("zero"));
+        assertThat(new ArrayList<>(map.keySet()), contains("key0", "key1", "key2", "key4", "key5"));
+
+        map.clear();
+        assertThat(map.isEmpty(), is(true));
+    }
+
+    @Test
+    void duplicateKeysReplace() throws IOException {
+        Map<?, ?> object = (Map<?, ?>) decode("{\"a\": 1, \"b\": 2, \"a\": 3}");
+        assertThat(object.size(), is(2));
+        assertThat(object.get("a"), is(3));
+    }
+
+    @Test
+    void wideObjectsBecomeDictionaries() throws IOException {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 20_000; i++) {
+            json.append(i > 0 ? "," : "").append("\"k").append(i).append("\":").append(i);
+        }
+        json.append('}');
+
+        Map<?, ?> object = (Map<?, ?>) decode(json.toString());
+        assertThat(object, is(Json.parse(json.toString())));
+        assertThat(new ArrayList<>(object.keySet()).subList(0, 3), contains("k0", "k1", "k2"));
+        assertThat(((ShapedMap) object).isDictionary(), is(true));
+
+        ShapedMap small = (ShapedMap) decode("{\"a\": 1}");
+        assertThat(small.isDictionary(), is(false));
+    }
+
+    @Test
+    void transitionsAreBounded() {
+        JsonShape root = JsonShape.EMPTY.with("transitionsAreBounded");
+        for (int i = 0; i < JsonShape.MAX_TRANSITIONS; i++) {
+            assertThat(root.with("key" + i), is(sameInstance(root.with("key" + i))));
+        }
+        assertThat(root.with("one too many"), is(nullValue()));
+
+        JsonShape deep = root;
+        for (int i = 1; i < JsonShape.MAX_CACHED_KEYS; i++) {
+            deep = deep.with("key" + i);
+        }
+        assertThat(deep.size(), is(JsonShape.MAX_CACHED_KEYS));
+        assertThat(deep.with("one too many"), is(nullValue()));
+
+        JsonShape removed = deep.without(0);
+        assertThat(removed.size(), is(JsonShape.MAX_CACHED_KEYS - 1));
+        assertThat(removed.indexOf("transitionsAreBounded"), is(-1));
+        assertThat(removed.indexOf("key1"), is(0));
+    }
+
+    @Test
+    void dictionaryOperations() {
+        ShapedMap map = new ShapedMap();
+        Map<String, Object> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("dictionaryOperations" + i, i);
+            expected.put("dictionaryOperations" + i, i);
+        }
+
+        assertThat(map, is(expected));
+        assertThat(map.remove("dictionaryOperations50"), is(50));
+        assertThat(map.size(), is(99));
+
+        Map<String, Object> visited = new LinkedHashMap<>();
+        map.forEach(visited::put);
+        expected.remove("dictionaryOperations50");
+        assertThat(visited, is(expected));
+
+        map.clear();
+        map.put("a", 1);
+        assertThat(map.isDictionary(), is(false));
+    }
+}
@@ -0,0 +1,133 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecodeLazyTest {
+    @Test
+    void lazyEqualsEager() throws IOException {
+        String json = DecodeSourceTest.readBigFile();
+        Object eager = new JsonDecoder(json).nextJsonValue();
+
+        assertThat(new JsonDecoder(json).nextLazyValue(), is(eager));
+        assertThat(Json.parseLazy(json.getBytes(StandardCharsets.UTF_8)), is(eager));
+        assertThat(eager, is(Json.parseLazy(json)));
+    }
+
+    @Test
+    void onlyRequestedValuesAreDecoded() throws IOException {
+        final int[] strings = new int[1];
+        JsonDecoder decoder = new JsonDecoder("{\"a\": \"x\", \"b\": [\"y\", \"z\"], \"c\": {\"d\": \"w\"}}") {
+            @Override
+            protected Object parseString(CharSequence buffer) {
+                strings[0]++;
+                return super.parseString(buffer);
+            }
+        };
+
+        Map<?, ?> object = (Map<?, ?>) decoder.nextLazyValue();
+        assertThat(object.keySet(), contains("a", "b", "c"));
+        assertThat(strings[0], is(0));
+
+        List<?> array = (List<?>) object.get("b");
+        assertThat(array.size(), is(2));
+        assertThat(strings[0], is(0));
+
+        assertThat(array.get(1), is("z"));
+        assertThat(strings[0], is(1));
+
+        assertThat(((Map<?, ?>) object.get("c")).get("d"), is("w"));
+        assertThat(strings[0], is(2));
+    }
+
+    @Test
+    void largeObject() {
+        StringBuilder json = new StringBuilder("{");
+        Map<String, Object> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"key").append(i).append("\":").append(i);
+            expected.put("key" + i, i);
+        }
+        json.append('}');
+
+        Map<?, ?> object = (Map<?, ?>) Json.parseLazy(json.toString());
+        assertThat(object.get("key42"), is(42));
+        assertThat(object.get("key100"), is(nullValue()));
+        assertThat(object.containsKey("key99"), is(true));
+        assertThat(object, is(expected));
+    }
+
+    @Test
+    void duplicateKeysCollapseLikeEager() throws IOException {
+        String small = "{\"a\": 1, \"b\": 2, \"a\": 3}";
+        Map<?, ?> object = (Map<?, ?>) Json.parseLazy(small);
+        assertThat(object.size(), is(2));
+        assertThat(object.keySet(), contains("a", "b"));
+        assertThat(object.get("a"), is(3));
+        assertThat(object, is(new JsonDecoder(small).nextJsonValue()));
+        assertThat(object.entrySet(), is(((Map<?, ?>) new JsonDecoder(small).nextJsonValue()).entrySet()));
+
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 40; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"key").append(i % 20).append("\":").append(i);
+        }
+        json.append('}');
+
+        Map<?, ?> eager = (Map<?, ?>) new JsonDecoder(json.toString()).nextJsonValue();
+        Map<?, ?> large = (Map<?, ?>) Json.parseLazy(json.toString());
+        assertThat(large.size(), is(20));
+        assertThat(large.get("key3"), is(23));
+        assertThat(Arrays.asList(large.keySet().toArray()), is(Arrays.asList(eager.keySet().toArray())));
+        assertThat(large, is(eager));
+    }
+
+    @Test
+    void laterValuesSurviveMaterialization() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("{\"a\": [1, 2]} [\"b\"] 3");
+        Map<?, ?> first = (Map<?, ?>) decoder.nextLazyValue();
+        assertThat(first.get("a"), is(Arrays.asList(1, 2)));
+        assertThat(decoder.nextLazyValue(), is(Arrays.asList("b")));
+        assertThat(decoder.nextLazyValue(), is(3));
+    }
+
+    @Test
+    void escapesAndNestedBracketsInStrings() {
+        Map<?, ?> object = (Map<?, ?>) Json.parseLazy("{\"a\\\"]\": \"}\\\\\", \"b\": [\"[\", {}], \"c\": null}");
+        assertThat(object.get("a\"]"), is("}\\"));
+        assertThat(object.get("b"), is(Arrays.asList("[", new HashMap<>())));
+        assertThat(object.get("c"), is(sameInstance(Json.NULL)));
+    }
+
+    @Test
+    void readOnly() {
+        Map<String, Object> object = (Map<String, Object>) Json.parseLazy("{\"a\": 1}");
+        assertThrows(UnsupportedOperationException.class, () -> object.put("b", 2));
+    }
+
+    @Test
+    void malformedContentReportedOnAccess() throws IOException {
+        Map<?, ?> object = (Map<?, ?>) Json.parseLazy("{\"a\": 1 \"b\": 2}");
+        assertThrows(IllegalArgumentException.class, () -> object.get("a"));
+
+        assertThrows(IOException.class, () -> new JsonDecoder("{\"a\": [1}").nextLazyValue());
+    }
+
+    @Test
+    void readerIsNotSupported() {
+        assertThrows(UnsupportedOperationException.class,
+                () -> new JsonDecoder(new StringReader("{}")).nextLazyValue());
+    }
+}
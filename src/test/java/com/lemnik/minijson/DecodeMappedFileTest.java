@@ -0,0 +1,51 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class DecodeMappedFileTest {
+    static Path bigFilePath() throws URISyntaxException {
+        return Paths.get(DecodeMappedFileTest.class.getResource("bigfile.json").toURI());
+    }
+
+    @Test
+    void parseMappedFile() throws IOException, URISyntaxException {
+        Object expected = Json.parse(DecodeSourceTest.readBigFile());
+        assertThat(Json.parse(bigFilePath()), is(expected));
+    }
+
+    @Test
+    void parseAcrossChunks() throws IOException, URISyntaxException {
+        Object expected = Json.parse(DecodeSourceTest.readBigFile());
+
+        // small, odd chunk sizes force tokens and multi-byte sequences to straddle the chunk boundaries
+        for (long chunkSize : new long[]{1, 7, 61, 1024}) {
+            Object result = new JsonDecoder(MappedFileSource.open(bigFilePath(), chunkSize)).nextJsonValue();
+            assertThat(result, is(expected));
+        }
+    }
+
+    @Test
+    void multiByteAcrossChunks() throws IOException {
+        Path file = Files.createTempFile("mini-json", ".json");
+        try {
+            Files.write(file, "[\"é你😀\", {\"ключ\": 12345}]".getBytes(StandardCharsets.UTF_8));
+            Object expected = Json.parse("[\"é你😀\", {\"ключ\": 12345}]");
+
+            for (long chunkSize = 1; chunkSize < 8; chunkSize++) {
+                assertThat(new JsonDecoder(MappedFileSource.open(file, chunkSize)).nextJsonValue(), is(expected));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
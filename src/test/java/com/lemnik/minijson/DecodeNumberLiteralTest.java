@@ -3,9 +3,12 @@ package com.lemnik.minijson;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class DecodeNumberLiteralTest {
     @Test
@@ -49,4 +52,66 @@ class DecodeNumberLiteralTest {
         Object result = new JsonDecoder("1.7976931348623157E308").nextJsonValue();
         assertThat(result, is(Double.valueOf(Double.MAX_VALUE)));
     }
+
+    @Test
+    void parseLongs() throws IOException {
+        Object result = new JsonDecoder("12345678901").nextJsonValue();
+        assertThat(result, is(Long.valueOf(12345678901L)));
+
+        result = new JsonDecoder(Long.toString(Long.MAX_VALUE)).nextJsonValue();
+        assertThat(result, is(Long.valueOf(Long.MAX_VALUE)));
+
+        result = new JsonDecoder(Long.toString(Long.MIN_VALUE)).nextJsonValue();
+        assertThat(result, is(Long.valueOf(Long.MIN_VALUE)));
+    }
+
+    @Test
+    void parseExponents() throws IOException {
+        assertThat(new JsonDecoder("1e2").nextJsonValue(), is(Double.valueOf(100)));
+        assertThat(new JsonDecoder("-1.5E+3").nextJsonValue(), is(Double.valueOf(-1500)));
+        assertThat(new JsonDecoder("25e-1").nextJsonValue(), is(Double.valueOf(2.5)));
+        assertThat(new JsonDecoder("1e400").nextJsonValue(), is(Double.valueOf(Double.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    void parseCorrectlyRounded() throws IOException {
+        String[] literals = {
+                "0.1", "2.2250738585072011E-308", "2.4703282292062328E-324", "9007199254740993e0",
+                "9007199254740993.0", "1e23", "123456789012345678901234567890e-10", "7.2057594037927933e16"
+        };
+
+        for (String literal : literals) {
+            assertThat(new JsonDecoder(literal).nextJsonValue(), is(Double.valueOf(literal)));
+        }
+    }
+
+    @Test
+    void overflowWithoutBigNumbers() throws IOException {
+        Object result = new JsonDecoder("9223372036854775808").nextJsonValue();
+        assertThat(result, is(Double.valueOf(9223372036854775808.0)));
+    }
+
+    @Test
+    void parseBigNumbers() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[9223372036854775808, 1.23456789012345678901, 1e400, 1.5, 42]");
+        decoder.setBigNumbers(true);
+
+        Iterable<?> result = (Iterable<?>) decoder.nextJsonValue();
+        assertThat(result, org.hamcrest.Matchers.<Object>contains(
+                new BigInteger("9223372036854775808"),
+                new BigDecimal("1.23456789012345678901"),
+                new BigDecimal("1e400"),
+                Double.valueOf(1.5),
+                Integer.valueOf(42)
+        ));
+    }
+
+    @Test
+    void malformedNumbers() {
+        assertThrows(IOException.class, () -> new JsonDecoder("-").nextJsonValue());
+        assertThrows(IOException.class, () -> new JsonDecoder("1.").nextJsonValue());
+        assertThrows(IOException.class, () -> new JsonDecoder("1e").nextJsonValue());
+        assertThrows(IOException.class, () -> new JsonDecoder("1-2").nextJsonValue());
+        assertThrows(IOException.class, () -> new JsonDecoder("1.2.3").nextJsonValue());
+    }
 }
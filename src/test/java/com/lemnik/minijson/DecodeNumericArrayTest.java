@@ -0,0 +1,117 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecodeNumericArrayTest {
+    private static Object decode(String json) throws IOException {
+        JsonDecoder decoder = new JsonDecoder(json);
+        decoder.setNumericArrays(true);
+        return decoder.nextJsonValue();
+    }
+
+    @Test
+    void intArray() throws IOException {
+        Object value = decode("[1, -2, 3 ,4]");
+        assertThat(value, is(instanceOf(JsonNumberArray.class)));
+
+        JsonNumberArray numbers = (JsonNumberArray) value;
+        assertThat(numbers.kind, is(JsonNumberArray.INT));
+        assertThat(numbers.getInt(1), is(-2));
+        assertThat(numbers.getDouble(3), is(4.0));
+        assertThat(numbers, is(Arrays.<Object>asList(1, -2, 3, 4)));
+    }
+
+    @Test
+    void promotion() throws IOException {
+        JsonNumberArray longs = (JsonNumberArray) decode("[1, 12345678901, 2]");
+        assertThat(longs.kind, is(JsonNumberArray.LONG));
+        assertThat(longs.getLong(1), is(12345678901L));
+        assertThat(longs.get(0), is((Object) 1L));
+
+        JsonNumberArray doubles = (JsonNumberArray) decode("[1, 12345678901, 2.5, 1e2]");
+        assertThat(doubles.kind, is(JsonNumberArray.DOUBLE));
+        assertThat(doubles.getDouble(1), is(12345678901.0));
+        assertThat(doubles.getInt(2), is(2));
+        assertThat(doubles.get(3), is((Object) 100.0));
+    }
+
+    @Test
+    void mixedArraysFallBack() throws IOException {
+        Object value = decode("[1, 2, \"three\", [4, 5]]");
+        assertThat(value, is(not(instanceOf(JsonNumberArray.class))));
+        assertThat(value, is(Arrays.<Object>asList(1, 2, "three", Arrays.asList(4, 5))));
+        assertThat(((List<?>) value).get(3), is(instanceOf(JsonNumberArray.class)));
+
+        assertThat(decode("[\"a\", 1]"), is(not(instanceOf(JsonNumberArray.class))));
+
+        Map<?, ?> object = (Map<?, ?>) decode("{\"xs\": [], \"ys\": [0.5]}");
+        assertThat((List<?>) object.get("xs"), is(empty()));
+        assertThat(object.get("ys"), is(instanceOf(JsonNumberArray.class)));
+    }
+
+    @Test
+    void fallBackKeepsPromotedElementsExact() throws IOException {
+        String json = "[1, 9007199254740993, 2.5, 4, \"x\", [1, 2.5, \"y\"]]";
+        Object plain = new JsonDecoder(json).nextJsonValue();
+        Object value = decode(json);
+
+        assertThat(value, is(plain));
+        assertThat(value, is(Arrays.<Object>asList(1, 9007199254740993L, 2.5, 4, "x", Arrays.asList(1, 2.5, "y"))));
+        assertThat(((List<?>) value).get(0), is(instanceOf(Integer.class)));
+        assertThat(((List<?>) value).get(3), is(instanceOf(Integer.class)));
+
+        JsonDecoder decoder = new JsonDecoder("[2.5, 9007199254740993, 123456789012345678901234567890]");
+        decoder.setNumericArrays(true);
+        decoder.setBigNumbers(true);
+        assertThat(decoder.nextJsonValue(),
+                is(Arrays.<Object>asList(2.5, 9007199254740993L, new BigInteger("123456789012345678901234567890"))));
+    }
+
+    @Test
+    void bigNumbersFallBack() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[1, 123456789012345678901234567890]");
+        decoder.setNumericArrays(true);
+        decoder.setBigNumbers(true);
+        assertThat(decoder.nextJsonValue(),
+                is(Arrays.<Object>asList(1, new BigInteger("123456789012345678901234567890"))));
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IOException.class, () -> decode("[1, 2"));
+        assertThrows(IOException.class, () -> decode("[1 2]"));
+        assertThrows(IOException.class, () -> decode("[1, -]"));
+        assertThrows(IOException.class, () -> decode("[1, x]"));
+    }
+
+    @Test
+    void addAndEncode() throws IOException {
+        JsonNumberArray numbers = new JsonNumberArray();
+        for (int i = 0; i < 20; i++) {
+            numbers.add(i);
+        }
+        numbers.add(Long.MAX_VALUE);
+        assertThat(numbers.size(), is(21));
+        assertThat(numbers.getLong(20), is(Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> numbers.add("x"));
+        assertThrows(IndexOutOfBoundsException.class, () -> numbers.getInt(21));
+
+        StringWriter out = new StringWriter();
+        JsonEncoder encoder = new JsonEncoder(out);
+        encoder.writeValue(decode("[1, 2.5, -3]"));
+        encoder.writeValue(decode("[1, 2]"));
+        encoder.flush();
+        assertThat(out.toString(), is("[1.0,2.5,-3.0][1,2]"));
+    }
+}
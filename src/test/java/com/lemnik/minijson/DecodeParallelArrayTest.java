@@ -0,0 +1,100 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecodeParallelArrayTest {
+    private static String records(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(",\n ");
+            json.append("{\"id\": ").append(i)
+                    .append(", \"name\": \"r\\\"").append(i)
+                    .append("]\", \"tags\": [").append(i % 3).append(", {\"x\": null}], \"ok\": true}");
+        }
+        return json.append(']').toString();
+    }
+
+    @Test
+    void sameAsSequential() throws IOException {
+        String json = records(20_000);
+        Object sequential = new JsonDecoder(json).nextJsonValue();
+
+        assertThat(new JsonDecoder(json).nextJsonArray(), is(sequential));
+        assertThat(new JsonDecoder(json.getBytes(StandardCharsets.UTF_8)).nextJsonArray(), is(sequential));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertThat(new JsonDecoder(json).nextJsonArray(executor), is(sequential));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void stream() throws IOException {
+        String json = records(5_000);
+        List<Object> streamed = new JsonDecoder(json).streamJsonArray().collect(Collectors.toList());
+        assertThat(streamed, is(new JsonDecoder(json).nextJsonValue()));
+    }
+
+    @Test
+    void smallAndEmptyArrays() throws IOException {
+        assertThat(new JsonDecoder(" [] ").nextJsonArray(), is(Collections.emptyList()));
+        assertThat(new JsonDecoder("[1, \"two\"]").nextJsonArray(), contains(1, "two"));
+
+        JsonDecoder decoder = new JsonDecoder("[1] [2]");
+        assertThat(decoder.nextJsonArray(), contains(1));
+        assertThat(decoder.nextJsonArray(), contains(2));
+    }
+
+    @Test
+    void numericArraysOnlyApplyToElements() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[1, 2, 3] [[1, 2], [3]]");
+        decoder.setNumericArrays(true);
+
+        List<Object> numbers = decoder.nextJsonArray();
+        assertThat(numbers, not(instanceOf(JsonNumberArray.class)));
+        assertThat(numbers, contains(1, 2, 3));
+
+        List<Object> nested = decoder.nextJsonArray();
+        assertThat(nested.get(0), instanceOf(JsonNumberArray.class));
+        assertThat(nested.get(1), instanceOf(JsonNumberArray.class));
+    }
+
+    @Test
+    void failedTaskCancelsTheRest() {
+        CompletableFuture<Object> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException("bad slice"));
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+
+        IOException thrown = assertThrows(IOException.class,
+                () -> ParallelTasks.join(failed, Arrays.asList(failed, pending)));
+        assertThat(thrown.getMessage(), is("bad slice"));
+        assertThat(pending.isCancelled(), is(true));
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IOException.class, () -> new JsonDecoder("{}").nextJsonArray());
+        assertThrows(IOException.class, () -> new JsonDecoder("[1 2]").nextJsonArray());
+
+        String json = records(2_000).replace("\"id\": 1000,", "\"id\" 1000,");
+        assertThrows(IOException.class, () -> new JsonDecoder(json).nextJsonArray());
+        assertThrows(UnsupportedOperationException.class, () -> new JsonDecoder(new StringReader("[]")).nextJsonArray());
+    }
+}
@@ -0,0 +1,66 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class DecodeSourceTest {
+    static String readBigFile() throws IOException {
+        StringBuilder content = new StringBuilder();
+        try (Reader reader = new InputStreamReader(
+                DecodeSourceTest.class.getResourceAsStream("bigfile.json"), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[1024];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                content.append(buffer, 0, count);
+            }
+        }
+        return content.toString();
+    }
+
+    @Test
+    void stringAndReaderAgree() throws IOException {
+        String json = readBigFile();
+        Object fromString = new JsonDecoder(json).nextJsonValue();
+        Object fromReader = new JsonDecoder(new StringReader(json)).nextJsonValue();
+
+        assertThat(fromString, is(instanceOf(List.class)));
+        assertThat(((List<?>) fromString).size(), is(19));
+        assertThat(fromReader, is(fromString));
+
+        Map<?, ?> first = (Map<?, ?>) ((List<?>) fromString).get(0);
+        assertThat(first.get("first_name"), is("Katharina"));
+        assertThat(first.get("postcode"), is("90635-5596"));
+    }
+
+    @Test
+    void charArrayRange() throws IOException {
+        char[] json = "xx[1, \"two\", true]yy".toCharArray();
+        Object result = new JsonDecoder(json, 2, json.length - 4).nextJsonValue();
+        assertThat((Iterable<Object>) result, contains(Integer.valueOf(1), "two", Boolean.TRUE));
+    }
+
+    @Test
+    void whitespaceAroundSeparators() throws IOException {
+        Object result = new JsonDecoder(" { \"a\" : [ 1 , 2 ] ,\n\t\"b\" : \"c\" \r\n} ").nextJsonValue();
+        assertThat(((Map<?, ?>) result).get("b"), is("c"));
+        assertThat((Iterable<Object>) ((Map<?, ?>) result).get("a"), contains(Integer.valueOf(1), Integer.valueOf(2)));
+    }
+
+    @Test
+    void multipleValuesFromReader() throws IOException {
+        JsonDecoder decoder = new JsonDecoder(new StringReader("1 \"two\" [3]"));
+        assertThat(decoder.nextJsonValue(), is(Integer.valueOf(1)));
+        assertThat(decoder.nextJsonValue(), is("two"));
+        assertThat((Iterable<Object>) decoder.nextJsonValue(), contains(Integer.valueOf(3)));
+    }
+}
@@ -3,6 +3,7 @@ package com.lemnik.minijson;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -69,4 +70,31 @@ class DecodeStringLiteralTest {
         assertThrows(IOException.class, () -> new JsonDecoder("\"\\u[]\"").nextJsonValue());
         assertThrows(IOException.class, () -> new JsonDecoder("\"\\u\"").nextJsonValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void subclassReadsCustomEscapes() throws IOException {
+        class HexEscapeDecoder extends JsonDecoder {
+            HexEscapeDecoder(String json) {
+                super(json);
+            }
+
+            HexEscapeDecoder(byte[] json) {
+                super(json);
+            }
+
+            @Override
+            protected char unexpectedEscapeCharacter(int codePoint) throws IOException {
+                if (codePoint != 'x') {
+                    return super.unexpectedEscapeCharacter(codePoint);
+                }
+
+                return (char) Integer.parseInt(new String(new char[]{(char) readChar(), (char) readChar()}), 16);
+            }
+        }
+
+        assertThat(new HexEscapeDecoder("\"a\\x41b\"").nextJsonValue(), is("aAb"));
+        assertThat(new HexEscapeDecoder("[\"\\x7e\"]".getBytes("UTF-8")).nextJsonValue(),
+                is(Collections.singletonList("~")));
+        assertThrows(IOException.class, () -> new HexEscapeDecoder("\"\\k\"").nextJsonValue());
+    }
+}
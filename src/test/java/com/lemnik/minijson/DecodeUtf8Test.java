@@ -0,0 +1,74 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecodeUtf8Test {
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    @Test
+    void multiByteStringLiteral() throws IOException {
+        String text = "Привет 你好 안녕하십니까 今日は！ 😀 é";
+        Object result = new JsonDecoder(utf8('"' + text + '"')).nextJsonValue();
+        assertThat(result, is(text));
+    }
+
+    @Test
+    void escapesInUtf8() throws IOException {
+        Object result = new JsonDecoder(utf8("\"a\\tb\\u00e9 é\\\"\"")).nextJsonValue();
+        assertThat(result, is("a\tbé é\""));
+    }
+
+    @Test
+    void bigFileAgreesWithString() throws IOException {
+        String json = DecodeSourceTest.readBigFile();
+        Object expected = new JsonDecoder(json).nextJsonValue();
+
+        assertThat(new JsonDecoder(utf8(json)).nextJsonValue(), is(expected));
+        assertThat(Json.parse(ByteBuffer.wrap(utf8(json))), is(expected));
+        assertThat(Json.parse(direct(utf8(json))), is(expected));
+    }
+
+    @Test
+    void longMultiByteStringInDirectBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("abé你😀");
+        }
+
+        ByteBuffer buffer = direct(utf8("{\"text\": \"" + text + "\"}"));
+        Map<?, ?> result = (Map<?, ?>) new JsonDecoder(buffer).nextJsonValue();
+        assertThat(result.get("text"), is(text.toString()));
+        assertThat(buffer.position(), is(0));
+    }
+
+    @Test
+    void byteArrayRange() throws IOException {
+        byte[] json = utf8("--[1,\"é\"]--");
+        Object result = new JsonDecoder(json, 2, json.length - 4).nextJsonValue();
+        assertThat(result, is(Json.parse("[1,\"é\"]")));
+    }
+
+    @Test
+    void malformedUtf8() {
+        assertThrows(IOException.class, () -> new JsonDecoder(new byte[]{'"', (byte) 0xc3, '"'}).nextJsonValue());
+        assertThrows(IOException.class, () -> new JsonDecoder(new byte[]{'"', (byte) 0xff, '"'}).nextJsonValue());
+        assertThrows(IOException.class, () -> new JsonDecoder(new byte[]{'"', (byte) 0xe4, (byte) 0xbd}).nextJsonValue());
+    }
+}
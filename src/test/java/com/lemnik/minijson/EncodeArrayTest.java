@@ -12,33 +12,37 @@ import static org.hamcrest.Matchers.is;
 
 class EncodeArrayTest {
     private StringWriter sw;
+    private JsonEncoder encoder;
 
     @BeforeEach
     void setUp() {
         sw = new StringWriter();
+        encoder = new JsonEncoder(sw);
     }
 
     @Test
     void encodeMixedConstantArray() throws IOException {
-        new JsonEncoder(sw).writeValue(Arrays.asList(
+        encoder.writeValue(Arrays.asList(
                 null,
                 Boolean.TRUE,
                 Json.NULL,
                 Boolean.FALSE
         ));
+        encoder.flush();
 
         assertThat(sw.toString(), is("[null,true,null,false]"));
     }
 
     @Test
     void encodeIntegerArray() throws IOException {
-        new JsonEncoder(sw).writeValue(Arrays.asList(
+        encoder.writeValue(Arrays.asList(
                 Integer.valueOf(1),
                 Integer.valueOf(2),
                 Integer.valueOf(3),
                 Integer.valueOf(4),
                 Integer.valueOf(5)
         ));
+        encoder.flush();
 
         assertThat(sw.toString(), is("[1,2,3,4,5]"));
     }
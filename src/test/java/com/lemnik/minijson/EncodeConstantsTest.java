@@ -5,39 +5,75 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.UUID;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 class EncodeConstantsTest {
     private StringWriter sw;
+    private JsonEncoder encoder;
 
     @BeforeEach
     void setUp() {
         sw = new StringWriter();
+        encoder = new JsonEncoder(sw);
     }
 
     @Test
     void encodeTrue() throws IOException {
-        new JsonEncoder(sw).writeValue((Object) Boolean.TRUE);
+        encoder.writeValue((Object) Boolean.TRUE);
+        encoder.flush();
         assertThat(sw.toString(), is("true"));
     }
 
     @Test
     void encodeFalse() throws IOException {
-        new JsonEncoder(sw).writeValue((Object) Boolean.FALSE);
+        encoder.writeValue((Object) Boolean.FALSE);
+        encoder.flush();
         assertThat(sw.toString(), is("false"));
     }
 
     @Test
     void encodeNull() throws IOException {
-        new JsonEncoder(sw).writeValue((Object) null);
+        encoder.writeValue((Object) null);
+        encoder.flush();
         assertThat(sw.toString(), is("null"));
     }
 
     @Test
     void encodeJsonNull() throws IOException {
-        new JsonEncoder(sw).writeValue((Object) Json.NULL);
+        encoder.writeValue((Object) Json.NULL);
+        encoder.flush();
         assertThat(sw.toString(), is("null"));
     }
+
+    @Test
+    void encodePrimitiveBooleans() throws IOException {
+        encoder.writeValue(true);
+        encoder.writeValue(false);
+        encoder.flush();
+        assertThat(sw.toString(), is("truefalse"));
+    }
+
+    @Test
+    void subclassWritesRawTokens() throws IOException {
+        JsonEncoder custom = new JsonEncoder(sw) {
+            @Override
+            protected void writeValue(Object object) throws IOException {
+                if (object instanceof UUID) {
+                    writeRaw('{');
+                    writeRaw("\"uuid\":");
+                    writeValue(object.toString());
+                    writeRaw('}');
+                } else {
+                    super.writeValue(object);
+                }
+            }
+        };
+
+        custom.writeValue((Object) new UUID(0, 1));
+        custom.flush();
+        assertThat(sw.toString(), is("{\"uuid\":\"00000000-0000-0000-0000-000000000001\"}"));
+    }
 }
@@ -0,0 +1,114 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class EncodeNameTest {
+    private static final JsonName ID = JsonName.of("id");
+    private static final JsonName ESCAPED = JsonName.of("a\"b\\c\né日");
+
+    @Test
+    void preEncoded() {
+        assertThat(new String(ESCAPED.chars), is("\"a\\\"b\\\\c\\né日\""));
+        assertThat(new String(ESCAPED.utf8, StandardCharsets.UTF_8), is("\"a\\\"b\\\\c\\né日\""));
+        assertThat(ESCAPED.toString(), is("a\"b\\c\né日"));
+        assertThat(ID, is(JsonName.of("id")));
+        assertThat(ID.length(), is(2));
+    }
+
+    @Test
+    void preEncodedAsTheSinksEncode() throws IOException {
+        String[] names = {"", "plain", "\u0000\u001f\t\"\\", "é日", "\ud83d\ude00", "a\ud800", "\udc00b", "\ud800\ud800"};
+        for (String value : names) {
+            StringWriter chars = new StringWriter();
+            CharSink charSink = new CharSink(chars);
+            charSink.writeString(value);
+            charSink.flush();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Utf8Sink utf8Sink = new Utf8Sink(bytes);
+            utf8Sink.writeString(value);
+            utf8Sink.flush();
+
+            JsonName name = JsonName.of(value);
+            assertThat(new String(name.chars), is(chars.toString()));
+            assertThat(name.utf8, is(bytes.toByteArray()));
+        }
+    }
+
+    @Test
+    void writerNames() throws IOException {
+        StringWriter chars = new StringWriter();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (JsonWriter writer : Arrays.asList(new JsonWriter(chars), new JsonWriter(bytes))) {
+            writer.beginObject().name(ID).value(1).name(ESCAPED).value(ESCAPED).name("plain").value(2).endObject();
+            writer.close();
+        }
+
+        String expected = "{\"id\":1,\"a\\\"b\\\\c\\né日\":\"a\\\"b\\\\c\\né日\",\"plain\":2}";
+        assertThat(chars.toString(), is(expected));
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8), is(expected));
+    }
+
+    @Test
+    void nameCacheMatchesUncached() throws IOException {
+        char[] longKey = new char[100];
+        Arrays.fill(longKey, 'k');
+
+        List<Object> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("id", i);
+            record.put("tab\there", "x");
+            record.put("über", true);
+            record.put(new String(longKey), null);
+            records.add(record);
+        }
+
+        JsonNameCache cache = new JsonNameCache(16);
+        assertThat(encode(records, cache, false), is(encode(records, null, false)));
+        assertThat(encode(records, cache, true), is(encode(records, null, true)));
+        assertThat(cache.get("id"), is(sameInstance(cache.get("id"))));
+        assertThat(cache.get(new String(longKey)), is(nullValue()));
+    }
+
+    private static String encode(Object value, JsonNameCache cache, boolean utf8) throws IOException {
+        StringWriter chars = new StringWriter();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonEncoder encoder = utf8 ? new JsonEncoder(bytes) : new JsonEncoder(chars);
+        encoder.setNameCache(cache);
+        encoder.writeValue(value);
+        encoder.flush();
+        return utf8 ? new String(bytes.toByteArray(), StandardCharsets.UTF_8) : chars.toString();
+    }
+
+    @Test
+    void namesLongerThanTheBuffer() throws IOException {
+        char[] content = new char[20_000];
+        Arrays.fill(content, 'n');
+        JsonName name = JsonName.of(new String(content));
+
+        StringWriter chars = new StringWriter();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (JsonWriter writer : Arrays.asList(new JsonWriter(chars), new JsonWriter(bytes))) {
+            writer.beginObject().name("x").value(1).name(name).value(2).endObject();
+            writer.close();
+        }
+
+        String expected = "{\"x\":1,\"" + new String(content) + "\":2}";
+        assertThat(chars.toString(), is(expected));
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8), is(expected));
+    }
+}
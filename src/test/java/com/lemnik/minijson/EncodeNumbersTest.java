@@ -3,53 +3,88 @@ package com.lemnik.minijson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 class EncodeNumbersTest {
     private StringWriter sw;
+    private JsonEncoder encoder;
 
     @BeforeEach
     void setUp() {
         sw = new StringWriter();
+        encoder = new JsonEncoder(sw);
     }
 
     @Test
     void encodeInteger() throws IOException {
-        new JsonEncoder(sw).writeValue(Integer.valueOf(123987));
+        encoder.writeValue(Integer.valueOf(123987));
+        encoder.flush();
         assertThat(sw.toString(), is("123987"));
     }
 
     @Test
     void encodeMinInteger() throws IOException {
-        new JsonEncoder(sw).writeValue(Integer.valueOf(Integer.MIN_VALUE));
+        encoder.writeValue(Integer.valueOf(Integer.MIN_VALUE));
+        encoder.flush();
         assertThat(sw.toString(), is(Integer.toString(Integer.MIN_VALUE)));
     }
 
     @Test
     void encodeMaxInteger() throws IOException {
-        new JsonEncoder(sw).writeValue(Integer.valueOf(Integer.MAX_VALUE));
+        encoder.writeValue(Integer.valueOf(Integer.MAX_VALUE));
+        encoder.flush();
         assertThat(sw.toString(), is(Integer.toString(Integer.MAX_VALUE)));
     }
 
     @Test
     void encodeDouble() throws IOException {
-        new JsonEncoder(sw).writeValue(Double.valueOf(10.5f));
+        encoder.writeValue(Double.valueOf(10.5f));
+        encoder.flush();
         assertThat(sw.toString(), is("10.5"));
     }
 
     @Test
     void testMinDouble() throws IOException {
-        new JsonEncoder(sw).writeValue(Double.valueOf(Double.MIN_VALUE));
+        encoder.writeValue(Double.valueOf(Double.MIN_VALUE));
+        encoder.flush();
         assertThat(sw.toString(), is("4.9E-324"));
     }
 
     @Test
     void testMaxDouble() throws IOException {
-        new JsonEncoder(sw).writeValue(Double.valueOf(Double.MAX_VALUE));
+        encoder.writeValue(Double.valueOf(Double.MAX_VALUE));
+        encoder.flush();
         assertThat(sw.toString(), is("1.7976931348623157E308"));
     }
+
+    @Test
+    void encodePrimitives() throws IOException {
+        encoder.writeValue(Long.MIN_VALUE);
+        encoder.writeValue(-42);
+        encoder.writeValue(0.1);
+        encoder.flush();
+        assertThat(sw.toString(), is("-9223372036854775808-420.1"));
+    }
+
+    @Test
+    void encodeNumberArraysAsUtf8() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[[1,-2,3],[1,-12345678901],[1.5,2.0E-5]]");
+        decoder.setNumericArrays(true);
+        Object arrays = decoder.nextJsonValue();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonEncoder utf8 = new JsonEncoder(bytes);
+        utf8.writeValue(arrays);
+        utf8.writeValue(Arrays.asList(7L, (short) 3, 0.25f, Double.valueOf(1.0E21)));
+        utf8.flush();
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8),
+                is("[[1,-2,3],[1,-12345678901],[1.5,2.0E-5]][7,3,0.25,1.0E21]"));
+    }
 }
@@ -0,0 +1,131 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EncodeParallelTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdown();
+    }
+
+    private static List<Object> records(int count) {
+        List<Object> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("id", i);
+            record.put("name", "név \"" + i + "\" 😀");
+            record.put("tags", Arrays.asList(i % 3, 1.5, Boolean.TRUE, Json.NULL));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static String sequential(Object value) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonEncoder encoder = new JsonEncoder(out);
+        encoder.writeValue(value);
+        encoder.flush();
+        return out.toString();
+    }
+
+    private JsonEncoder parallel(JsonEncoder encoder) {
+        encoder.setParallelExecutor(executor);
+        encoder.setParallelThreshold(1000);
+        return encoder;
+    }
+
+    @Test
+    void writerMatchesSequential() throws IOException {
+        List<Object> records = records(20_000);
+        StringWriter out = new StringWriter();
+        JsonEncoder encoder = parallel(new JsonEncoder(out));
+        encoder.writeValue(records);
+        encoder.flush();
+        assertThat(out.toString(), is(sequential(records)));
+    }
+
+    @Test
+    void mapMatchesSequential() throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        List<Object> records = records(5_000);
+        for (int i = 0; i < records.size(); i++) {
+            object.put("key" + i, records.get(i));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonEncoder encoder = parallel(new JsonEncoder(out));
+        encoder.writeValue(object);
+        encoder.flush();
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(sequential(object)));
+    }
+
+    @Test
+    void gatheringChannelAndByteBuffer() throws IOException {
+        List<Object> records = records(20_000);
+        String expected = sequential(records);
+
+        Path file = Files.createTempFile("parallel", ".json");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            JsonEncoder encoder = parallel(new JsonEncoder(channel));
+            encoder.writeValue(records);
+            encoder.flush();
+        }
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), is(expected));
+        Files.delete(file);
+
+        ByteBuffer target = ByteBuffer.allocate(expected.length() * 2);
+        JsonEncoder encoder = parallel(new JsonEncoder(target));
+        encoder.writeValue(records);
+        encoder.flush();
+        target.flip();
+        assertThat(StandardCharsets.UTF_8.decode(target).toString(), is(expected));
+    }
+
+    @Test
+    void belowThresholdAndNested() throws IOException {
+        List<Object> nested = Arrays.asList(records(10), records(3_000), "tail");
+        StringWriter out = new StringWriter();
+        JsonEncoder encoder = parallel(new JsonEncoder(out));
+        encoder.writeValue(nested);
+        encoder.flush();
+        assertThat(out.toString(), is(sequential(nested)));
+    }
+
+    @Test
+    void workerFailure() {
+        List<Object> records = records(5_000);
+        records.set(4_000, new Object());
+        JsonEncoder encoder = parallel(new JsonEncoder(new StringWriter()));
+        assertThrows(IllegalArgumentException.class, () -> encoder.writeValue(records));
+    }
+}
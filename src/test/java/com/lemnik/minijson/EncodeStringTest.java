@@ -0,0 +1,73 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class EncodeStringTest {
+    private StringWriter sw;
+    private JsonEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        sw = new StringWriter();
+        encoder = new JsonEncoder(sw);
+    }
+
+    @Test
+    void encodeEscapes() throws IOException {
+        encoder.writeValue("\" \\ / \b \f \n \r \t \u0001");
+        encoder.flush();
+        assertThat(sw.toString(), is("\"\\\" \\\\ / \\b \\f \\n \\r \\t \\u0001\""));
+    }
+
+    @Test
+    void encodeUnicode() throws IOException {
+        encoder.writeValue("Привет 你好 😀");
+        encoder.flush();
+        assertThat(sw.toString(), is("\"Привет 你好 😀\""));
+    }
+
+    @Test
+    void encodeCharSequences() throws IOException {
+        encoder.writeValue(new StringBuilder("builder\n"));
+        encoder.writeValue(CharBuffer.wrap("buffer\t"));
+        encoder.flush();
+        assertThat(sw.toString(), is("\"builder\\n\"\"buffer\\t\""));
+    }
+
+    @Test
+    void outputIsBufferedUntilFlush() throws IOException {
+        encoder.writeValue("buffered");
+        assertThat(sw.toString(), is(""));
+        encoder.flush();
+        assertThat(sw.toString(), is("\"buffered\""));
+    }
+
+    @Test
+    void encodeLargerThanBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("line ").append(i).append("\n\"quoted\"");
+        }
+
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("text", text.toString());
+        object.put("builder", text);
+
+        encoder.writeValue(object);
+        encoder.close();
+
+        Map<?, ?> result = (Map<?, ?>) Json.parse(sw.toString());
+        assertThat(result.get("text"), is(text.toString()));
+        assertThat(result.get("builder"), is(text.toString()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class EncodeUtf8Test {
+    private static Map<String, Object> sample() {
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            longText.append("abc\"é你😀\n");
+        }
+
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("ascii", "plain value");
+        object.put("ключ", "Привет 你好 안녕하십니까 今日は！ 😀");
+        object.put("escapes", "\" \\ \b \f \n \r \t \u001f");
+        object.put("long", longText.toString());
+        object.put("array", Arrays.asList(1, 2.5, Boolean.TRUE, Json.NULL));
+        return object;
+    }
+
+    @Test
+    void outputStreamMatchesString() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonEncoder encoder = new JsonEncoder(out);
+        encoder.writeValue(sample());
+        encoder.flush();
+
+        assertThat(Json.parse(out.toByteArray()), is((Object) sample()));
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(encodeToString(sample())));
+    }
+
+    @Test
+    void channel() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonEncoder encoder = new JsonEncoder(Channels.newChannel(out));
+        encoder.writeValue(sample());
+        encoder.close();
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(encodeToString(sample())));
+    }
+
+    @Test
+    void byteBuffer() throws IOException {
+        ByteBuffer target = ByteBuffer.allocateDirect(1 << 16);
+        JsonEncoder encoder = new JsonEncoder(target);
+        encoder.writeValue(sample());
+        encoder.flush();
+
+        target.flip();
+        byte[] bytes = new byte[target.remaining()];
+        target.get(bytes);
+        assertThat(new String(bytes, StandardCharsets.UTF_8), is(encodeToString(sample())));
+    }
+
+    @Test
+    void unpairedSurrogate() throws IOException {
+        String value = "a\ud800b\udc00\ud83d\ude00\ud83d";
+        String expected = "\"a\\ud800b\\udc00\ud83d\ude00\\ud83d\"";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonEncoder encoder = new JsonEncoder(out);
+        encoder.writeValue(value);
+        encoder.flush();
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(expected));
+        assertThat(encodeToString(value), is(expected));
+        assertThat(Json.parse(expected), is(value));
+    }
+
+    private static String encodeToString(Object value) throws IOException {
+        StringWriter sw = new StringWriter();
+        JsonEncoder encoder = new JsonEncoder(sw);
+        encoder.writeValue(value);
+        encoder.flush();
+        return sw.toString();
+    }
+}
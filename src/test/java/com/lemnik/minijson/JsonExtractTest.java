@@ -0,0 +1,79 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonExtractTest {
+    private static final String JSON = "{\"user\": {\"id\": 42, \"name\": \"mini\"}, \"items\": [{\"name\": \"a\"},"
+            + " {\"name\": \"b\", \"tags\": [\"x\", \"y\"]}], \"a/b\": 1, \"m~n\": 2, \"\": 3}";
+
+    @Test
+    void extractPaths() {
+        Object[] values = Json.extract(JSON, "/user/id", "/items/1/name", "/items/1/tags/1", "/missing", "/items/2");
+        assertThat(values, is(new Object[]{42, "b", "y", null, null}));
+    }
+
+    @Test
+    void escapedTokens() {
+        assertThat(Json.extract(JSON, "/a~1b", "/m~0n", "/"), is(new Object[]{1, 2, 3}));
+    }
+
+    @Test
+    void wholeDocumentAndNestedPointers() {
+        Object[] values = Json.extract(JSON.getBytes(StandardCharsets.UTF_8), "/user", "/user/name", "");
+        assertThat(((Map<?, ?>) values[0]).get("id"), is(42));
+        assertThat(values[1], is("mini"));
+        assertThat(values[2], is(Json.parse(JSON)));
+    }
+
+    @Test
+    void arrayIndexes() {
+        Object[] values = Json.extract("[10, [20, 30]]", "/1/0", "/01", "/-", "/0");
+        assertThat(values, is(new Object[]{20, null, null, 10}));
+    }
+
+    @Test
+    void stopsOnceEverythingIsFound() throws IOException {
+        // the input after "a" is malformed, but never read
+        JsonDecoder decoder = new JsonDecoder("{\"a\": 1, \"b\": ]");
+        assertThat(decoder.extract("/a"), is(new Object[]{1}));
+    }
+
+    @Test
+    void skipValue() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("{\"a\": [\"]\", {\"}\": null}]} \"\\\"\" -1.5e3 true [] 7");
+        decoder.skipValue();
+        decoder.skipValue();
+        decoder.skipValue();
+        decoder.skipValue();
+        decoder.skipValue();
+        assertThat(decoder.nextJsonValue(), is(7));
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IllegalArgumentException.class, () -> Json.extract(JSON, "user"));
+        assertThrows(IllegalArgumentException.class, () -> Json.extract(JSON, "/user~2"));
+        assertThrows(IllegalArgumentException.class, () -> Json.extract("{\"a\" 1}", "/b"));
+        assertThat(Json.extract("[]", new String[0]), is(new Object[0]));
+        assertThat(Json.extract("{}", "/a"), is(new Object[]{null}));
+        assertThat(Json.extract("[[]]", "/0"), is(new Object[]{Collections.emptyList()}));
+        assertThat(Json.extract("[1, [2]]", "/1"), is(new Object[]{Arrays.asList(2)}));
+    }
+
+    @Test
+    void duplicateNamesResolveToTheFirstOccurrence() {
+        String json = "{\"a\": 1, \"b\": {\"c\": 2}, \"a\": 3, \"b\": {\"c\": 4}}";
+        assertThat(Json.extract(json, "/a", "/b/c"), is(new Object[]{1, 2}));
+        assertThat(((java.util.Map<?, ?>) Json.parse(json)).get("a"), is(3));
+    }
+}
@@ -0,0 +1,103 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonIndexTest {
+    private static final String JSON =
+            "{\"name\": \"mini\", \"tags\": [\"a\", \"b\\\"]\", 3], \"nested\": {\"x\": 1.5, \"y\": null, \"z\": true},"
+                    + " \"empty\": {}, \"none\": [], \"big\": 12345678901}";
+
+    @Test
+    void navigate() throws IOException {
+        JsonIndex index = JsonIndex.build(JSON);
+        int root = index.root();
+        assertThat(index.type(root), is(JsonToken.BEGIN_OBJECT));
+        assertThat(index.size(root), is(6));
+
+        List<String> names = new ArrayList<>();
+        for (int child = index.firstChild(root); child != -1; child = index.nextSibling(child)) {
+            names.add(index.name(child));
+        }
+        assertThat(names, contains("name", "tags", "nested", "empty", "none", "big"));
+
+        assertThat(index.getString(index.get(root, "name")), is("mini"));
+
+        int tags = index.get(root, "tags");
+        assertThat(index.type(tags), is(JsonToken.BEGIN_ARRAY));
+        assertThat(index.size(tags), is(3));
+        assertThat(index.getString(index.get(tags, 1)), is("b\"]"));
+        assertThat(index.getLong(index.get(tags, 2)), is(3L));
+        assertThat(index.get(tags, 3), is(-1));
+
+        int nested = index.get(root, "nested");
+        assertThat(index.getDouble(index.get(nested, "x")), is(1.5));
+        assertThat(index.isNull(index.get(nested, "y")), is(true));
+        assertThat(index.getBoolean(index.get(nested, "z")), is(true));
+        assertThat(index.get(nested, "w"), is(-1));
+
+        assertThat(index.firstChild(index.get(root, "empty")), is(-1));
+        assertThat(index.firstChild(index.get(root, "none")), is(-1));
+        assertThat(index.getLong(index.get(root, "big")), is(12345678901L));
+    }
+
+    @Test
+    void getValueMatchesDecoder() throws IOException {
+        String json = DecodeSourceTest.readBigFile();
+        JsonIndex index = JsonIndex.build(json.getBytes(StandardCharsets.UTF_8));
+        List<?> expected = (List<?>) Json.parse(json);
+
+        assertThat(index.size(index.root()), is(expected.size()));
+        int node = index.firstChild(index.root());
+        for (Object element : expected) {
+            assertThat(index.getValue(node), is(element));
+            assertThat(index.getString(index.get(node, "first_name")), is(((Map<?, ?>) element).get("first_name")));
+            node = index.nextSibling(node);
+        }
+        assertThat(node, is(-1));
+    }
+
+    @Test
+    void duplicateSharesStructure() throws IOException {
+        JsonIndex index = JsonIndex.build("[1, [2, 3]]");
+        JsonIndex copy = index.duplicate();
+        assertThat(copy.getValue(copy.get(index.root(), 1)), is(Arrays.asList(2, 3)));
+        assertThat(index.getLong(index.get(index.root(), 0)), is(1L));
+    }
+
+    @Test
+    void scalarDocument() throws IOException {
+        JsonIndex index = JsonIndex.build("  \"text\"  ");
+        assertThat(index.type(index.root()), is(JsonToken.STRING));
+        assertThat(index.getString(index.root()), is("text"));
+        assertThat(index.firstChild(index.root()), is(-1));
+    }
+
+    @Test
+    void wrongType() throws IOException {
+        JsonIndex index = JsonIndex.build("{\"a\": 1}");
+        assertThrows(IllegalStateException.class, () -> index.getString(index.get(index.root(), "a")));
+        assertThrows(IllegalStateException.class, () -> index.get(index.root(), 0));
+        assertThrows(IllegalStateException.class, () -> index.name(index.root()));
+    }
+
+    @Test
+    void malformedStructure() {
+        assertThrows(IOException.class, () -> JsonIndex.build(""));
+        assertThrows(IOException.class, () -> JsonIndex.build("{\"a\" 1}"));
+        assertThrows(IOException.class, () -> JsonIndex.build("[1, 2"));
+        assertThrows(IOException.class, () -> JsonIndex.build("[1, 2]]"));
+        assertThrows(IOException.class, () -> JsonIndex.build("{\"a\": 1,}"));
+        assertThrows(IOException.class, () -> JsonIndex.build("[\"unterminated]"));
+    }
+}
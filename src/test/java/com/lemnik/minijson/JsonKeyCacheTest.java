@@ -0,0 +1,88 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class JsonKeyCacheTest {
+    @Test
+    void internReturnsSameInstance() {
+        JsonKeyCache cache = new JsonKeyCache(16);
+        String first = cache.intern(new StringBuilder("first_name"));
+        assertThat(first, is("first_name"));
+        assertThat(cache.intern(new StringBuilder("first_name")), is(sameInstance(first)));
+        assertThat(cache.intern("first_name"), is(sameInstance(first)));
+    }
+
+    @Test
+    void boundedCapacity() {
+        JsonKeyCache cache = new JsonKeyCache(8);
+        for (int i = 0; i < 10000; i++) {
+            assertThat(cache.intern("key" + i), is("key" + i));
+        }
+    }
+
+    @Test
+    void longKeysAreNotCached() {
+        JsonKeyCache cache = new JsonKeyCache(16);
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i <= JsonKeyCache.MAX_KEY_LENGTH; i++) {
+            key.append('k');
+        }
+
+        assertThat(cache.intern(key), is(not(sameInstance(cache.intern(key)))));
+        assertThat(cache.intern(key), is(key.toString()));
+    }
+
+    @Test
+    void decodersShareKeys() throws IOException {
+        JsonKeyCache cache = new JsonKeyCache(64);
+        String json = DecodeSourceTest.readBigFile();
+
+        JsonDecoder first = new JsonDecoder(json);
+        first.setKeyCache(cache);
+        JsonDecoder second = new JsonDecoder(json.getBytes("UTF-8"));
+        second.setKeyCache(cache);
+
+        List<?> firstResult = (List<?>) first.nextJsonValue();
+        List<?> secondResult = (List<?>) second.nextJsonValue();
+        assertThat(secondResult, is((Object) firstResult));
+
+        for (Object element : secondResult) {
+            Iterator<?> keys = ((Map<?, ?>) element).keySet().iterator();
+            Iterator<?> expected = ((Map<?, ?>) firstResult.get(0)).keySet().iterator();
+            while (keys.hasNext()) {
+                assertThat(keys.next(), is(sameInstance(expected.next())));
+            }
+        }
+    }
+
+    @Test
+    void cacheCanBeDisabled() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[{\"key\": 1}, {\"key\": 2}]");
+        decoder.setKeyCache(null);
+        List<?> result = (List<?>) decoder.nextJsonValue();
+
+        Object firstKey = ((Map<?, ?>) result.get(0)).keySet().iterator().next();
+        Object secondKey = ((Map<?, ?>) result.get(1)).keySet().iterator().next();
+        assertThat(firstKey, is(secondKey));
+        assertThat(firstKey, is(not(sameInstance(secondKey))));
+    }
+
+    @Test
+    void eachDecoderHasItsOwnCacheByDefault() throws IOException {
+        String json = "[{\"key\": 1}, {\"key\": 2}]";
+        List<?> first = (List<?>) new JsonDecoder(json).nextJsonValue();
+        List<?> second = (List<?>) new JsonDecoder(json).nextJsonValue();
+
+        Object firstKey = ((Map<?, ?>) first.get(0)).keySet().iterator().next();
+        assertThat(((Map<?, ?>) first.get(1)).keySet().iterator().next(), is(sameInstance(firstKey)));
+        assertThat(((Map<?, ?>) second.get(0)).keySet().iterator().next(), is(not(sameInstance(firstKey))));
+    }
+}
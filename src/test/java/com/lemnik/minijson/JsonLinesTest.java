@@ -0,0 +1,130 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonLinesTest {
+    private static final int LINES = 50_000;
+
+    private static byte[] lines() {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            json.append("{\"id\": ").append(i).append(", \"name\": \"n\\u00e9").append(i).append("\"}");
+            json.append(i % 7 == 0 ? "\r\n" : "\n");
+            if (i % 1000 == 0) {
+                json.append("  \n");
+            }
+        }
+
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertAllLines(List<Object> values) {
+        assertThat(values.size(), is(LINES));
+        for (int i = 0; i < LINES; i++) {
+            Map<?, ?> value = (Map<?, ?>) values.get(i);
+            assertThat(value.get("id"), is(i));
+            assertThat(value.get("name"), is("né" + i));
+        }
+    }
+
+    @Test
+    void parallelStreamKeepsOrder() {
+        assertAllLines(JsonLines.of(lines()).stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void directBuffer() {
+        byte[] lines = lines();
+        ByteBuffer direct = ByteBuffer.allocateDirect(lines.length);
+        direct.put(lines).flip();
+        assertAllLines(JsonLines.of(direct).stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void inputStream() {
+        assertAllLines(JsonLines.of(new ByteArrayInputStream(lines())).stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void mappedFile() throws IOException {
+        Path file = Files.createTempFile("lines", ".ndjson");
+        try {
+            Files.write(file, lines());
+            assertAllLines(JsonLines.open(file).stream().collect(Collectors.toList()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void executorOrdered() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Object> values = new ArrayList<>();
+            JsonLines.of(new ByteArrayInputStream(lines())).forEach(executor, true, values::add);
+            assertAllLines(values);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void executorUnordered() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Object> values = new ArrayList<>();
+            JsonLines.of(lines()).forEach(executor, false, values::add);
+
+            assertThat(values.size(), is(LINES));
+            HashSet<Object> ids = new HashSet<>();
+            for (Object value : values) {
+                ids.add(((Map<?, ?>) value).get("id"));
+            }
+            assertThat(ids.size(), is(LINES));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void lastLineWithoutNewline() {
+        byte[] json = "1\n[2]\n\"three\"".getBytes(StandardCharsets.UTF_8);
+        assertThat(JsonLines.of(json).stream().collect(Collectors.toList()),
+                is(Arrays.<Object>asList(1, Arrays.asList(2), "three")));
+        assertThat(JsonLines.of(new ByteArrayInputStream(json)).stream().collect(Collectors.toList()),
+                is(Arrays.<Object>asList(1, Arrays.asList(2), "three")));
+        assertThat(JsonLines.of(new byte[0]).stream().count(), is(0L));
+    }
+
+    @Test
+    void malformedLine() {
+        byte[] json = "1\n2 3\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> JsonLines.of(json).stream().count());
+    }
+
+    @Test
+    void consumedOnce() {
+        JsonLines lines = JsonLines.of(new byte[0]);
+        lines.spliterator();
+        assertThrows(IllegalStateException.class, lines::stream);
+    }
+}
@@ -0,0 +1,118 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonReaderTest {
+    @Test
+    void readObjectTokens() throws IOException {
+        JsonReader reader = new JsonReader(
+                "{\"name\": \"value\", \"int\": -12, \"long\": 12345678901, \"double\": 1.5e2, " +
+                        "\"yes\": true, \"no\": false, \"nothing\": null, \"array\": [1, [], {}]}");
+
+        assertThat(reader.peek(), is(JsonToken.BEGIN_OBJECT));
+        reader.beginObject();
+        assertThat(reader.nextName(), is("name"));
+        assertThat(reader.nextString(), is("value"));
+        assertThat(reader.nextName(), is("int"));
+        assertThat(reader.nextInt(), is(-12));
+        assertThat(reader.nextName(), is("long"));
+        assertThat(reader.nextLong(), is(12345678901L));
+        assertThat(reader.nextName(), is("double"));
+        assertThat(reader.nextDouble(), is(150.0));
+        assertThat(reader.nextName(), is("yes"));
+        assertThat(reader.nextBoolean(), is(true));
+        assertThat(reader.nextName(), is("no"));
+        assertThat(reader.nextBoolean(), is(false));
+        assertThat(reader.nextName(), is("nothing"));
+        assertThat(reader.peek(), is(JsonToken.NULL));
+        reader.nextNull();
+        assertThat(reader.nextName(), is("array"));
+        reader.beginArray();
+        assertThat(reader.nextInt(), is(1));
+        reader.beginArray();
+        assertThat(reader.hasNext(), is(false));
+        reader.endArray();
+        reader.beginObject();
+        assertThat(reader.hasNext(), is(false));
+        reader.endObject();
+        assertThat(reader.hasNext(), is(false));
+        reader.endArray();
+        assertThat(reader.hasNext(), is(false));
+        reader.endObject();
+        assertThat(reader.peek(), is(JsonToken.END_DOCUMENT));
+    }
+
+    @Test
+    void streamArrayElements() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(DecodeSourceTest.readBigFile()));
+        List<?> expected = (List<?>) Json.parse(DecodeSourceTest.readBigFile());
+
+        int index = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Map<?, ?> element = (Map<?, ?>) reader.nextJsonValue();
+            assertThat(element, is(expected.get(index++)));
+        }
+        reader.endArray();
+
+        assertThat(index, is(expected.size()));
+        assertThat(reader.peek(), is(JsonToken.END_DOCUMENT));
+    }
+
+    @Test
+    void mixNestedValues() throws IOException {
+        JsonReader reader = new JsonReader("[{\"a\": [1, 2]}, \"text\"]".getBytes("UTF-8"));
+        reader.beginArray();
+        reader.beginObject();
+        assertThat(reader.nextName(), is("a"));
+        assertThat(reader.nextJsonValue(), is((Object) Arrays.asList(1, 2)));
+        reader.endObject();
+        assertThat(reader.nextJsonValue(), is((Object) "text"));
+        reader.endArray();
+    }
+
+    @Test
+    void wrongToken() {
+        assertThrows(IllegalStateException.class, () -> new JsonReader("[1]").beginObject());
+        assertThrows(IllegalStateException.class, () -> new JsonReader("\"1\"").nextInt());
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IOException.class, () -> {
+            JsonReader reader = new JsonReader("[1 2]");
+            reader.beginArray();
+            reader.nextInt();
+            reader.nextInt();
+        });
+
+        assertThrows(IOException.class, () -> {
+            JsonReader reader = new JsonReader("{\"a\" 1}");
+            reader.beginObject();
+            reader.nextName();
+            reader.nextInt();
+        });
+    }
+
+    @Test
+    void numbersOutOfRange() throws IOException {
+        JsonReader reader = new JsonReader("[3000000000, 1.5, 1e30, 2.0, 7]");
+        reader.beginArray();
+        assertThrows(IOException.class, reader::nextInt);
+        assertThrows(IOException.class, reader::nextLong);
+        assertThrows(IOException.class, reader::nextLong);
+        assertThat(reader.nextInt(), is(2));
+        assertThat(reader.nextLong(), is(7L));
+        reader.endArray();
+    }
+}
@@ -0,0 +1,137 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonVisitorTest {
+    /**
+     * Rebuilds the same tree as {@link JsonDecoder#nextJsonValue()} from the visitor events.
+     */
+    private static class TreeBuilder implements JsonVisitor {
+        private final Deque<Object> containers = new ArrayDeque<>();
+        private final Deque<String> keys = new ArrayDeque<>();
+        private Object result;
+
+        @SuppressWarnings("unchecked")
+        private void add(Object value) {
+            Object container = containers.peek();
+            if (container instanceof Map) {
+                ((Map<String, Object>) container).put(keys.pop(), value);
+            } else if (container instanceof List) {
+                ((List<Object>) container).add(value);
+            } else {
+                result = value;
+            }
+        }
+
+        @Override
+        public void startObject() {
+            containers.push(new LinkedHashMap<String, Object>());
+        }
+
+        @Override
+        public void key(CharSequence key) {
+            keys.push(key.toString());
+        }
+
+        @Override
+        public void endObject() {
+            add(containers.pop());
+        }
+
+        @Override
+        public void startArray() {
+            containers.push(new ArrayList<>());
+        }
+
+        @Override
+        public void endArray() {
+            add(containers.pop());
+        }
+
+        @Override
+        public void value(CharSequence string) {
+            add(string.toString());
+        }
+
+        @Override
+        public void value(long number) {
+            add(number);
+        }
+
+        @Override
+        public void value(double number) {
+            add(number);
+        }
+
+        @Override
+        public void value(boolean value) {
+            add(value);
+        }
+
+        @Override
+        public void nullValue() {
+            add(Json.NULL);
+        }
+    }
+
+    @Test
+    void eventsRebuildTree() throws IOException {
+        String json = DecodeSourceTest.readBigFile();
+        TreeBuilder builder = new TreeBuilder();
+        new JsonDecoder(json).nextJsonValue(builder);
+        assertThat(builder.result, is(Json.parse(json)));
+    }
+
+    @Test
+    void eventsForLiterals() throws IOException {
+        TreeBuilder builder = new TreeBuilder();
+        new JsonDecoder("{\"a\": [1, -2, 3.5, 12345678901, true, false, null, \"s\\n\"], \"b\": {}}")
+                .nextJsonValue(builder);
+
+        Map<?, ?> result = (Map<?, ?>) builder.result;
+        assertThat(result.get("a"), is((Object) java.util.Arrays.asList(
+                1L, -2L, 3.5, 12345678901L, true, false, Json.NULL, "s\n")));
+        assertThat(result.get("b"), is((Object) new LinkedHashMap<>()));
+    }
+
+    @Test
+    void countingVisitor() throws IOException {
+        int[] counts = new int[2];
+        new JsonDecoder(DecodeSourceTest.readBigFile()).nextJsonValue(new JsonVisitor() {
+            @Override
+            public void startObject() {
+                counts[0]++;
+            }
+
+            @Override
+            public void key(CharSequence key) {
+                counts[1]++;
+            }
+        });
+
+        assertThat(counts[0], is(19));
+        assertThat(counts[1], is(19 * 4));
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IOException.class, () -> new JsonDecoder("[1, 2").nextJsonValue(new JsonVisitor() {
+        }));
+        assertThrows(IOException.class, () -> new JsonDecoder("{\"a\" 1}").nextJsonValue(new JsonVisitor() {
+        }));
+        assertThrows(IOException.class, () -> new JsonDecoder("[1,]").nextJsonValue(new JsonVisitor() {
+        }));
+    }
+}
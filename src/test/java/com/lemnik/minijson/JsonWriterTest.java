@@ -0,0 +1,146 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonWriterTest {
+    @Test
+    void writesDocument() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject()
+                .name("id").value(12345678901L)
+                .name("name").value("m\"ini")
+                .name("ratio").value(0.5)
+                .name("ok").value(true)
+                .name("missing").nullValue()
+                .name("count").value(Integer.valueOf(3))
+                .name("tags").beginArray().value("a").value(false).beginArray().endArray().endArray()
+                .name("tree").value(Collections.singletonMap("k", Arrays.asList(1, 2)))
+                .name("empty").beginObject().endObject()
+                .endObject();
+        writer.close();
+
+        String json = out.toString();
+        assertThat(json, is("{\"id\":12345678901,\"name\":\"m\\\"ini\",\"ratio\":0.5,\"ok\":true,\"missing\":null,"
+                + "\"count\":3,\"tags\":[\"a\",false,[]],\"tree\":{\"k\":[1,2]},\"empty\":{}}"));
+        assertThat(Json.parse(json), is(instanceOf(java.util.Map.class)));
+    }
+
+    @Test
+    void topLevelValuesOnSeparateLines() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(out);
+        for (int i = 0; i < 3; i++) {
+            writer.beginObject().name("n").value(i).name("s").value("é").endObject();
+        }
+        writer.value(7);
+        writer.flush();
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8),
+                is("{\"n\":0,\"s\":\"é\"}\n{\"n\":1,\"s\":\"é\"}\n{\"n\":2,\"s\":\"é\"}\n7"));
+    }
+
+    @Test
+    void deepNesting() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        for (int i = 0; i < 100; i++) {
+            writer.beginArray();
+        }
+        for (int i = 0; i < 100; i++) {
+            writer.endArray();
+        }
+        writer.close();
+        assertThat(out.toString().length(), is(200));
+    }
+
+    @Test
+    void invalidNesting() throws IOException {
+        JsonWriter writer = new JsonWriter(new StringWriter());
+        writer.beginObject();
+        assertThrows(IllegalStateException.class, () -> writer.value("no name"));
+        assertThrows(IllegalStateException.class, writer::endArray);
+        writer.name("a");
+        assertThrows(IllegalStateException.class, () -> writer.name("b"));
+        assertThrows(IllegalStateException.class, writer::endObject);
+        writer.beginArray();
+        assertThrows(IllegalStateException.class, () -> writer.name("c"));
+        assertThrows(IllegalStateException.class, writer::endObject);
+        assertThrows(IllegalArgumentException.class, () -> writer.value(Double.NaN));
+        writer.endArray();
+        assertThrows(IOException.class, writer::close);
+
+        JsonWriter empty = new JsonWriter(new StringWriter());
+        assertThrows(IllegalStateException.class, empty::endObject);
+    }
+
+    @Test
+    void nonFiniteNumbersOnEveryPath() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginArray();
+        assertThrows(IllegalArgumentException.class, () -> writer.value(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> writer.value((Number) Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> writer.value((Number) Float.NEGATIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> writer.value((Object) Double.NaN));
+        writer.value((Number) 1.5f).value((Object) 2.5).endArray().flush();
+
+        assertThat(out.toString(), is("[1.5,2.5]"));
+    }
+
+    @Test
+    void nonFiniteNumbersNestedInTrees() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonEncoder encoder = new JsonEncoder(out);
+        JsonWriter writer = new JsonWriter(encoder);
+        JsonNumberArray numbers = new JsonNumberArray();
+        numbers.addDouble(1.5);
+        numbers.addDouble(Double.NaN);
+
+        assertThrows(IllegalArgumentException.class, () -> writer.value((Object) Arrays.asList(1.0, Double.NaN)));
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.value((Object) Collections.singletonMap("a", Float.POSITIVE_INFINITY)));
+        assertThrows(IllegalArgumentException.class, () -> writer.value((Object) numbers));
+
+        // the encoder on its own still writes them
+        encoder.writeValue(Double.NaN);
+        encoder.flush();
+
+        assertThat(out.toString(), endsWith("NaN"));
+    }
+
+    @Test
+    void rejectedValuesWriteNothing() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        assertThrows(IllegalArgumentException.class, () -> writer.value(new Object()));
+        writer.beginArray();
+        assertThrows(IllegalArgumentException.class, () -> writer.value(new Object()));
+        writer.value(1);
+        assertThrows(IllegalArgumentException.class, () -> writer.value(new Object()));
+        writer.beginObject().name("a");
+        assertThrows(IllegalArgumentException.class, () -> writer.value(new Object()));
+        writer.value(Collections.singletonList(2)).endObject().endArray().flush();
+
+        assertThat(out.toString(), is("[1,{\"a\":[2]}]"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonWriter utf8 = new JsonWriter(bytes);
+        utf8.value("x");
+        assertThrows(IllegalArgumentException.class, () -> utf8.value(new Object()));
+        utf8.value("y").flush();
+
+        assertThat(new String(bytes.toByteArray(), StandardCharsets.UTF_8), is("\"x\"\n\"y\""));
+    }
+}
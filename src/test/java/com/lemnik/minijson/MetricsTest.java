@@ -0,0 +1,210 @@
+package com.lemnik.minijson;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricsTest {
+    private static final String JSON = " {\"a\": [1, 2.5, \"x\"], \"b\": {\"c\": null, \"d\": \"y\"}, \"a2\": [[true]]}";
+
+    /**
+     * Copies the values out of each reported {@link JsonStats}, as a real {@code JsonMetrics} must.
+     */
+    private static final class Recorder implements JsonMetrics {
+        final List<long[]> decoded = new ArrayList<>();
+        final List<long[]> encoded = new ArrayList<>();
+
+        private static long[] copy(JsonStats stats) {
+            return new long[]{
+                    stats.getLength(), stats.getMaxDepth(), stats.getObjectCount(), stats.getArrayCount(),
+                    stats.getStringCount(), stats.getNumberCount(), stats.getKeyCacheHits() + stats.getKeyCacheMisses(),
+                    stats.isFailed() ? 1 : 0, stats.getDurationNanos() >= 0 ? 1 : 0
+            };
+        }
+
+        @Override
+        public void decoded(JsonStats stats) {
+            decoded.add(copy(stats));
+        }
+
+        @Override
+        public void encoded(JsonStats stats) {
+            encoded.add(copy(stats));
+        }
+    }
+
+    @Test
+    void decodeStats() throws IOException {
+        Recorder recorder = new Recorder();
+        JsonDecoder chars = new JsonDecoder(JSON + " 7");
+        chars.setMetrics(recorder);
+        chars.nextJsonValue();
+        chars.nextJsonValue();
+
+        JsonDecoder bytes = new JsonDecoder(JSON.getBytes(StandardCharsets.UTF_8));
+        bytes.setMetrics(recorder);
+        bytes.nextJsonValue();
+
+        long[] expected = {JSON.length(), 3, 2, 3, 2, 2, 5, 0, 1};
+        assertThat(recorder.decoded.get(0), is(expected));
+        assertThat(recorder.decoded.get(1), is(new long[]{2, 0, 0, 0, 0, 1, 0, 0, 1}));
+        assertThat(recorder.decoded.get(2), is(expected));
+        assertThat(recorder.decoded.size(), is(3));
+    }
+
+    @Test
+    void failedDecode() {
+        Recorder recorder = new Recorder();
+        JsonDecoder decoder = new JsonDecoder("[1, {\"a\": ]");
+        decoder.setMetrics(recorder);
+        assertThrows(IOException.class, decoder::nextJsonValue);
+        assertThat(recorder.decoded.size(), is(1));
+        assertThat(recorder.decoded.get(0)[7], is(1L));
+    }
+
+    @Test
+    void numericArraysAreCounted() throws IOException {
+        Recorder recorder = new Recorder();
+        JsonDecoder decoder = new JsonDecoder("[1, 2, 3, \"x\"]");
+        decoder.setNumericArrays(true);
+        decoder.setMetrics(recorder);
+        decoder.nextJsonValue();
+        assertThat(recorder.decoded.get(0)[5], is(3L));
+        assertThat(recorder.decoded.get(0)[4], is(1L));
+    }
+
+    @Test
+    void encodeStats() throws IOException {
+        Object value = Json.parse(JSON);
+        Recorder recorder = new Recorder();
+        StringWriter out = new StringWriter();
+        JsonEncoder encoder = new JsonEncoder(out);
+        encoder.setMetrics(recorder);
+        encoder.writeValue(value);
+        encoder.flush();
+
+        assertThat(recorder.encoded.size(), is(1));
+        assertThat(recorder.encoded.get(0), is(new long[]{out.toString().length(), 3, 2, 3, 2, 2, 0, 0, 1}));
+    }
+
+    @Test
+    void parallelEncodeStats() throws IOException {
+        List<Object> value = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            value.add(Arrays.asList(i, "s"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Recorder recorder = new Recorder();
+            StringWriter out = new StringWriter();
+            JsonEncoder encoder = new JsonEncoder(out);
+            encoder.setParallelExecutor(executor);
+            encoder.setParallelThreshold(100);
+            encoder.setMetrics(recorder);
+            encoder.writeValue(value);
+            encoder.flush();
+
+            assertThat(recorder.encoded.get(0), is(new long[]{out.toString().length(), 2, 0, 2001, 2000, 2000, 0, 0, 1}));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void parallelWorkersAreNotMeasuredSeparately() throws IOException {
+        List<Object> value = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            value.add(Arrays.asList(i, "s"));
+        }
+
+        Recorder global = new Recorder();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Json.setMetrics(global);
+        try {
+            JsonEncoder encoder = new JsonEncoder(new StringWriter());
+            encoder.setParallelExecutor(executor);
+            encoder.setParallelThreshold(100);
+            encoder.setMetrics(null);
+            encoder.writeValue(value);
+            encoder.flush();
+
+            assertThat(global.encoded, is(empty()));
+        } finally {
+            Json.setMetrics(null);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void indexReadsAreNotMeasured() throws IOException {
+        Recorder recorder = new Recorder();
+        Json.setMetrics(recorder);
+        try {
+            JsonIndex index = JsonIndex.build(JSON);
+            assertThat(index.getValue(index.get(index.root(), "b")), is(notNullValue()));
+            assertThat(index.getValue(index.root()), is(notNullValue()));
+            assertThat(recorder.decoded, is(empty()));
+        } finally {
+            Json.setMetrics(null);
+        }
+    }
+
+    @Test
+    void flightRecorderEvents() throws IOException {
+        Path file = Files.createTempFile("mini-json", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.lemnik.minijson.Decode");
+            recording.enable("com.lemnik.minijson.Encode");
+            recording.start();
+
+            Object value = new JsonDecoder(JSON).nextJsonValue();
+            Json.stringify(value);
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent decode = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("com.lemnik.minijson.Decode"))
+                    .findFirst().orElseThrow(AssertionError::new);
+            assertThat(decode.getLong("length"), is((long) JSON.length()));
+            assertThat(decode.getEventType().getField("length").getContentType(), is(nullValue()));
+            assertThat(decode.getInt("maxDepth"), is(3));
+            assertThat(decode.getLong("keyCacheHits") + decode.getLong("keyCacheMisses"), is(5L));
+            assertThat(decode.getStackTrace(), is(nullValue()));
+            assertThat(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.lemnik.minijson.Encode")),
+                    is(true));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void flightRecorderEventsAreDisabledByDefault() {
+        try (Recording recording = new Recording()) {
+            recording.start();
+            assertThat(JsonFlightRecorder.isDecodeEnabled(), is(false));
+            assertThat(JsonFlightRecorder.isEncodeEnabled(), is(false));
+
+            recording.enable("com.lemnik.minijson.Decode");
+            assertThat(JsonFlightRecorder.isDecodeEnabled(), is(true));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NonBlockingJsonDecoderTest {
+    /**
+     * Feed {@code bytes} in chunks of {@code chunkSize}, collecting every complete value.
+     */
+    private static List<Object> decodeInChunks(byte[] bytes, int chunkSize) throws IOException {
+        NonBlockingJsonDecoder decoder = new NonBlockingJsonDecoder();
+        List<Object> values = new ArrayList<>();
+
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            decoder.feed(ByteBuffer.wrap(bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+
+            Object value;
+            while ((value = decoder.nextJsonValue()) != null) {
+                values.add(value);
+            }
+        }
+
+        decoder.endOfInput();
+        Object value;
+        while ((value = decoder.nextJsonValue()) != null) {
+            values.add(value);
+        }
+
+        assertThat(decoder.nextToken(), is(JsonToken.END_DOCUMENT));
+        return values;
+    }
+
+    @Test
+    void bigFileInEveryChunkSize() throws IOException {
+        String json = DecodeSourceTest.readBigFile();
+        Object expected = Json.parse(json);
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        for (int chunkSize = 1; chunkSize < 64; chunkSize++) {
+            assertThat(decodeInChunks(bytes, chunkSize), is(Arrays.asList(expected)));
+        }
+    }
+
+    @Test
+    void splitMultiByteEscapesAndNumbers() throws IOException {
+        String json = "{\"ключ\": \"é你😀 \\\"\\u00e9\\n\", \"n\": [12345, -1.5e3, true, false, null, {}, []]} 42";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<Object> expected = Arrays.asList(
+                Json.parse(json.substring(0, json.lastIndexOf('}') + 1)),
+                Integer.valueOf(42)
+        );
+
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            assertThat(decodeInChunks(bytes, chunkSize), is(expected));
+        }
+    }
+
+    @Test
+    void tokens() throws IOException {
+        NonBlockingJsonDecoder decoder = new NonBlockingJsonDecoder();
+        assertThat(decoder.nextToken(), is(JsonToken.NEED_MORE_INPUT));
+
+        decoder.feed(ByteBuffer.wrap("[\"ab".getBytes(StandardCharsets.UTF_8)));
+        assertThat(decoder.nextToken(), is(JsonToken.BEGIN_ARRAY));
+        assertThat(decoder.nextToken(), is(JsonToken.NEED_MORE_INPUT));
+
+        decoder.feed(ByteBuffer.wrap("c\", 12".getBytes(StandardCharsets.UTF_8)));
+        assertThat(decoder.nextToken(), is(JsonToken.STRING));
+        assertThat(decoder.getString(), is("abc"));
+        assertThat(decoder.nextToken(), is(JsonToken.NEED_MORE_INPUT));
+
+        decoder.feed(ByteBuffer.wrap("3]".getBytes(StandardCharsets.UTF_8)));
+        assertThat(decoder.nextToken(), is(JsonToken.NUMBER));
+        assertThat(decoder.getLong(), is(123L));
+        assertThat(decoder.nextToken(), is(JsonToken.END_ARRAY));
+        assertThat(decoder.nextToken(), is(JsonToken.NEED_MORE_INPUT));
+
+        decoder.endOfInput();
+        assertThat(decoder.nextToken(), is(JsonToken.END_DOCUMENT));
+    }
+
+    @Test
+    void malformed() {
+        assertThrows(IOException.class, () -> decodeInChunks("[1 2]".getBytes(StandardCharsets.UTF_8), 1));
+        assertThrows(IOException.class, () -> decodeInChunks("{\"a\" 1}".getBytes(StandardCharsets.UTF_8), 3));
+        assertThrows(IOException.class, () -> decodeInChunks("[tru]".getBytes(StandardCharsets.UTF_8), 2));
+        assertThrows(IOException.class, () -> decodeInChunks("[1, 2".getBytes(StandardCharsets.UTF_8), 2));
+        assertThrows(IOException.class, () -> decodeInChunks("\"open".getBytes(StandardCharsets.UTF_8), 2));
+    }
+
+    @Test
+    void feedBeforeConsumed() {
+        NonBlockingJsonDecoder decoder = new NonBlockingJsonDecoder();
+        decoder.feed(ByteBuffer.wrap(new byte[]{'1'}));
+        assertThrows(IllegalStateException.class, () -> decoder.feed(ByteBuffer.wrap(new byte[]{'2'})));
+    }
+
+    @Test
+    void topLevelValuesNeedSeparators() throws IOException {
+        byte[] lines = "{\"a\":1}\n[2]\ntrue false 3\r\n\"s\"".getBytes(StandardCharsets.UTF_8);
+        for (int chunkSize = 1; chunkSize <= lines.length; chunkSize++) {
+            assertThat(decodeInChunks(lines, chunkSize).size(), is(6));
+        }
+
+        for (String json : new String[]{"truefalse", "{}{}", "[1][2]", "1\"a\"", "null{}"}) {
+            assertThrows(IOException.class, () -> decodeInChunks(json.getBytes(StandardCharsets.UTF_8), 1), json);
+        }
+    }
+
+    @Test
+    void needMoreInputOrEndOfDocument() throws IOException {
+        NonBlockingJsonDecoder decoder = new NonBlockingJsonDecoder();
+        decoder.setKeyCache(null);
+        assertThat(decoder.getToken(), is((JsonToken) null));
+
+        decoder.feed(ByteBuffer.wrap("{\"key\": 1".getBytes(StandardCharsets.UTF_8)));
+        assertThat(decoder.nextJsonValue(), is((Object) null));
+        assertThat(decoder.getToken(), is(JsonToken.NEED_MORE_INPUT));
+
+        decoder.feed(ByteBuffer.wrap("}".getBytes(StandardCharsets.UTF_8)));
+        assertThat(decoder.nextJsonValue(), is(Json.parse("{\"key\": 1}")));
+        assertThat(decoder.getToken(), is(JsonToken.END_OBJECT));
+
+        decoder.endOfInput();
+        assertThat(decoder.nextJsonValue(), is((Object) null));
+        assertThat(decoder.getToken(), is(JsonToken.END_DOCUMENT));
+    }
+}
@@ -0,0 +1,82 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class NumberFormatterTest {
+    private final char[] buffer = new char[NumberFormatter.MAX_LENGTH + 8];
+
+    private String formatLong(long value) {
+        // from a non-zero offset to check nothing is written before it
+        return new String(buffer, 8, NumberFormatter.formatLong(value, buffer, 8) - 8);
+    }
+
+    private String formatDouble(double value) {
+        return new String(buffer, 8, NumberFormatter.formatDouble(value, buffer, 8) - 8);
+    }
+
+    @Test
+    void longs() {
+        long[] values = {0, 1, -1, 9, 10, 99, 100, -100, 1234567890123L, 999_999_999_999_999_999L,
+                1_000_000_000_000_000_000L, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long value : values) {
+            assertThat(formatLong(value), is(Long.toString(value)));
+        }
+
+        Random random = new Random(24);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            assertThat(formatLong(value), is(Long.toString(value)));
+        }
+    }
+
+    @Test
+    void doubleLayout() {
+        assertThat(formatDouble(0.0), is("0.0"));
+        assertThat(formatDouble(-0.0), is("-0.0"));
+        assertThat(formatDouble(1.0), is("1.0"));
+        assertThat(formatDouble(-10.5), is("-10.5"));
+        assertThat(formatDouble(100.0), is("100.0"));
+        assertThat(formatDouble(0.001), is("0.001"));
+        assertThat(formatDouble(0.0001), is("1.0E-4"));
+        assertThat(formatDouble(9999999.0), is("9999999.0"));
+        assertThat(formatDouble(1.0E7), is("1.0E7"));
+        assertThat(formatDouble(1.2345678E7), is("1.2345678E7"));
+        assertThat(formatDouble(Double.MIN_VALUE), is("4.9E-324"));
+        assertThat(formatDouble(Double.MAX_VALUE), is("1.7976931348623157E308"));
+        assertThat(formatDouble(Double.MIN_NORMAL), is("2.2250738585072014E-308"));
+        assertThat(formatDouble(Double.NaN), is("NaN"));
+        assertThat(formatDouble(Double.NEGATIVE_INFINITY), is("-Infinity"));
+    }
+
+    @Test
+    void shortestDigits() {
+        // values that older versions of Double.toString write with more digits than needed
+        assertThat(formatDouble(2.0E23), is("2.0E23"));
+        assertThat(formatDouble(1.0E23), is("1.0E23"));
+        assertThat(formatDouble(2.82879384806159E17), is("2.82879384806159E17"));
+        assertThat(formatDouble(9.420735430282127E17), is("9.420735430282127E17"));
+    }
+
+    @Test
+    void doublesRoundTrip() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            double value = i % 2 == 0
+                    ? Double.longBitsToDouble(random.nextLong())
+                    : random.nextInt(1_000_000) / 1000.0;
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+
+            String formatted = formatDouble(value);
+            assertThat(formatted, Double.doubleToRawLongBits(Double.parseDouble(formatted)),
+                    is(Double.doubleToRawLongBits(value)));
+            assertThat(formatted, formatted.length(), is(lessThanOrEqualTo(Double.toString(value).length())));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.lemnik.minijson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResetTest {
+    @Test
+    void decoderReset() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[1, 2] [3]");
+        assertThat(decoder.nextJsonValue(), is(Arrays.asList(1, 2)));
+
+        decoder.reset("{\"a\": \"b\"}");
+        assertThat(decoder.nextJsonValue(), is(Collections.singletonMap("a", "b")));
+
+        decoder.reset(new StringReader("\"reader\""));
+        assertThat(decoder.nextJsonValue(), is("reader"));
+
+        decoder.reset("true");
+        assertThat(decoder.nextJsonValue(), is(true));
+
+        char[] bigString = new char[100_000];
+        Arrays.fill(bigString, 'x');
+        decoder.reset("\"" + new String(bigString) + "\"");
+        assertThat(((String) decoder.nextJsonValue()).length(), is(bigString.length));
+
+        decoder.reset("null");
+        assertThat(decoder.nextJsonValue(), is(Json.NULL));
+
+        JsonDecoder utf8 = new JsonDecoder("[1]".getBytes("UTF-8"));
+        utf8.reset("[2]");
+        assertThat(utf8.nextJsonValue(), is(Collections.singletonList(2)));
+
+        utf8.reset("[3]".getBytes("UTF-8"));
+        assertThat(utf8.nextJsonValue(), is(Collections.singletonList(3)));
+        utf8.reset("x[4]y".getBytes("UTF-8"), 1, 3);
+        assertThat(utf8.nextJsonValue(), is(Collections.singletonList(4)));
+        assertThrows(IOException.class, utf8::nextJsonValue);
+    }
+
+    @Test
+    void decoderResetDoesNotOverwriteCallerArray() throws IOException {
+        char[] json = "[1,2,3]".toCharArray();
+        JsonDecoder decoder = new JsonDecoder(json, 0, json.length);
+        decoder.reset("[4]");
+        assertThat(new String(json), is("[1,2,3]"));
+        assertThat(decoder.nextJsonValue(), is(Collections.singletonList(4)));
+    }
+
+    @Test
+    void clearedInputIsOverwritten() throws IOException {
+        JsonDecoder decoder = new JsonDecoder("[\"secret\"]");
+        decoder.nextJsonValue();
+        char[] buffer = ((CharSource) decoder.source).buffer;
+
+        decoder.clearInput();
+        assertThat(new String(buffer).contains("secret"), is(false));
+
+        decoder.reset(new StringReader("\"also secret\""));
+        decoder.nextJsonValue();
+        decoder.clearInput();
+        assertThat(new String(((CharSource) decoder.source).buffer).contains("secret"), is(false));
+
+        decoder.reset("[1]");
+        assertThat(decoder.nextJsonValue(), is(Collections.singletonList(1)));
+    }
+
+    @Test
+    void encoderReset() throws IOException {
+        StringWriter first = new StringWriter();
+        JsonEncoder encoder = new JsonEncoder(first);
+        encoder.writeValue("discarded");
+
+        StringWriter second = new StringWriter();
+        encoder.reset(second);
+        encoder.writeValue(Collections.singletonMap("a", 1));
+        encoder.flush();
+
+        assertThat(first.toString(), is(""));
+        assertThat(second.toString(), is("{\"a\":1}"));
+    }
+
+    @Test
+    void parseAndStringify() throws IOException {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("name", "mini-json");
+        value.put("tags", Arrays.asList("a", "b"));
+
+        String json = Json.stringify(value);
+        assertThat(json, is("{\"name\":\"mini-json\",\"tags\":[\"a\",\"b\"]}"));
+        assertThat(Json.parse(json), is(value));
+        assertThat(Json.parse(new StringReader(json)), is(value));
+
+        StringWriter out = new StringWriter();
+        Json.stringify(value, out);
+        assertThat(out.toString(), is(json));
+
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1,"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(new StringReader("[1,")));
+        assertThat(Json.parse("[1]"), is(Collections.singletonList(1)));
+    }
+
+    @Test
+    void pooledDecodersComeFromTheFactoryOnce() {
+        List<String> created = new ArrayList<>();
+        Json.setStringDecoderFactory(json -> {
+            created.add(json);
+            return new JsonDecoder(json);
+        });
+
+        try {
+            assertThat(Json.parse("[1]"), is(Collections.singletonList(1)));
+            assertThat(Json.parse("[2]"), is(Collections.singletonList(2)));
+            assertThat(created, contains("[1]"));
+        } finally {
+            Json.setStringDecoderFactory(JsonDecoder::new);
+        }
+    }
+
+    @Test
+    void pooledBytesDecoders() throws IOException {
+        List<byte[]> created = new ArrayList<>();
+        Json.setBytesDecoderFactory(json -> {
+            created.add(json);
+            return new JsonDecoder(json);
+        });
+
+        try {
+            byte[] first = "[1]".getBytes("UTF-8");
+            assertThat(Json.parse(first), is(Collections.singletonList(1)));
+            assertThat(Json.parse(ByteBuffer.wrap("x[2]".getBytes("UTF-8"), 1, 3)), is(Collections.singletonList(2)));
+            assertThat(Json.extract("{\"a\": 3}".getBytes("UTF-8"), "/a"), is(new Object[]{3}));
+            assertThrows(IllegalArgumentException.class, () -> Json.parse("[1,".getBytes("UTF-8")));
+            assertThat(Json.parse("[4]".getBytes("UTF-8")), is(Collections.singletonList(4)));
+            assertThat(created, contains(first));
+
+            JsonDecoder decoder = new JsonDecoder(first);
+            decoder.clearInput();
+            assertThat(((Utf8Source) decoder.source).buffer.length, is(0));
+        } finally {
+            Json.setBytesDecoderFactory(JsonDecoder::new);
+        }
+    }
+
+    @Test
+    void concurrentPooledUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int task = 0; task < 32; task++) {
+                final int id = task;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        List<Object> value = Arrays.asList(id, i, "task" + id);
+                        if (!Json.parse(Json.stringify(value)).equals(value)) {
+                            return false;
+                        }
+                    }
+
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}